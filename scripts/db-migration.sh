@@ -46,8 +46,12 @@ check_config() {
         create_default_config
     fi
     
-    # 加载配置
+    # 加载配置，命令行指定的试运行模式优先于配置文件
+    local dry_run="$DRY_RUN"
     source "$CONFIG_FILE"
+    if [[ "$dry_run" == "true" ]]; then
+        DRY_RUN=true
+    fi
     
     # 验证必要配置
     if [[ -z "$DB_HOST" || -z "$DB_PORT" || -z "$DB_NAME" || -z "$DB_USER" || -z "$DB_PASSWORD" ]]; then
@@ -173,6 +177,26 @@ migrate_footprint_table() {
     fi
 }
 
+# 版本化迁移（索引等）- 调用 migrations/migrate_versions.sh
+migrate_versions() {
+    log "开始执行版本化迁移..."
+    
+    local versions_script="$(dirname "$0")/migrations/migrate_versions.sh"
+    
+    if [[ -f "$versions_script" ]]; then
+        # 沿用本次解析的配置文件和试运行模式
+        local args=(-c "$CONFIG_FILE")
+        if [[ "$DRY_RUN" == "true" ]]; then
+            args+=(--dry-run)
+        fi
+        bash "$versions_script" "${args[@]}"
+        return $?
+    else
+        error "找不到版本化迁移脚本: $versions_script"
+        return 1
+    fi
+}
+
 # 用户表结构更新
 migrate_user_table() {
     log "检查用户表结构更新..."
@@ -246,7 +270,7 @@ show_help() {
     -c, --config FILE   指定配置文件路径 (默认: ./scripts/db-config.properties)
     -d, --dry-run       试运行模式，不实际执行SQL
     -f, --force         强制迁移，即使目标表已有数据
-    -t, --table TABLE   只迁移指定的表 (footprint|user|room|application|all)
+    -t, --table TABLE   只迁移指定的表 (footprint|user|room|application|versions|all)
     --no-backup         禁用备份
     --backup-only       只创建备份，不执行迁移
 
@@ -254,6 +278,7 @@ show_help() {
     $0                          # 执行完整迁移
     $0 -d                       # 试运行模式
     $0 -t footprint             # 只迁移FootPrint表
+    $0 -t versions              # 只执行 migrations/versions 下的版本化迁移
     $0 -f                       # 强制迁移所有表
     $0 --backup-only            # 只创建备份
 EOF
@@ -335,11 +360,15 @@ main() {
         application)
             migrate_application_table
             ;;
+        versions)
+            migrate_versions
+            ;;
         all)
             migrate_footprint_table
             migrate_user_table
             migrate_room_table
             migrate_application_table
+            migrate_versions
             ;;
         *)
             error "不支持的表名: $target_table"
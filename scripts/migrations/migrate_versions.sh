@@ -0,0 +1,176 @@
+#!/bin/bash
+
+# 版本化迁移脚本
+# 按版本号顺序执行 versions/ 目录下的 V<版本号>__<描述>.sql，
+# 已执行的版本记录在 schema_migration 表中，重复执行时跳过
+
+# 获取脚本目录
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+
+# 配置文件路径
+CONFIG_FILE="$SCRIPT_DIR/../db-config.properties"
+MIGRATION_LOG="$SCRIPT_DIR/../../logs/migration.log"
+VERSIONS_DIR="$SCRIPT_DIR/versions"
+HISTORY_TABLE="schema_migration"
+
+# 颜色定义
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+NC='\033[0m'
+
+# 日志函数
+log() {
+    echo -e "${BLUE}[$(date '+%Y-%m-%d %H:%M:%S')] $1${NC}"
+    mkdir -p "$(dirname "$MIGRATION_LOG")"
+    echo "[$(date '+%Y-%m-%d %H:%M:%S')] $1" >> "$MIGRATION_LOG"
+}
+
+error() {
+    echo -e "${RED}[ERROR] $1${NC}" >&2
+    mkdir -p "$(dirname "$MIGRATION_LOG")"
+    echo "[ERROR] $1" >> "$MIGRATION_LOG"
+}
+
+success() {
+    echo -e "${GREEN}[SUCCESS] $1${NC}"
+    mkdir -p "$(dirname "$MIGRATION_LOG")"
+    echo "[SUCCESS] $1" >> "$MIGRATION_LOG"
+}
+
+warning() {
+    echo -e "${YELLOW}[WARNING] $1${NC}"
+    mkdir -p "$(dirname "$MIGRATION_LOG")"
+    echo "[WARNING] $1" >> "$MIGRATION_LOG"
+}
+
+# 检查配置文件
+check_config() {
+    if [[ ! -f "$CONFIG_FILE" ]]; then
+        error "配置文件不存在: $CONFIG_FILE"
+        exit 1
+    fi
+    
+    # 加载配置，命令行指定的试运行模式优先于配置文件
+    local dry_run="$DRY_RUN"
+    source "$CONFIG_FILE"
+    if [[ "$dry_run" == "true" ]]; then
+        DRY_RUN=true
+    fi
+    
+    # 验证必要配置
+    if [[ -z "$DB_HOST" || -z "$DB_PORT" || -z "$DB_NAME" || -z "$DB_USER" || -z "$DB_PASSWORD" ]]; then
+        error "配置文件缺少必要的数据库连接信息"
+        exit 1
+    fi
+}
+
+# 数据库连接测试
+test_connection() {
+    log "测试数据库连接..."
+    mysql -h"$DB_HOST" -P"$DB_PORT" -u"$DB_USER" -p"$DB_PASSWORD" -e "USE $DB_NAME; SELECT 1;" > /dev/null 2>&1
+    if [[ $? -eq 0 ]]; then
+        success "数据库连接成功"
+    else
+        error "数据库连接失败，请检查配置"
+        exit 1
+    fi
+}
+
+# 执行SQL语句
+execute_sql() {
+    local sql="$1"
+    mysql -h"$DB_HOST" -P"$DB_PORT" -u"$DB_USER" -p"$DB_PASSWORD" "$DB_NAME" -e "$sql"
+    return $?
+}
+
+# 创建迁移历史表
+create_history_table() {
+    execute_sql "
+    CREATE TABLE IF NOT EXISTS $HISTORY_TABLE (
+        version VARCHAR(50) PRIMARY KEY COMMENT '版本号',
+        description VARCHAR(200) COMMENT '描述',
+        checksum CHAR(32) COMMENT '脚本MD5',
+        applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '执行时间'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='版本化迁移历史';
+    "
+}
+
+# 检查版本是否已执行
+version_applied() {
+    local version="$1"
+    local result=$(mysql -h"$DB_HOST" -P"$DB_PORT" -u"$DB_USER" -p"$DB_PASSWORD" "$DB_NAME" \
+        -e "SELECT COUNT(*) FROM $HISTORY_TABLE WHERE version='$version';" -N 2>/dev/null)
+    [[ "$result" == "1" ]]
+}
+
+# 按版本号顺序执行未执行过的迁移
+migrate_versions() {
+    log "开始执行版本化迁移..."
+    
+    create_history_table
+    if [[ $? -ne 0 ]]; then
+        error "创建迁移历史表失败"
+        return 1
+    fi
+    
+    local applied=0
+    for sql_file in $(ls "$VERSIONS_DIR"/V*__*.sql 2>/dev/null | sort); do
+        local file_name=$(basename "$sql_file" .sql)
+        local version="${file_name%%__*}"
+        local description="${file_name#*__}"
+        
+        if version_applied "$version"; then
+            continue
+        fi
+        
+        if [[ "$DRY_RUN" == "true" ]]; then
+            warning "DRY RUN模式 - 待执行 $file_name"
+            cat "$sql_file"
+            continue
+        fi
+        
+        log "执行迁移 $version: $description"
+        mysql -h"$DB_HOST" -P"$DB_PORT" -u"$DB_USER" -p"$DB_PASSWORD" "$DB_NAME" < "$sql_file"
+        if [[ $? -ne 0 ]]; then
+            error "迁移 $version 执行失败，后续版本未执行"
+            return 1
+        fi
+        
+        local checksum=$(md5sum "$sql_file" | cut -d' ' -f1)
+        execute_sql "INSERT INTO $HISTORY_TABLE (version, description, checksum) VALUES ('$version', '$description', '$checksum');"
+        success "迁移 $version 执行完成"
+        applied=$((applied + 1))
+    done
+    
+    success "版本化迁移完成，本次执行 $applied 个版本"
+}
+
+# 如果直接执行此脚本
+if [[ "${BASH_SOURCE[0]}" == "${0}" ]]; then
+    # 解析命令行参数
+    while [[ $# -gt 0 ]]; do
+        case $1 in
+            -c|--config)
+                CONFIG_FILE="$2"
+                shift 2
+                ;;
+            -d|--dry-run)
+                DRY_RUN=true
+                shift
+                ;;
+            *)
+                error "未知选项: $1"
+                exit 1
+                ;;
+        esac
+    done
+    
+    # 检查配置和连接
+    check_config
+    test_connection
+    
+    # 执行迁移
+    migrate_versions
+fi
@@ -0,0 +1,31 @@
+-- 申请表复合索引
+-- 冲突检查/教室状态刷新按 (room_id, status, start_time, end_time) 过滤，
+-- 定时状态转换按 (status, start_time) 和 (status, end_time) 批量更新
+-- 与 Application 实体上的 @Table(indexes=...) 保持一致；索引已存在时跳过
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'application'
+               AND index_name = 'idx_application_room_status_time') = 0,
+    'ALTER TABLE application ADD INDEX idx_application_room_status_time (room_id, status, start_time, end_time), ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'application'
+               AND index_name = 'idx_application_status_start_time') = 0,
+    'ALTER TABLE application ADD INDEX idx_application_status_start_time (status, start_time), ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'application'
+               AND index_name = 'idx_application_status_end_time') = 0,
+    'ALTER TABLE application ADD INDEX idx_application_status_end_time (status, end_time), ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
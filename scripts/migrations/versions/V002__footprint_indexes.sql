@@ -0,0 +1,21 @@
+-- 动态记录表复合索引
+-- 按操作人、按教室查询动态时均按时间倒序分页
+-- 与 FootPrint 实体上的 @Table(indexes=...) 保持一致；索引已存在时跳过
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'footprint'
+               AND index_name = 'idx_footprint_operator_time') = 0,
+    'ALTER TABLE footprint ADD INDEX idx_footprint_operator_time (operator_id, timestamp), ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'footprint'
+               AND index_name = 'idx_footprint_room_time') = 0,
+    'ALTER TABLE footprint ADD INDEX idx_footprint_room_time (room_id, timestamp), ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,12 @@
+-- 通知表复合索引
+-- 用户通知列表、未读数按 (user_id, is_read, create_time) 过滤和排序
+-- 与 Notification 实体上的 @Table(indexes=...) 保持一致；索引已存在时跳过
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'notification'
+               AND index_name = 'idx_notification_user_read_time') = 0,
+    'ALTER TABLE notification ADD INDEX idx_notification_user_read_time (user_id, is_read, create_time), ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
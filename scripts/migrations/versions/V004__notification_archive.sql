@@ -0,0 +1,40 @@
+-- 通知游标分页、归档相关索引及归档表
+-- 收件箱按 (user_id, create_time, id) 游标分页，归档任务按 (is_read, create_time) 扫描已读通知
+-- 与 Notification、NotificationArchive 实体上的 @Table(indexes=...) 保持一致；已存在时跳过
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'notification'
+               AND index_name = 'idx_notification_user_time_id') = 0,
+    'ALTER TABLE notification ADD INDEX idx_notification_user_time_id (user_id, create_time, id), ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'notification'
+               AND index_name = 'idx_notification_read_time') = 0,
+    'ALTER TABLE notification ADD INDEX idx_notification_read_time (is_read, create_time), ALGORITHM=INPLACE, LOCK=NONE',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+CREATE TABLE IF NOT EXISTS notification_archive (
+    id BIGINT NOT NULL,
+    title VARCHAR(255),
+    content VARCHAR(255),
+    type VARCHAR(255),
+    priority VARCHAR(255),
+    is_read BIT(1),
+    user_id BIGINT,
+    create_time DATETIME(6),
+    read_time DATETIME(6),
+    action_type VARCHAR(255),
+    action_target VARCHAR(255),
+    related_id BIGINT,
+    related_type VARCHAR(255),
+    archive_time DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_notification_archive_user_time (user_id, create_time)
+) ENGINE=InnoDB;
@@ -7,6 +7,7 @@ import { formatRelativeTime } from '../utils/dateFormat';
 import { useI18n } from '../contexts/I18nContext';
 import { notificationEvents, NOTIFICATION_EVENTS } from '../utils/notificationEvents';
 import isMobileFn from '../utils/isMobile';
+import webSocketService from '../services/websocketService';
 
 const { Text } = Typography;
 
@@ -129,6 +130,8 @@ export default function NotificationCenter({ userId, visible, onClose, onUnreadC
           list = Array.from(mergedMap.values());
         }
       } catch(e) { console.warn('本地通知解析失败', e); }
+      // 记录服务器通知的最大ID，WebSocket 重连时从这里开始补发
+      webSocketService.rememberNotifications(list.filter(n => !n.local));
       setNotifications(list);
       // 横幅逻辑（只在首次加载时）
       if (list.length > 0) {
@@ -597,6 +600,23 @@ export default function NotificationCenter({ userId, visible, onClose, onUnreadC
     };
   }, []);
 
+  // 实时推送缺失过多时重新加载通知列表和未读数量
+  const visibleRef = useRef(visible);
+  visibleRef.current = visible;
+  useEffect(() => {
+    const unsubscribe = notificationEvents.addEventListener(
+      NOTIFICATION_EVENTS.NOTIFICATIONS_RESYNC,
+      () => {
+        console.log('[NotificationCenter] 收到重新同步要求，重新加载通知');
+        fetchUnreadCount();
+        if (visibleRef.current) {
+          fetchNotifications();
+        }
+      }
+    );
+    return unsubscribe;
+  }, [fetchNotifications, fetchUnreadCount]);
+
   // 每次抽屉开启时刷新一次（避免仅首挂载请求）
   useEffect(() => {
     if (visible) {
@@ -682,6 +682,33 @@ export default function AppLayout({ children }) {
       }
     };
 
+    // 断线期间缺失的通知无法补发，重新加载通知列表和未读计数
+    const handleResyncRequired = () => {
+      console.log('[Layout] 🔄 WebSocket要求重新同步通知');
+      notificationEvents.emit(NOTIFICATION_EVENTS.NOTIFICATIONS_RESYNC);
+      refreshUnreadCount(true);
+    };
+
+    // 服务端推送的未读数只包含服务器通知，加上本地通知中的未读数量
+    const handleUnreadCountChanged = (change) => {
+      if (typeof change?.unreadCount !== 'number') {
+        return;
+      }
+      let localUnread = 0;
+      try {
+        const localRaw = localStorage.getItem('localNotifications');
+        if (localRaw) {
+          localUnread = JSON.parse(localRaw).filter(n => !n.isRead).length;
+        }
+      } catch (e) {
+        console.warn('获取本地未读数量失败:', e);
+      }
+      const totalUnread = change.unreadCount + localUnread;
+      console.log(`[Layout] 🔢 WebSocket推送未读数量: ${totalUnread} (服务器: ${change.unreadCount} + 本地: ${localUnread})`);
+      setUnreadCount(totalUnread);
+      notificationEvents.emit(NOTIFICATION_EVENTS.UNREAD_COUNT_CHANGED, totalUnread);
+    };
+
     const handleWebSocketConnected = () => {
       console.log('[Layout] 🟢 WebSocket连接已建立，实时通知功能已启用');
     };
@@ -704,6 +731,8 @@ export default function AppLayout({ children }) {
     
     webSocketService.on('test', handleTestEvent);
     webSocketService.on('newNotification', handleNewNotification);
+    webSocketService.on('unreadCountChanged', handleUnreadCountChanged);
+    webSocketService.on('resyncRequired', handleResyncRequired);
     webSocketService.on('connected', handleWebSocketConnected);
     webSocketService.on('disconnected', handleWebSocketDisconnected);
     webSocketService.on('error', handleWebSocketError);
@@ -727,6 +756,8 @@ export default function AppLayout({ children }) {
       console.log('[Layout] 🧹 清理WebSocket事件监听器...');
       webSocketService.off('test', handleTestEvent);
       webSocketService.off('newNotification', handleNewNotification);
+      webSocketService.off('unreadCountChanged', handleUnreadCountChanged);
+      webSocketService.off('resyncRequired', handleResyncRequired);
       webSocketService.off('connected', handleWebSocketConnected);
       webSocketService.off('disconnected', handleWebSocketDisconnected);
       webSocketService.off('error', handleWebSocketError);
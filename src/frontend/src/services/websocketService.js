@@ -13,6 +13,7 @@ class WebSocketService {
         this.isConnected = false;
         this.userId = null;
         this.heartbeatInterval = null;
+        this.lastNotificationId = null; // 已收到的最大通知ID，重连时用于补发断线期间的通知
     }
 
     /**
@@ -36,6 +37,9 @@ class WebSocketService {
             return;
         }
 
+        if (this.userId !== userId) {
+            this.lastNotificationId = null;
+        }
         this.userId = userId;
         this.token = token;
         console.log(`[WebSocket] 开始连接 userId=${userId}, token=${token ? '已提供' : '未提供'}`);
@@ -53,7 +57,12 @@ class WebSocketService {
             // 开发环境连接到后端服务器端口8080，生产环境使用当前域名
             const isDevelopment = window.location.port === '3000';
             const backendHost = isDevelopment ? 'localhost:8080' : window.location.host;
-            const wsUrl = `${protocol}//${backendHost}/ws/notifications?token=${encodeURIComponent(token)}`;
+            let wsUrl = `${protocol}//${backendHost}/ws/notifications?token=${encodeURIComponent(token)}`;
+            // 重连时带上最后收到的通知ID，服务端补发之间的通知
+            if (this.lastNotificationId !== null) {
+                wsUrl += `&lastNotificationId=${this.lastNotificationId}`;
+                console.log(`[WebSocket] 请求补发通知ID ${this.lastNotificationId} 之后的通知`);
+            }
             
             console.log(`[WebSocket] 构建连接URL: ${protocol}//${backendHost}/ws/notifications?token=[HIDDEN]`);
             console.log(`[WebSocket] 当前页面信息: protocol=${window.location.protocol}, host=${window.location.host}, port=${window.location.port}`);
@@ -153,10 +162,30 @@ class WebSocketService {
                 break;
             case 'NEW_NOTIFICATION':
                 console.log('[WebSocket] 🔔 收到新通知:', message.data);
+                this.rememberNotifications([message.data]);
                 console.log('[WebSocket] 📡 准备触发 newNotification 事件...');
                 this.emit('newNotification', message.data);
                 console.log('[WebSocket] ✅ newNotification 事件已触发');
                 break;
+            case 'NOTIFICATION_BATCH':
+            case 'NOTIFICATION_REPLAY':
+                // 合并推送或重连补发的多条通知，逐条触发 newNotification 事件
+                console.log(`[WebSocket] 🔔 收到 ${message.data?.length || 0} 条通知 (${message.type})`);
+                this.rememberNotifications(message.data);
+                (message.data || []).forEach(notification => this.emit('newNotification', notification));
+                break;
+            case 'RESYNC_REQUIRED':
+                // 断线期间缺失的通知过多，无法补发，需要重新加载通知列表；
+                // 之后收到的通知或重新加载的列表会更新最后通知ID
+                console.warn('[WebSocket] ⚠️ 缺失通知过多，需要重新加载通知列表');
+                this.lastNotificationId = null;
+                this.emit('resyncRequired', message.data);
+                break;
+            case 'UNREAD_COUNT':
+                // 服务端未读数变化: { unreadCount, delta }，delta 为 null 时表示核对修正或全部已读
+                console.log('[WebSocket] 🔢 收到未读数变化:', message.data);
+                this.emit('unreadCountChanged', message.data);
+                break;
             case 'PONG':
                 console.log('[WebSocket] 💓 收到心跳响应');
                 break;
@@ -165,6 +194,19 @@ class WebSocketService {
         }
     }
 
+    /**
+     * 记录已收到的最大通知ID
+     * @param {Array} notifications 服务端通知列表
+     */
+    rememberNotifications(notifications) {
+        (notifications || []).forEach(notification => {
+            const id = Number(notification?.id);
+            if (Number.isSafeInteger(id) && (this.lastNotificationId === null || id > this.lastNotificationId)) {
+                this.lastNotificationId = id;
+            }
+        });
+    }
+
     /**
      * 发送消息
      */
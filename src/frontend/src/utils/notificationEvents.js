@@ -54,5 +54,6 @@ export const NOTIFICATION_EVENTS = {
   NEW_NOTIFICATION: 'newNotification',
   UNREAD_COUNT_CHANGED: 'unreadCountChanged',
   NOTIFICATION_READ: 'notificationRead',
-  NOTIFICATION_DELETED: 'notificationDeleted'
+  NOTIFICATION_DELETED: 'notificationDeleted',
+  NOTIFICATIONS_RESYNC: 'notificationsResync' // 实时推送缺失过多，需要重新加载通知列表
 };
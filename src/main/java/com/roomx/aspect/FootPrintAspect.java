@@ -14,6 +14,7 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import com.roomx.model.dto.ApplicationDTO;
 import com.roomx.model.dto.RoomDTO;
 import com.roomx.model.dto.UserInfoDTO;
+import com.roomx.security.CurrentUserContext;
 import com.roomx.service.FootPrintAsyncService;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -370,6 +371,11 @@ public class FootPrintAspect {
      */
     private Long getCurrentOperatorId() {
         try {
+            // 优先使用token中的用户ID
+            Long userId = CurrentUserContext.getUserId();
+            if (userId != null) {
+                return userId;
+            }
             ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
             if (attributes != null) {
                 HttpServletRequest request = attributes.getRequest();
@@ -0,0 +1,74 @@
+package com.roomx.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import com.roomx.utils.TokenValidationLogger;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Token验证日志配置
+ * 将 roomx.token-log 配置应用到 TokenValidationLogger，并注册丢弃数和积压数指标
+ */
+@Configuration
+public class TokenValidationLogConfig {
+
+    @Value("${roomx.token-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${roomx.token-log.path:token_validation.log}")
+    private String path;
+
+    @Value("${roomx.token-log.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${roomx.token-log.batch-size:512}")
+    private int batchSize;
+
+    @Value("${roomx.token-log.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${roomx.token-log.max-file-size:10485760}")
+    private long maxFileSize;
+
+    @Value("${roomx.token-log.max-files:5}")
+    private int maxFiles;
+
+    @Value("${roomx.token-log.min-level:DEBUG}")
+    private TokenValidationLogger.Level minLevel;
+
+    @Value("${roomx.token-log.sample-rate:1.0}")
+    private double sampleRate;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public TokenValidationLogConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        TokenValidationLogger.configure(new TokenValidationLogger.Settings(enabled, path, bufferSize, batchSize,
+            flushIntervalMillis, maxFileSize, maxFiles, minLevel, sampleRate));
+
+        meterRegistry.ifAvailable(registry -> {
+            FunctionCounter.builder("roomx.token.log.dropped", TokenValidationLogger.class, c -> TokenValidationLogger.getDroppedCount())
+                .description("缓冲区满而被丢弃的Token验证日志数")
+                .register(registry);
+            Gauge.builder("roomx.token.log.pending", TokenValidationLogger.class, c -> TokenValidationLogger.getPendingCount())
+                .description("等待写入的Token验证日志数")
+                .register(registry);
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        TokenValidationLogger.shutdown();
+    }
+}
@@ -1,8 +1,19 @@
 package com.roomx.config;
 
+import java.util.List;
+
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.roomx.security.CurrentUserArgumentResolver;
  
 @Configuration
-public class WebConfig {
-    // 示例配置类，可添加拦截器、CORS等配置
-} 
\ No newline at end of file
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        // 控制器方法通过 @CurrentUser 获取当前用户
+        resolvers.add(new CurrentUserArgumentResolver());
+    }
+}
@@ -5,8 +5,6 @@ import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -20,10 +18,12 @@ import com.roomx.constant.enums.UserRole;
 import com.roomx.model.dto.ApplicationDTO;
 import com.roomx.model.dto.ApplicationQuery;
 import com.roomx.model.dto.ApprovalDTO;
+import com.roomx.model.dto.BatchApplicationDTO;
+import com.roomx.model.dto.BatchApplicationResultDTO;
 import com.roomx.model.dto.PageResult;
+import com.roomx.security.AuthenticatedUser;
+import com.roomx.security.CurrentUser;
 import com.roomx.service.ApplicationService;
-import com.roomx.service.RoomStatusSchedulerService;
-import com.roomx.service.UserService;
 import com.roomx.utils.DateUtil;
 
 @RestController
@@ -32,12 +32,6 @@ public class ApplicationController {
     @Autowired
     private ApplicationService applicationService;
     
-    @Autowired
-    private UserService userService;
-    
-    @Autowired
-    private RoomStatusSchedulerService roomStatusSchedulerService;
-
     @PostMapping("/post") // 申请预约
     @RequireAuth(roles = {UserRole.APPLIER, UserRole.ADMIN})
     public ResponseEntity<ApplicationDTO> apply(@RequestBody ApplicationDTO applicationDTO) {
@@ -52,6 +46,21 @@ public class ApplicationController {
         return ResponseEntity.ok(savedApplication);
     }
 
+    @PostMapping("/batch") // 批量/周期预约，逐个时间段返回结果
+    @RequireAuth(roles = {UserRole.APPLIER, UserRole.ADMIN})
+    public ResponseEntity<BatchApplicationResultDTO> applyBatch(@RequestBody BatchApplicationDTO batchApplicationDTO,
+                                                               @CurrentUser AuthenticatedUser currentUser) {
+        // 预约人以当前登录用户为准，只有管理员可以代其他用户预约
+        if (currentUser.role() != UserRole.ADMIN || batchApplicationDTO.getUserId() == null) {
+            if (currentUser.userId() == null) {
+                throw new IllegalArgumentException("登录信息已过期，请重新登录");
+            }
+            batchApplicationDTO.setUserId(currentUser.userId());
+        }
+        BatchApplicationResultDTO result = applicationService.applyBatch(batchApplicationDTO);
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping("/page") // 分页查询预约列表
     @RequireAuth(roles = {UserRole.ADMIN, UserRole.APPLIER, UserRole.APPROVER})
     public ResponseEntity<PageResult<ApplicationDTO>> page(@RequestParam(required = false) Long userId,
@@ -72,7 +81,8 @@ public class ApplicationController {
                                                           @RequestParam(required = false) String queryDate,
                                                           @RequestParam(required = false, defaultValue = "false") Boolean showExpired,
                                                           @RequestParam(defaultValue = "1") int pageNum,
-                                                          @RequestParam(defaultValue = "10") int pageSize) {
+                                                          @RequestParam(defaultValue = "10") int pageSize,
+                                                          @CurrentUser AuthenticatedUser currentUser) {
         // 构建查询对象
         ApplicationQuery query = new ApplicationQuery();
         query.setUserId(userId);
@@ -114,14 +124,10 @@ public class ApplicationController {
             }
         }
         
-        // 根据用户角色过滤数据
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String currentUsername = auth.getName();
-        UserRole userRole = userService.getUserRoleByUsername(currentUsername);
-        
+        // 根据用户角色过滤数据，角色取自token
         // 如果是APPLIER，只能查看自己的申请
-        if (userRole == UserRole.APPLIER) {
-            query.setUsername(currentUsername);
+        if (currentUser.role() == UserRole.APPLIER) {
+            query.setUsername(currentUser.username());
         }
         
         PageResult<ApplicationDTO> pageResult = applicationService.page(query, pageNum, pageSize, parsedQueryDate);
@@ -186,13 +192,9 @@ public class ApplicationController {
             
             if (approvalDTO.getApproved()) {
                 applicationService.approve(approvalDTO.getApplicationId(), approvalDTO.getReason());
-                // 立即触发状态更新
-                roomStatusSchedulerService.updateApplicationStatuses();
                 return ResponseEntity.ok("申请已批准");
             } else {
                 applicationService.reject(approvalDTO.getApplicationId(), approvalDTO.getReason());
-                // 立即触发状态更新
-                roomStatusSchedulerService.updateApplicationStatuses();
                 return ResponseEntity.ok("申请已驳回");
             }
         } catch (Exception e) {
@@ -213,8 +215,6 @@ public class ApplicationController {
             }
             
             applicationService.cancel(approvalDTO.getApplicationId(), approvalDTO.getReason());
-            // 立即触发状态更新
-            roomStatusSchedulerService.updateApplicationStatuses();
             return ResponseEntity.ok("申请已撤销");
         } catch (Exception e) {
             System.err.println("撤销操作失败: " + e.getMessage());
@@ -231,8 +231,6 @@ public class ApplicationController {
             }
             
             applicationService.checkin(applicationDTO.getId());
-            // 立即触发状态更新
-            roomStatusSchedulerService.updateApplicationStatuses();
             return ResponseEntity.ok("签到成功");
         } catch (Exception e) {
             System.err.println("签到操作失败: " + e.getMessage());
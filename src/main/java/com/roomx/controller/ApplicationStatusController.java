@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.roomx.constant.enums.ApplicationStatus;
 import com.roomx.model.entity.Application;
 import com.roomx.repository.ApplicationRepository;
+import com.roomx.service.RoomBookingIndexService;
 import com.roomx.service.RoomStatusSchedulerService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +31,9 @@ public class ApplicationStatusController {
     @Autowired
     private RoomStatusSchedulerService roomStatusSchedulerService;
     
+    @Autowired
+    private RoomBookingIndexService roomBookingIndexService;
+    
     /**
      * 手动触发申请状态更新
      */
@@ -59,7 +63,10 @@ public class ApplicationStatusController {
             
             application.setStatus(status);
             application.setUpdateTime(new Date());
-            applicationRepository.save(application);
+            // 使用保存后的对象，版本号已递增，预约区间索引按版本判断新旧
+            application = applicationRepository.save(application);
+            roomBookingIndexService.update(application);
+            roomStatusSchedulerService.scheduleApplication(application);
             
             log.info("手动设置申请 {} 状态为 {}", applicationId, status);
             return ResponseEntity.ok().body("申请状态设置成功");
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.roomx.exception.ServiceOverloadedException;
 import com.roomx.model.dto.UserLoginDTO;
 import com.roomx.model.dto.UserRegisterDTO;
 import com.roomx.model.dto.UserTokenDTO;
@@ -51,6 +52,9 @@ public class AuthController {
             TokenValidationLogger.logTokenGeneration(userLoginDTO.getUsername(), "LOGIN_SUCCESS", "Login successful");
             
             return ResponseEntity.ok(userTokenDTO);
+        } catch (ServiceOverloadedException e) {
+            // 密码哈希排队已满，交给全局异常处理返回 429
+            throw e;
         } catch (Exception e) {
             TokenValidationLogger.logException("Login", e.getMessage(), "Login failed for user: " + userLoginDTO.getUsername());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -68,6 +72,8 @@ public class AuthController {
             TokenValidationLogger.logTokenGeneration(userRegisterDTO.getUsername(), "REGISTER_SUCCESS", "Register successful");
             
             return ResponseEntity.ok(userTokenDTO);
+        } catch (ServiceOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             TokenValidationLogger.logException("Register", e.getMessage(), "Register failed for user: " + userRegisterDTO.getUsername());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -152,6 +158,8 @@ public class AuthController {
             "code", "UPDATE_FAILED",
             "message", "密码更新失败"));
         };
+        } catch (ServiceOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             TokenValidationLogger.logException("Update password", e.getMessage(), 
                 "Update password failed for user: " + userUpdatePasswordDTO.getUsername());
@@ -194,6 +202,8 @@ public class AuthController {
                 "verificationToken", verificationToken
             ));
             
+        } catch (ServiceOverloadedException e) {
+            throw e;
         } catch (Exception e) {
             TokenValidationLogger.logException("Dangerous operation verify", e.getMessage(), "Dangerous operation verification failed");
             return ResponseEntity.badRequest()
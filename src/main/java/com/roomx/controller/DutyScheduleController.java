@@ -39,7 +39,7 @@ public class DutyScheduleController {
     @RequireAuth(roles = {UserRole.ADMIN})
     public ResponseEntity<DutyScheduleDTO> createDutySchedule(@RequestBody DutyScheduleDTO dutyScheduleDTO) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = (String) auth.getPrincipal();
+        String username = auth.getName();
         
         DutyScheduleDTO created = dutyScheduleService.createDutySchedule(dutyScheduleDTO, username);
         return ResponseEntity.ok(created);
@@ -54,7 +54,7 @@ public class DutyScheduleController {
             @PathVariable Long id, 
             @RequestBody DutyScheduleDTO dutyScheduleDTO) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = (String) auth.getPrincipal();
+        String username = auth.getName();
         
         DutyScheduleDTO updated = dutyScheduleService.updateDutySchedule(id, dutyScheduleDTO, username);
         return ResponseEntity.ok(updated);
@@ -1,9 +1,12 @@
 package com.roomx.controller;
 
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,15 +15,18 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.roomx.annotation.RequireAuth;
 import com.roomx.constant.enums.UserRole;
+import com.roomx.model.dto.CursorPage;
 import com.roomx.model.dto.NotificationDTO;
 import com.roomx.model.dto.PageResult;
 import com.roomx.model.dto.UserInfoDTO;
+import com.roomx.security.CurrentUserContext;
 import com.roomx.service.NotificationService;
 import com.roomx.service.UserService;
 
@@ -49,6 +55,18 @@ public class NotificationController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 游标分页获取当前用户的通知列表，收件箱很深时也不会变慢
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<NotificationDTO>> getNotificationsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, 100));
+        return ResponseEntity.ok(notificationService.getUserNotificationsByCursor(getCurrentUserId(), cursor, pageSize));
+    }
+
     // 获取指定用户的通知列表
     @GetMapping("/user/{userId}")
     public ResponseEntity<PageResult<NotificationDTO>> getNotificationsByUser(@PathVariable Long userId,
@@ -85,11 +103,40 @@ public class NotificationController {
         return ResponseEntity.ok().build();
     }
 
+    // 批量标记当前用户的通知为已读
+    @PutMapping("/read")
+    public ResponseEntity<Map<String, Integer>> markAsReadByIds(@RequestBody List<Long> ids) {
+        int updated = notificationService.markAsReadByIds(ids, getCurrentUserId());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    // 标记当前用户某一类型的通知为已读
+    @PutMapping("/read-by-type")
+    public ResponseEntity<Map<String, Integer>> markAsReadByType(@RequestParam String type) {
+        int updated = notificationService.markAsReadByType(type, getCurrentUserId());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    // 标记当前用户指定时间之前的通知为已读
+    @PutMapping("/read-before")
+    public ResponseEntity<Map<String, Integer>> markAsReadBefore(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") Date before) {
+        int updated = notificationService.markAsReadBefore(before, getCurrentUserId());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    // 标记当前用户所有通知为已读
+    @PutMapping("/read-all")
+    public ResponseEntity<Map<String, Integer>> markAllAsRead() {
+        int updated = notificationService.markAllAsRead(getCurrentUserId());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
     // 标记指定用户所有通知为已读
     @PostMapping("/user/{userId}/read-all")
-    public ResponseEntity<Void> markAllAsReadByUser(@PathVariable Long userId) {
-        notificationService.markAllAsRead(userId);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Map<String, Integer>> markAllAsReadByUser(@PathVariable Long userId) {
+        int updated = notificationService.markAllAsRead(userId);
+        return ResponseEntity.ok(Map.of("updated", updated));
     }
 
     // 删除通知
@@ -112,9 +159,9 @@ public class NotificationController {
 
     // 删除指定用户所有通知
     @DeleteMapping("/user/{userId}")
-    public ResponseEntity<Void> deleteAllByUser(@PathVariable Long userId) {
-        notificationService.deleteAllByUserId(userId);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Map<String, Integer>> deleteAllByUser(@PathVariable Long userId) {
+        int deleted = notificationService.deleteAllByUserId(userId);
+        return ResponseEntity.ok(Map.of("deleted", deleted));
     }
 
     // 获取指定用户通知统计
@@ -165,17 +212,12 @@ public class NotificationController {
                 throw new IllegalStateException("用户未认证");
             }
             
-            Object principal = auth.getPrincipal();
-            String username;
-            
-            // 安全地获取用户名
-            if (principal instanceof String) {
-                username = (String) principal;
-            } else {
-                // 如果是其他类型，尝试调用toString()或其他方法
-                username = principal.toString();
-                log.warn("认证主体不是String类型: {}, 使用toString(): {}", principal.getClass().getName(), username);
+            // token 携带用户ID时直接使用，升级前签发的 token 按用户名查询
+            Long userId = CurrentUserContext.getUserId();
+            if (userId != null) {
+                return userId;
             }
+            String username = auth.getName();
             
             UserInfoDTO userInfo = userService.getUserInfoByUsername(username);
             if (userInfo == null) {
@@ -9,8 +9,10 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.roomx.model.dto.CursorPage;
 import com.roomx.service.SessionMonitorService;
 import com.roomx.service.SessionMonitorService.SessionInfo;
 
@@ -18,6 +20,9 @@ import com.roomx.service.SessionMonitorService.SessionInfo;
 @RequestMapping("/api/admin/sessions")
 public class SessionController {
     
+    // 分页查询每页最大条数
+    private static final int MAX_PAGE_SIZE = 500;
+    
     private final SessionMonitorService sessionMonitorService;
     
     public SessionController(SessionMonitorService sessionMonitorService) {
@@ -36,6 +41,21 @@ public class SessionController {
         return ResponseEntity.ok(sessionList);
     }
     
+    /**
+     * 按用户名顺序分页查询活跃会话
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param limit 每页条数，默认50，最大500
+     * @param username 用户名前缀过滤
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<SessionInfo>> listActiveSessions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String username) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(sessionMonitorService.listActiveSessions(cursor, pageSize, username));
+    }
+    
     /**
      * 获取指定用户的会话信息
      */
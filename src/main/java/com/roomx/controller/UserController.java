@@ -48,7 +48,7 @@ public class UserController {
     @GetMapping("/me") // 获取当前登录用户信息
     public ResponseEntity<UserInfoDTO> getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = (String) auth.getPrincipal();
+        String username = auth.getName();
         UserInfoDTO user = userService.getUserInfoByUsername(username);
         return ResponseEntity.ok(user);
     }
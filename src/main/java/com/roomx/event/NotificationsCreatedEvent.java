@@ -0,0 +1,13 @@
+package com.roomx.event;
+
+import java.util.List;
+
+import com.roomx.model.dto.NotificationDTO;
+
+/**
+ * 通知已写入事件
+ * 在写入通知的事务中发布，事务提交后才推送给在线用户，回滚时不会推送
+ * @param notifications 已写入的通知（含ID）
+ */
+public record NotificationsCreatedEvent(List<NotificationDTO> notifications) {
+}
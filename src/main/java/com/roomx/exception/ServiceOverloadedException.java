@@ -0,0 +1,20 @@
+package com.roomx.exception;
+
+/**
+ * 服务过载异常
+ * 处理能力已满、请求被拒绝时抛出，返回 429 并提示客户端稍后重试
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    
+    // 建议客户端重试间隔（秒）
+    private final int retryAfterSeconds;
+    
+    public ServiceOverloadedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
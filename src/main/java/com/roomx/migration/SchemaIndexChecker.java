@@ -0,0 +1,89 @@
+package com.roomx.migration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 启动时检查索引
+ * 将实体上 @Table(indexes=...) 声明的索引与数据库实际索引对比，
+ * 缺失或列顺序不一致时输出告警，提示执行 scripts/db-migration.sh -t versions
+ */
+@Slf4j
+@Component
+public class SchemaIndexChecker {
+
+    private static final String INDEX_COLUMNS_SQL =
+        "SELECT index_name AS idx, column_name AS col FROM information_schema.statistics "
+        + "WHERE table_schema = DATABASE() AND table_name = ? ORDER BY index_name, seq_in_index";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkIndexes() {
+        try {
+            List<String> problems = new ArrayList<>();
+            int checked = 0;
+            for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+                Table table = entity.getJavaType().getAnnotation(Table.class);
+                if (table == null || table.indexes().length == 0) {
+                    continue;
+                }
+
+                Map<String, List<String>> actual = loadIndexes(table.name());
+                for (Index index : table.indexes()) {
+                    checked++;
+                    List<String> expected = Arrays.stream(index.columnList().split(","))
+                        .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                        .toList();
+                    List<String> columns = actual.get(index.name().toLowerCase(Locale.ROOT));
+                    if (columns == null) {
+                        problems.add(table.name() + "." + index.name() + " 缺失，应为 " + expected);
+                    } else if (!columns.equals(expected)) {
+                        problems.add(table.name() + "." + index.name() + " 列不一致，应为 " + expected + "，实际为 " + columns);
+                    }
+                }
+            }
+
+            if (problems.isEmpty()) {
+                log.info("索引检查通过，共 {} 个声明的索引", checked);
+            } else {
+                log.warn("索引检查发现 {} 个问题，请执行 scripts/db-migration.sh -t versions：\n  {}",
+                    problems.size(), String.join("\n  ", problems));
+            }
+        } catch (Exception e) {
+            log.warn("索引检查失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 查询表的索引及其按顺序排列的列（名称统一小写）
+     */
+    private Map<String, List<String>> loadIndexes(String tableName) {
+        Map<String, List<String>> indexes = new HashMap<>();
+        jdbcTemplate.query(INDEX_COLUMNS_SQL, rs -> {
+            indexes.computeIfAbsent(rs.getString("idx").toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                .add(rs.getString("col").toLowerCase(Locale.ROOT));
+        }, tableName);
+        return indexes;
+    }
+}
@@ -0,0 +1,46 @@
+package com.roomx.model.dto;
+
+import java.util.Date;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 批量/周期预约请求
+ * slots 与 recurrence 二选一：slots 直接给出各时间段，recurrence 按重复规则展开
+ */
+@Data
+public class BatchApplicationDTO {
+    private Long userId;
+    private Long roomId;
+    private Long crowd;
+    private String contact;
+    private String reason;
+
+    // 显式给出的时间段列表
+    private List<TimeSlot> slots;
+
+    // 重复规则
+    private Recurrence recurrence;
+
+    @Data
+    public static class TimeSlot {
+        private Date startTime;
+        private Date endTime;
+    }
+
+    @Data
+    public static class Recurrence {
+        private Date startTime; // 第一次的开始时间
+        private Date endTime; // 第一次的结束时间
+        private Frequency frequency = Frequency.WEEKLY;
+        private Integer interval = 1; // 每隔几个周期重复一次
+        private Integer count; // 重复次数，与 until 至少提供一个
+        private Date until; // 最后一次开始时间不晚于该时间
+    }
+
+    public enum Frequency {
+        DAILY,
+        WEEKLY
+    }
+}
@@ -0,0 +1,27 @@
+package com.roomx.model.dto;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 批量/周期预约结果，按展开后的时间段顺序逐个给出结果
+ */
+@Data
+public class BatchApplicationResultDTO {
+    private int total;
+    private int successCount;
+    private int failureCount;
+    private List<SlotResult> results = new ArrayList<>();
+
+    @Data
+    public static class SlotResult {
+        private Date startTime;
+        private Date endTime;
+        private boolean success;
+        private Long applicationId; // 成功时为新申请ID
+        private String message; // 失败原因
+    }
+}
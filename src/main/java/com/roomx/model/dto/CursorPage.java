@@ -0,0 +1,20 @@
+package com.roomx.model.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 游标分页结果
+ * 下一页请求携带 nextCursor，nextCursor 为空表示没有更多数据
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> records;   // 当前页数据
+    private String nextCursor; // 下一页游标
+    private boolean hasMore;   // 是否还有下一页
+}
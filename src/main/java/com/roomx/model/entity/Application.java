@@ -12,14 +12,22 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "application")
+@Table(name = "application", indexes = {
+    // 教室冲突检查、教室状态刷新
+    @Index(name = "idx_application_room_status_time", columnList = "room_id, status, start_time, end_time"),
+    // 定时状态转换：按状态和开始/结束时间批量更新
+    @Index(name = "idx_application_status_start_time", columnList = "status, start_time"),
+    @Index(name = "idx_application_status_end_time", columnList = "status, end_time")
+})
 public class Application {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -70,6 +78,11 @@ public class Application {
     private Date startTime;
     private Date endTime;
     private Date checkinTime; // 签到时间
+    
+    // 乐观锁版本号，批量 UPDATE 也需要同步递增
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version = 0L;
 
     // JPA关联，用于数据完整性检查，但不用于查询
     @ManyToOne(fetch = FetchType.LAZY)
@@ -7,6 +7,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
@@ -15,7 +16,10 @@ import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "footprint")
+@Table(name = "footprint", indexes = {
+    @Index(name = "idx_footprint_operator_time", columnList = "operator_id, timestamp"),
+    @Index(name = "idx_footprint_room_time", columnList = "room_id, timestamp")
+})
 public class FootPrint {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
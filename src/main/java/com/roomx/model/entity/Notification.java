@@ -6,10 +6,20 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
 @Data
+@Table(name = "notification", indexes = {
+    // 用户通知列表、未读数
+    @Index(name = "idx_notification_user_read_time", columnList = "user_id, is_read, create_time"),
+    // 收件箱按 (create_time, id) 游标分页
+    @Index(name = "idx_notification_user_time_id", columnList = "user_id, create_time, id"),
+    // 归档任务按创建时间扫描已读通知
+    @Index(name = "idx_notification_read_time", columnList = "is_read, create_time")
+})
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
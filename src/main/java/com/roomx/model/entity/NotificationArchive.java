@@ -0,0 +1,41 @@
+package com.roomx.model.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * 已归档的通知
+ * 超过保留期的已读通知由归档任务从 notification 表移到这里，保留原ID
+ */
+@Entity
+@Data
+@Table(name = "notification_archive", indexes = {
+    // 按用户查询历史通知
+    @Index(name = "idx_notification_archive_user_time", columnList = "user_id, create_time")
+})
+public class NotificationArchive {
+    @Id
+    private Long id;
+    
+    private String title;
+    private String content;
+    private String type;
+    private String priority;
+    private Boolean isRead;
+    private Long userId;
+    private Date createTime;
+    private Date readTime;
+    
+    private String actionType;
+    private String actionTarget;
+    
+    private Long relatedId;
+    private String relatedType;
+    
+    private Date archiveTime; // 归档时间
+}
@@ -5,6 +5,7 @@ import java.util.Date;
 import com.roomx.constant.enums.RoomStatus;
 import com.roomx.constant.enums.RoomType;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -26,11 +27,16 @@ public class Room {
     private Date createTime;
     private Date updateTime;
     private Date lastMaintenanceTime;
+    
+    // 预约占用版本号，只由 RoomRepository.claimVersion 递增；不是 JPA 乐观锁版本，
+    // 保存教室实体（状态调度、管理员编辑）时不写该列，也不会因预约并发而失败
+    @Column(nullable = false, updatable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version = 0L;
 
 
     public void setStatus(RoomStatus status) {
-        if((this.status.onMaintenance())
-        && (!status.onMaintenance())) {// 如果状态从维修中或待维修切换到其他，记录最后维修时间
+        if(RoomStatus.onMaintenance(this.status)
+        && !RoomStatus.onMaintenance(status)) {// 如果状态从维修中或待维修切换到其他，记录最后维修时间
             this.lastMaintenanceTime = new Date();
         }
         this.status = status;
@@ -0,0 +1,22 @@
+package com.roomx.model.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * 调度租约
+ * leaseKey 为 partition:{分区号} 时表示分区租约，为 node:{节点标识} 时表示节点心跳
+ */
+@Data
+@Entity
+@Table(name = "scheduler_lease")
+public class SchedulerLease {
+    @Id
+    private String leaseKey;
+    private String owner;
+    private Date expiresAt;
+}
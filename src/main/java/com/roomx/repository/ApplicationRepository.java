@@ -1,10 +1,15 @@
 package com.roomx.repository;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.roomx.constant.enums.ApplicationStatus;
 import com.roomx.model.entity.Application;
@@ -55,6 +60,18 @@ public interface ApplicationRepository extends JpaRepository<Application, Long>,
     // 查询教室在指定时间范围内结束的已批准申请
     List<Application> findByRoomIdAndStatusAndEndTimeBetween(Long roomId, ApplicationStatus status, Date startTime, Date endTime);
     
+    // 查询多个教室在指定时间段内的申请（批量计算教室状态）
+    List<Application> findByStatusInAndStartTimeBeforeAndEndTimeAfter(Collection<ApplicationStatus> statuses, Date startTime, Date endTime);
+    
+    // 查询指定教室在指定时间段内的申请（批量计算教室状态）
+    List<Application> findByRoomIdInAndStatusInAndStartTimeBeforeAndEndTimeAfter(Collection<Long> roomIds, Collection<ApplicationStatus> statuses, Date startTime, Date endTime);
+    
+    // 查询指定教室在指定时间范围内结束的申请（批量计算教室状态）
+    List<Application> findByRoomIdInAndStatusAndEndTimeBetween(Collection<Long> roomIds, ApplicationStatus status, Date startTime, Date endTime);
+    
+    // 查询指定时间范围内结束的申请（批量计算教室状态）
+    List<Application> findByStatusAndEndTimeBetween(ApplicationStatus status, Date startTime, Date endTime);
+    
     // 查询指定状态和时间范围内的申请
     List<Application> findByStatusAndStartTimeBetween(ApplicationStatus status, Date startTime, Date endTime);
     
@@ -63,4 +80,92 @@ public interface ApplicationRepository extends JpaRepository<Application, Long>,
     
     // 查询待处理和进行中的申请（用于状态监控优化）
     List<Application> findByStatusIn(List<ApplicationStatus> statuses);
+    
+    // 查询指定状态且尚未结束的申请（重建预约区间索引）
+    List<Application> findByStatusInAndEndTimeAfter(Collection<ApplicationStatus> statuses, Date endTime);
+    
+    // 查询指定教室指定状态且尚未结束的申请（刷新单个教室的预约区间索引）
+    List<Application> findByRoomIdAndStatusInAndEndTimeAfter(Long roomId, Collection<ApplicationStatus> statuses, Date endTime);
+    
+    // ========== 按调度分区查询（定时任务使用，只读取本节点持有的教室分区） ==========
+    
+    // 查询指定分区内指定状态的申请
+    @Query("SELECT a FROM Application a WHERE a.status IN :statuses AND MOD(a.roomId, :partitionCount) IN :partitions")
+    List<Application> findByStatusInAndPartitions(@Param("statuses") Collection<ApplicationStatus> statuses,
+                                                  @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // 查询指定分区内在指定时间段内的申请（批量计算教室状态）
+    @Query("SELECT a FROM Application a WHERE a.status IN :statuses AND a.startTime < :startBefore AND a.endTime > :endAfter AND MOD(a.roomId, :partitionCount) IN :partitions")
+    List<Application> findByStatusInAndStartTimeBeforeAndEndTimeAfterAndPartitions(@Param("statuses") Collection<ApplicationStatus> statuses,
+                                                                                   @Param("startBefore") Date startBefore, @Param("endAfter") Date endAfter,
+                                                                                   @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // 查询指定分区内在指定时间范围内结束的申请（批量计算教室状态）
+    @Query("SELECT a FROM Application a WHERE a.status = :status AND a.endTime BETWEEN :endFrom AND :endTo AND MOD(a.roomId, :partitionCount) IN :partitions")
+    List<Application> findByStatusAndEndTimeBetweenAndPartitions(@Param("status") ApplicationStatus status,
+                                                                 @Param("endFrom") Date endFrom, @Param("endTo") Date endTo,
+                                                                 @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // ========== 按时间规则批量转换申请状态（定时任务使用，只处理本节点持有的教室分区） ==========
+    
+    // 查询指定状态且开始时间早于给定时间的申请所在教室
+    @Query("SELECT DISTINCT a.roomId FROM Application a WHERE a.status = :status AND a.startTime < :startBefore AND MOD(a.roomId, :partitionCount) IN :partitions")
+    List<Long> findRoomIdsByStatusAndStartTimeBefore(@Param("status") ApplicationStatus status, @Param("startBefore") Date startBefore,
+                                                     @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // 将指定状态且开始时间早于给定时间的申请转换为新状态
+    @Transactional
+    @Modifying
+    @Query("UPDATE Application a SET a.version = a.version + 1, a.status = :newStatus, a.updateTime = :now WHERE a.status = :status AND a.startTime < :startBefore AND MOD(a.roomId, :partitionCount) IN :partitions")
+    int transitionByStartTimeBefore(@Param("status") ApplicationStatus status, @Param("startBefore") Date startBefore,
+                                    @Param("newStatus") ApplicationStatus newStatus, @Param("now") Date now,
+                                    @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // 查询指定状态且结束时间早于给定时间的申请所在教室
+    @Query("SELECT DISTINCT a.roomId FROM Application a WHERE a.status = :status AND a.endTime < :endBefore AND MOD(a.roomId, :partitionCount) IN :partitions")
+    List<Long> findRoomIdsByStatusAndEndTimeBefore(@Param("status") ApplicationStatus status, @Param("endBefore") Date endBefore,
+                                                   @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // 将指定状态且结束时间早于给定时间的申请转换为新状态
+    @Transactional
+    @Modifying
+    @Query("UPDATE Application a SET a.version = a.version + 1, a.status = :newStatus, a.updateTime = :now WHERE a.status = :status AND a.endTime < :endBefore AND MOD(a.roomId, :partitionCount) IN :partitions")
+    int transitionByEndTimeBefore(@Param("status") ApplicationStatus status, @Param("endBefore") Date endBefore,
+                                  @Param("newStatus") ApplicationStatus newStatus, @Param("now") Date now,
+                                  @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // 查询指定状态且开始时间或结束时间早于给定时间的申请所在教室
+    @Query("SELECT DISTINCT a.roomId FROM Application a WHERE a.status = :status AND (a.startTime < :startBefore OR a.endTime < :endBefore) AND MOD(a.roomId, :partitionCount) IN :partitions")
+    List<Long> findRoomIdsByStatusAndStartTimeBeforeOrEndTimeBefore(@Param("status") ApplicationStatus status,
+                                                                   @Param("startBefore") Date startBefore, @Param("endBefore") Date endBefore,
+                                                                   @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // 将指定状态且开始时间或结束时间早于给定时间的申请转换为新状态并标记过期
+    @Transactional
+    @Modifying
+    @Query("UPDATE Application a SET a.version = a.version + 1, a.status = :newStatus, a.expired = true, a.updateTime = :now WHERE a.status = :status AND (a.startTime < :startBefore OR a.endTime < :endBefore) AND MOD(a.roomId, :partitionCount) IN :partitions")
+    int expireByStartTimeBeforeOrEndTimeBefore(@Param("status") ApplicationStatus status, @Param("startBefore") Date startBefore,
+                                               @Param("endBefore") Date endBefore, @Param("newStatus") ApplicationStatus newStatus, @Param("now") Date now,
+                                               @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // 将指定ID中仍处于原状态的申请转换为新状态
+    @Transactional
+    @Modifying
+    @Query("UPDATE Application a SET a.version = a.version + 1, a.status = :newStatus, a.updateTime = :now WHERE a.id IN :ids AND a.status = :status")
+    int transitionByIds(@Param("ids") Collection<Long> ids, @Param("status") ApplicationStatus status,
+                        @Param("newStatus") ApplicationStatus newStatus, @Param("now") Date now);
+    
+    // 将指定ID中仍处于原状态的申请转换为新状态并标记过期
+    @Transactional
+    @Modifying
+    @Query("UPDATE Application a SET a.version = a.version + 1, a.status = :newStatus, a.expired = true, a.updateTime = :now WHERE a.id IN :ids AND a.status = :status")
+    int expireByIds(@Param("ids") Collection<Long> ids, @Param("status") ApplicationStatus status,
+                    @Param("newStatus") ApplicationStatus newStatus, @Param("now") Date now);
+    
+    // 标记结束时间早于给定时间且未过期的申请为过期
+    @Transactional
+    @Modifying
+    @Query("UPDATE Application a SET a.version = a.version + 1, a.expired = true WHERE a.expired = false AND a.endTime < :endBefore AND MOD(a.roomId, :partitionCount) IN :partitions")
+    int markExpiredByEndTimeBefore(@Param("endBefore") Date endBefore,
+                                   @Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
 }
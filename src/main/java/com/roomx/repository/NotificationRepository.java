@@ -1,5 +1,7 @@
 package com.roomx.repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
@@ -17,6 +19,20 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     // 根据用户ID查找通知（分页）
     Page<Notification> findByUserIdOrderByCreateTimeDesc(Long userId, Pageable pageable);
     
+    // 游标分页：第一页
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId ORDER BY n.createTime DESC, n.id DESC")
+    List<Notification> findFirstPage(@Param("userId") Long userId, Pageable pageable);
+    
+    // 游标分页：(createTime, id) 之后的一页，不执行 COUNT 查询
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId "
+            + "AND (n.createTime < :createTime OR (n.createTime = :createTime AND n.id < :id)) "
+            + "ORDER BY n.createTime DESC, n.id DESC")
+    List<Notification> findPageAfter(@Param("userId") Long userId, @Param("createTime") Date createTime,
+            @Param("id") Long id, Pageable pageable);
+    
+    // 重连补发：指定ID之后的通知，按ID升序
+    List<Notification> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Pageable pageable);
+    
     // 根据用户ID查找未读通知
     List<Notification> findByUserIdAndIsReadFalseOrderByCreateTimeDesc(Long userId);
     
@@ -24,6 +40,10 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.userId = :userId AND n.isRead = false")
     Long countUnreadByUserId(@Param("userId") Long userId);
     
+    // 批量统计用户未读通知数量（没有未读通知的用户不返回），返回 [userId, count]
+    @Query("SELECT n.userId, COUNT(n) FROM Notification n WHERE n.userId IN :userIds AND n.isRead = false GROUP BY n.userId")
+    List<Object[]> countUnreadGroupByUserId(@Param("userIds") Collection<Long> userIds);
+    
     // 根据用户ID和类型查找通知
     List<Notification> findByUserIdAndTypeOrderByCreateTimeDesc(Long userId, String type);
     
@@ -31,4 +51,41 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Modifying
     @Query("DELETE FROM Notification n WHERE n.id = :id AND n.userId = :userId")
     int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
+    // 仅删除未读通知，返回值用于判断是否需要减少未读数
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id = :id AND n.userId = :userId AND n.isRead = false")
+    int deleteUnreadByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
+    // 删除用户所有通知，单条语句完成
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+    
+    // 以下批量标记已读只更新未读通知，返回值即未读数的减少量
+    
+    // 标记单条通知为已读
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readTime = :readTime WHERE n.id = :id AND n.userId = :userId AND n.isRead = false")
+    int markReadById(@Param("id") Long id, @Param("userId") Long userId, @Param("readTime") Date readTime);
+    
+    // 标记用户所有通知为已读
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readTime = :readTime WHERE n.userId = :userId AND n.isRead = false")
+    int markAllReadByUserId(@Param("userId") Long userId, @Param("readTime") Date readTime);
+    
+    // 按ID列表标记已读（只处理属于该用户的通知）
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readTime = :readTime WHERE n.id IN :ids AND n.userId = :userId AND n.isRead = false")
+    int markReadByIds(@Param("ids") Collection<Long> ids, @Param("userId") Long userId, @Param("readTime") Date readTime);
+    
+    // 按类型标记已读
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readTime = :readTime WHERE n.userId = :userId AND n.type = :type AND n.isRead = false")
+    int markReadByType(@Param("type") String type, @Param("userId") Long userId, @Param("readTime") Date readTime);
+    
+    // 标记指定时间之前创建的通知为已读
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true, n.readTime = :readTime WHERE n.userId = :userId AND n.isRead = false AND n.createTime < :before")
+    int markReadBefore(@Param("before") Date before, @Param("userId") Long userId, @Param("readTime") Date readTime);
 } 
\ No newline at end of file
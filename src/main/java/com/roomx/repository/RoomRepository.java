@@ -1,14 +1,44 @@
 package com.roomx.repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.roomx.constant.enums.RoomStatus;
 import com.roomx.model.entity.Room;
 
 public interface RoomRepository extends JpaRepository<Room, Long>, JpaSpecificationExecutor<Room> {
     // 教室数据访问
     List<Room> findByName(String name);
+    
+    // 查询指定调度分区内的教室（定时任务使用，只读取本节点持有的分区）
+    @Query("SELECT r FROM Room r WHERE MOD(r.id, :partitionCount) IN :partitions")
+    List<Room> findByPartitions(@Param("partitionCount") int partitionCount, @Param("partitions") Collection<Integer> partitions);
+    
+    // 查询教室当前版本号
+    @Query("SELECT r.version FROM Room r WHERE r.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+    
+    // 版本号未变化时递增版本号，同一教室的并发写操作只有一个能成功
+    @Transactional
+    @Modifying
+    @Query("UPDATE Room r SET r.version = r.version + 1 WHERE r.id = :id AND r.version = :version")
+    int claimVersion(@Param("id") Long id, @Param("version") Long version);
+    
+    // 状态仍为读取时的状态时写入新状态，只修改状态相关的列
+    @Transactional
+    @Modifying
+    @Query("UPDATE Room r SET r.status = :newStatus, r.updateTime = :now, r.lastMaintenanceTime = :lastMaintenanceTime "
+            + "WHERE r.id = :id AND r.status = :status")
+    int updateStatus(@Param("id") Long id, @Param("status") RoomStatus status, @Param("newStatus") RoomStatus newStatus,
+                     @Param("lastMaintenanceTime") Date lastMaintenanceTime, @Param("now") Date now);
 
 }
@@ -0,0 +1,58 @@
+package com.roomx.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.roomx.model.entity.SchedulerLease;
+
+/**
+ * 调度租约数据访问
+ * 过期判断和新的过期时间都使用数据库时间（current_timestamp），节点之间的时钟偏差不影响租约归属
+ */
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // 统计指定前缀下未过期的租约数量（用于统计存活节点）
+    @Query("SELECT COUNT(l) FROM SchedulerLease l WHERE l.leaseKey LIKE CONCAT(:prefix, '%') AND l.expiresAt > current_timestamp")
+    long countLive(@Param("prefix") String prefix);
+
+    // 查询节点持有且未过期的租约
+    @Query("SELECT l FROM SchedulerLease l WHERE l.leaseKey IN :leaseKeys AND l.owner = :owner AND l.expiresAt > current_timestamp")
+    List<SchedulerLease> findLiveByOwner(@Param("leaseKeys") Collection<String> leaseKeys, @Param("owner") String owner);
+
+    // 租约记录不存在时插入空记录，已存在时忽略（并发插入安全）
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO scheduler_lease (lease_key) VALUES (:leaseKey)", nativeQuery = true)
+    int insertIfAbsent(@Param("leaseKey") String leaseKey);
+
+    // 获取无人持有或已过期的租约，或由同一节点重新获取
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.expiresAt = current_timestamp + (:ttlMillis / 1000.0) second "
+            + "WHERE l.leaseKey = :leaseKey AND (l.owner IS NULL OR l.owner = :owner OR l.expiresAt < current_timestamp)")
+    int tryAcquire(@Param("leaseKey") String leaseKey, @Param("owner") String owner, @Param("ttlMillis") long ttlMillis);
+
+    // 续约节点仍持有的租约
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = current_timestamp + (:ttlMillis / 1000.0) second WHERE l.leaseKey IN :leaseKeys AND l.owner = :owner")
+    int renew(@Param("leaseKeys") Collection<String> leaseKeys, @Param("owner") String owner, @Param("ttlMillis") long ttlMillis);
+
+    // 释放节点持有的租约
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = NULL, l.expiresAt = NULL WHERE l.leaseKey = :leaseKey AND l.owner = :owner")
+    int release(@Param("leaseKey") String leaseKey, @Param("owner") String owner);
+
+    // 删除指定前缀下过期已超过 graceMillis 的租约（清理下线节点的心跳）
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SchedulerLease l WHERE l.leaseKey LIKE CONCAT(:prefix, '%') AND l.expiresAt < current_timestamp - (:graceMillis / 1000.0) second")
+    int deleteExpired(@Param("prefix") String prefix, @Param("graceMillis") long graceMillis);
+}
@@ -0,0 +1,32 @@
+package com.roomx.security;
+
+import java.security.Principal;
+
+import com.roomx.constant.enums.UserRole;
+
+/**
+ * 已认证用户
+ * 由认证过滤器在验证 token 和会话后放入 SecurityContext 和请求属性，
+ * 后续的权限检查和业务代码直接使用，不再重复解析 token
+ * @param username 用户名
+ * @param userId 用户ID，token 中未携带时为 null
+ * @param role 用户角色
+ * @param sessionId 会话ID
+ */
+public record AuthenticatedUser(String username, Long userId, UserRole role, String sessionId) implements Principal {
+
+    /**
+     * 请求属性名
+     */
+    public static final String REQUEST_ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,15 @@
+package com.roomx.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在控制器方法的 AuthenticatedUser 参数上，注入当前已认证用户
+ * 用户信息来自 token，不查询数据库；未认证时注入 null
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
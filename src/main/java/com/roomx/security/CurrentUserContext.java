@@ -0,0 +1,35 @@
+package com.roomx.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * 在服务层和切面中获取当前已认证用户
+ * 用户信息来自认证过滤器放入 SecurityContext 的 token 声明，不查询数据库
+ */
+public final class CurrentUserContext {
+
+    private CurrentUserContext() {
+    }
+
+    /**
+     * 获取当前已认证用户
+     * @return 已认证用户，未认证时返回 null
+     */
+    public static AuthenticatedUser get() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        return null;
+    }
+
+    /**
+     * 获取当前用户ID
+     * @return 用户ID，未认证或 token 中未携带用户ID（升级前签发的 token）时返回 null
+     */
+    public static Long getUserId() {
+        AuthenticatedUser user = get();
+        return user != null ? user.userId() : null;
+    }
+}
@@ -4,10 +4,14 @@ import java.util.List;
 
 import com.roomx.model.dto.ApplicationDTO;
 import com.roomx.model.dto.ApplicationQuery;
+import com.roomx.model.dto.BatchApplicationDTO;
+import com.roomx.model.dto.BatchApplicationResultDTO;
 import com.roomx.model.dto.PageResult;
 
 public interface ApplicationService {
     ApplicationDTO apply(ApplicationDTO applicationDTO);
+    // 批量/周期预约，逐个时间段返回结果
+    BatchApplicationResultDTO applyBatch(BatchApplicationDTO batchApplicationDTO);
     ApplicationDTO modify(Long applicationId, ApplicationDTO applicationDTO);
     ApplicationDTO get(Long applicationId);
     void approve(Long applicationId, String reason);
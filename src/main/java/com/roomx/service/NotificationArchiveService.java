@@ -0,0 +1,14 @@
+package com.roomx.service;
+
+/**
+ * 通知归档服务
+ * 将超过保留期的已读通知分批移到归档表，保持通知表只包含近期数据
+ */
+public interface NotificationArchiveService {
+
+    /**
+     * 归档超过保留期的已读通知
+     * @return 本次归档的数量
+     */
+    int archiveReadNotifications();
+}
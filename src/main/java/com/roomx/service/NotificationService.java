@@ -1,5 +1,9 @@
 package com.roomx.service;
 
+import java.util.Collection;
+import java.util.Date;
+
+import com.roomx.model.dto.CursorPage;
 import com.roomx.model.dto.NotificationDTO;
 import com.roomx.model.dto.PageResult;
 
@@ -7,20 +11,32 @@ public interface NotificationService {
     // 获取用户通知列表
     PageResult<NotificationDTO> getUserNotifications(Long userId, int pageNum, int pageSize);
     
+    // 按 (创建时间, ID) 游标分页获取用户通知，cursor 为空时返回第一页
+    CursorPage<NotificationDTO> getUserNotificationsByCursor(Long userId, String cursor, int limit);
+    
     // 获取用户未读通知数量
     Long getUnreadCount(Long userId);
     
     // 标记通知为已读
     void markAsRead(Long notificationId, Long userId);
     
-    // 标记用户所有通知为已读
-    void markAllAsRead(Long userId);
+    // 标记用户所有通知为已读，返回标记的数量
+    int markAllAsRead(Long userId);
+    
+    // 按ID列表标记已读，返回标记的数量
+    int markAsReadByIds(Collection<Long> notificationIds, Long userId);
+    
+    // 按类型标记已读，返回标记的数量
+    int markAsReadByType(String type, Long userId);
+    
+    // 标记指定时间之前的通知为已读，返回标记的数量
+    int markAsReadBefore(Date before, Long userId);
     
     // 删除通知
     void deleteNotification(Long notificationId, Long userId);
     
-    // 删除指定用户所有通知
-    void deleteAllByUserId(Long userId);
+    // 删除指定用户所有通知，返回删除的数量
+    int deleteAllByUserId(Long userId);
     
     // 创建通知
     void createNotification(NotificationDTO notificationDTO);
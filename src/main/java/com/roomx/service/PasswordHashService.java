@@ -0,0 +1,31 @@
+package com.roomx.service;
+
+/**
+ * 密码哈希服务
+ * BCrypt 计算在独立的有界线程池中执行，不占用 Web 工作线程；
+ * 排队已满时立即抛出 ServiceOverloadedException（429），避免登录高峰拖垮其他接口
+ */
+public interface PasswordHashService {
+
+    /**
+     * 加密密码
+     * @param rawPassword 明文密码
+     * @return BCrypt 哈希
+     */
+    String encode(String rawPassword);
+
+    /**
+     * 校验密码
+     * @param rawPassword 明文密码
+     * @param encodedPassword BCrypt 哈希
+     * @return 是否匹配
+     */
+    boolean matches(String rawPassword, String encodedPassword);
+
+    /**
+     * 哈希的计算强度与当前配置不一致时需要重新加密
+     * @param encodedPassword BCrypt 哈希
+     * @return 是否需要重新加密
+     */
+    boolean needsRehash(String encodedPassword);
+}
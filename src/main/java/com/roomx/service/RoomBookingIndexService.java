@@ -0,0 +1,266 @@
+package com.roomx.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.roomx.constant.enums.ApplicationStatus;
+import com.roomx.model.entity.Application;
+import com.roomx.repository.ApplicationRepository;
+import com.roomx.utils.IntervalIndex;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 教室预约区间索引
+ * 在内存中按教室维护待审批、已批准、待签到和使用中申请的时间区间，
+ * 冲突检查和"与该时段重叠的申请"查询不访问数据库。
+ * 启动时从数据库全量构建，之后随申请的每次状态变更增量维护，并每30分钟全量重建一次兜底。
+ */
+@Slf4j
+@Service
+public class RoomBookingIndexService {
+
+    // 进入索引的申请状态
+    private static final Set<ApplicationStatus> INDEXED_STATUSES = EnumSet.of(
+        ApplicationStatus.PENDING,
+        ApplicationStatus.APPROVED,
+        ApplicationStatus.PENDING_CHECKIN,
+        ApplicationStatus.IN_USE
+    );
+
+    // 占用教室、与新申请冲突的申请状态
+    private static final Set<ApplicationStatus> OCCUPYING_STATUSES = EnumSet.of(
+        ApplicationStatus.APPROVED,
+        ApplicationStatus.PENDING_CHECKIN,
+        ApplicationStatus.IN_USE
+    );
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    // 写操作与重建切换串行执行；重建期间的写操作同时记录下来，切换前重放到新索引上
+    private final Object writeLock = new Object();
+    private volatile Index index = new Index();
+    private List<Booking> replayLog;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 从数据库全量重建索引
+     */
+    @Scheduled(fixedRate = 30 * 60 * 1000, initialDelay = 30 * 60 * 1000)
+    public void rebuild() {
+        try {
+            long startTime = System.currentTimeMillis();
+            synchronized (writeLock) {
+                replayLog = new ArrayList<>();
+            }
+
+            Index rebuilt = new Index();
+            List<Application> applications = applicationRepository.findByStatusInAndEndTimeAfter(INDEXED_STATUSES, new Date());
+            for (Application application : applications) {
+                rebuilt.apply(Booking.of(application));
+            }
+
+            synchronized (writeLock) {
+                replayLog.forEach(rebuilt::apply);
+                replayLog = null;
+                index = rebuilt;
+            }
+            log.debug("教室预约区间索引重建完成，共 {} 个申请，耗时 {}ms",
+                applications.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            synchronized (writeLock) {
+                replayLog = null;
+            }
+            log.error("重建教室预约区间索引时发生错误", e);
+        }
+    }
+
+    /**
+     * 按申请的最新状态更新索引，应在申请变更提交后调用
+     */
+    public void update(Application application) {
+        if (application == null || application.getId() == null || application.getRoomId() == null) {
+            return;
+        }
+        apply(Booking.of(application));
+    }
+
+    /**
+     * 从数据库重新加载单个教室的索引
+     * 多实例部署时其他节点的变更不会通知本节点，写操作前调用以获取最新数据。
+     * 查询在锁外执行，期间提交的变更可能已经通过 update 写入索引：
+     * 版本不比索引中新的行不覆盖，查询开始后写入的申请不因不在结果中而被移除
+     */
+    public void refreshRoom(Long roomId) {
+        long snapshotSequence = index.sequence();
+        List<Application> applications = applicationRepository
+            .findByRoomIdAndStatusInAndEndTimeAfter(roomId, INDEXED_STATUSES, new Date());
+        Set<Long> loadedIds = new HashSet<>();
+        synchronized (writeLock) {
+            for (Application application : applications) {
+                loadedIds.add(application.getId());
+                apply(Booking.of(application));
+            }
+            for (Booking booking : index.bookingsOfRoom(roomId)) {
+                if (!loadedIds.contains(booking.id()) && !index.writtenAfter(booking.id(), snapshotSequence)) {
+                    apply(booking.removed());
+                }
+            }
+        }
+    }
+
+    /**
+     * 检查时间段是否与教室已占用的申请冲突（已批准、待签到、使用中）
+     * @param excludeApplicationId 排除的申请ID（修改申请时排除自身），可为null
+     */
+    public boolean hasConflict(Long roomId, Date startTime, Date endTime, Long excludeApplicationId) {
+        return !findOverlapping(roomId, startTime, endTime, OCCUPYING_STATUSES, excludeApplicationId).isEmpty();
+    }
+
+    /**
+     * 查询教室中与时间段重叠、尚未结束的指定状态申请
+     * @return 重叠申请的ID，按开始时间排序
+     */
+    public List<Long> findOverlapping(Long roomId, Date startTime, Date endTime,
+                                      Collection<ApplicationStatus> statuses, Long excludeApplicationId) {
+        Index current = index;
+        IntervalIndex<Long> roomIndex = current.rooms.get(roomId);
+        if (roomIndex == null) {
+            return List.of();
+        }
+
+        long now = System.currentTimeMillis();
+        long start = startTime.getTime();
+        long end = endTime.getTime();
+        List<Long> result = new ArrayList<>();
+        for (Long id : roomIndex.overlapping(start, end)) {
+            // 区间与申请记录分开存放，以申请记录为准再判断一次
+            Booking booking = current.bookings.get(id);
+            if (booking == null || id.equals(excludeApplicationId) || !statuses.contains(booking.status())) {
+                continue;
+            }
+            if (booking.end() > now && booking.start() < end && booking.end() > start) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private void apply(Booking booking) {
+        synchronized (writeLock) {
+            index.apply(booking);
+            if (replayLog != null) {
+                replayLog.add(booking);
+            }
+        }
+    }
+
+    /**
+     * 索引中的申请快照
+     * @param version 申请的乐观锁版本，每次状态变更递增
+     */
+    private record Booking(Long id, Long roomId, long start, long end, ApplicationStatus status, long version) {
+
+        static Booking of(Application application) {
+            boolean valid = application.getStartTime() != null && application.getEndTime() != null
+                && INDEXED_STATUSES.contains(application.getStatus());
+            return new Booking(application.getId(), application.getRoomId(),
+                valid ? application.getStartTime().getTime() : 0,
+                valid ? application.getEndTime().getTime() : 0,
+                valid ? application.getStatus() : null,
+                application.getVersion() != null ? application.getVersion() : 0L);
+        }
+
+        Booking removed() {
+            return new Booking(id, roomId, start, end, null, version);
+        }
+    }
+
+    /**
+     * 最近一次写入：版本与写入序号，移除的申请同样保留，避免旧快照把它加回来；随全量重建清空
+     */
+    private record Write(long version, long sequence) {
+    }
+
+    private static class Index {
+        private final Map<Long, IntervalIndex<Long>> rooms = new ConcurrentHashMap<>();
+        private final Map<Long, Booking> bookings = new ConcurrentHashMap<>();
+        // 教室ID -> 该教室的申请，只在写锁内修改
+        private final Map<Long, Map<Long, Booking>> bookingsByRoom = new HashMap<>();
+        private final Map<Long, Write> writes = new HashMap<>();
+        private volatile long sequence;
+
+        long sequence() {
+            return sequence;
+        }
+
+        /**
+         * 申请是否在指定序号之后写入过
+         */
+        boolean writtenAfter(Long id, long snapshotSequence) {
+            Write write = writes.get(id);
+            return write != null && write.sequence() > snapshotSequence;
+        }
+
+        void apply(Booking booking) {
+            Write last = writes.get(booking.id());
+            if (last != null && booking.version() < last.version()) {
+                return;
+            }
+            writes.put(booking.id(), new Write(booking.version(), ++sequence));
+
+            Booking previous = booking.status() == null
+                ? bookings.remove(booking.id())
+                : bookings.put(booking.id(), booking);
+            if (previous != null) {
+                Map<Long, Booking> previousRoom = bookingsByRoom.get(previous.roomId());
+                if (previousRoom != null) {
+                    previousRoom.remove(previous.id());
+                    if (previousRoom.isEmpty()) {
+                        bookingsByRoom.remove(previous.roomId());
+                    }
+                }
+                if (!previous.roomId().equals(booking.roomId())) {
+                    IntervalIndex<Long> previousIndex = rooms.get(previous.roomId());
+                    if (previousIndex != null) {
+                        previousIndex.remove(previous.id());
+                    }
+                }
+            }
+
+            if (booking.status() == null) {
+                IntervalIndex<Long> roomIndex = rooms.get(booking.roomId());
+                if (roomIndex != null) {
+                    roomIndex.remove(booking.id());
+                }
+            } else {
+                bookingsByRoom.computeIfAbsent(booking.roomId(), k -> new HashMap<>()).put(booking.id(), booking);
+                rooms.computeIfAbsent(booking.roomId(), k -> new IntervalIndex<>())
+                    .put(booking.id(), booking.start(), booking.end());
+            }
+        }
+
+        List<Booking> bookingsOfRoom(Long roomId) {
+            Map<Long, Booking> roomBookings = bookingsByRoom.get(roomId);
+            return roomBookings == null ? List.of() : List.copyOf(roomBookings.values());
+        }
+    }
+}
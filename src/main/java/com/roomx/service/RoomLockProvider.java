@@ -0,0 +1,30 @@
+package com.roomx.service;
+
+/**
+ * 教室锁提供者接口
+ * 同一教室的预约写操作（申请、修改、审批）按到达顺序排队执行，等待超时后才失败，
+ * 避免审批高峰时后到的请求被立即拒绝
+ */
+public interface RoomLockProvider {
+
+    /**
+     * 排队等待获取教室锁
+     * @param roomId 教室ID
+     * @param timeoutMillis 最长等待时间（毫秒）
+     * @return 已持有的锁，使用完毕后必须关闭
+     * @throws com.roomx.exception.ConcurrentModificationException 等待超时
+     */
+    RoomLock acquire(Long roomId, long timeoutMillis);
+
+    /**
+     * 已持有的教室锁
+     */
+    interface RoomLock extends AutoCloseable {
+
+        /**
+         * 释放锁
+         */
+        @Override
+        void close();
+    }
+}
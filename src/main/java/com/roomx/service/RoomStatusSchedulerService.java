@@ -1,10 +1,18 @@
 package com.roomx.service;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +24,7 @@ import com.roomx.model.entity.Application;
 import com.roomx.model.entity.Room;
 import com.roomx.repository.ApplicationRepository;
 import com.roomx.repository.RoomRepository;
+import com.roomx.utils.DeadlineQueue;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -31,17 +40,42 @@ public class RoomStatusSchedulerService {
     @Autowired
     private ApplicationRepository applicationRepository;
     
+    @Autowired
+    private SchedulerPartitionService partitionService;
+    
+    @Autowired
+    private RoomBookingIndexService roomBookingIndexService;
+    
+    // 占用教室的申请状态，判断教室状态时查询
+    private static final List<ApplicationStatus> OCCUPYING_STATUSES = List.of(
+        ApplicationStatus.IN_USE,
+        ApplicationStatus.PENDING_CHECKIN,
+        ApplicationStatus.APPROVED
+    );
+    
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
     
+    // 申请ID -> 下一次状态转换的截止时间
+    private final DeadlineQueue<Long> applicationDeadlines = new DeadlineQueue<>();
+    
+    // 当前已安排的唤醒任务及其唤醒时间
+    private final Object wakeupLock = new Object();
+    private ScheduledFuture<?> wakeupFuture;
+    private long wakeupAt = Long.MAX_VALUE;
+    
+    // 上一次教室状态检查时本节点持有的分区，用于发现新接管的分区
+    private volatile Set<Integer> lastOwnedPartitions = Set.of();
+    
     @PostConstruct
     public void startScheduler() {
         log.info("启动教室状态自动更新调度器");
         
         // 每1分钟检查一次教室状态（更频繁地检查以及时更新状态）
+        // 首次检查时接管的分区会立即全量检查申请并重建截止时间队列
         scheduler.scheduleAtFixedRate(this::updateRoomStatuses, 0, 1, TimeUnit.MINUTES);
         
-        // 每1分钟检查一次申请状态（提高频率以及时更新申请状态）
-        scheduler.scheduleAtFixedRate(this::updateApplicationStatuses, 0, 1, TimeUnit.MINUTES);
+        // 申请状态按截止时间驱动，每30分钟全量对账一次，兜底处理绕过业务服务直接修改的申请
+        scheduler.scheduleAtFixedRate(this::updateApplicationStatuses, 30, 30, TimeUnit.MINUTES);
         
         // 每10分钟批量处理过期申请（处理历史数据和遗漏的过期申请）
         scheduler.scheduleAtFixedRate(this::batchProcessExpiredApplications, 1, 10, TimeUnit.MINUTES);
@@ -63,78 +97,178 @@ public class RoomStatusSchedulerService {
     
     /**
      * 更新教室状态
+     * 批量模式：一次性加载本节点负责教室的相关申请，在内存中计算目标状态，只批量写回发生变化的教室
      */
     public void updateRoomStatuses() {
         try {
+            long startTime = System.currentTimeMillis();
             Date now = new Date();
             
-            // 获取所有教室
-            List<Room> rooms = roomRepository.findAll();
+            Set<Integer> ownedPartitions = partitionService.getOwnedPartitions();
+            checkNewlyOwnedPartitions(ownedPartitions);
+            if (ownedPartitions.isEmpty()) {
+                return;
+            }
             
-            for (Room room : rooms) {
-                updateRoomStatus(room, now);
+            // 持有全部分区时不按分区过滤；否则分区条件在 SQL 中执行，每个节点只读取自己负责的教室和申请
+            boolean allPartitions = ownedPartitions.size() >= partitionService.getPartitionCount();
+            Collection<Integer> partitions = allPartitions ? null : ownedPartitions;
+            List<Room> rooms = allPartitions
+                ? roomRepository.findAll()
+                : roomRepository.findByPartitions(partitionService.getPartitionCount(), ownedPartitions);
+            if (rooms.isEmpty()) {
+                return;
             }
+            int changedCount = recomputeRoomStatuses(rooms, findPartitionRoomStatusRelevantApplications(partitions, now), now);
             
-            log.debug("教室状态更新完成，检查了 {} 个教室", rooms.size());
+            log.debug("教室状态更新完成，检查了 {} 个教室，更新了 {} 个教室，耗时 {}ms", 
+                rooms.size(), changedCount, System.currentTimeMillis() - startTime);
         } catch (Exception e) {
             log.error("更新教室状态时发生错误", e);
         }
     }
     
+    /**
+     * 接管新的分区时（启动、其他节点下线或重新平衡），立即重建这些分区的截止时间队列，
+     * 不必等待下一次30分钟对账
+     */
+    private void checkNewlyOwnedPartitions(Set<Integer> ownedPartitions) {
+        Set<Integer> newlyOwned = new HashSet<>(ownedPartitions);
+        newlyOwned.removeAll(lastOwnedPartitions);
+        lastOwnedPartitions = ownedPartitions;
+        if (!newlyOwned.isEmpty()) {
+            log.info("节点 {} 接管调度分区 {}，重建申请截止时间队列", partitionService.getNodeId(), newlyOwned);
+            updateApplicationStatuses();
+        }
+    }
+    
+    /**
+     * 更新指定教室的状态，每个教室只计算一次
+     */
+    private void updateRoomStatuses(Collection<Long> roomIds, Date now) {
+        if (roomIds.isEmpty()) {
+            return;
+        }
+        
+        try {
+            List<Room> rooms = roomRepository.findAllById(roomIds);
+            recomputeRoomStatuses(rooms, findRoomStatusRelevantApplications(roomIds, now), now);
+        } catch (Exception e) {
+            log.error("更新教室 {} 状态时发生错误: {}", roomIds, e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 在内存中计算教室目标状态，只写回发生变化的教室
+     * 按教室执行带原状态条件的 UPDATE，不保存实体，预约并发递增的占用版本号不会导致整轮失败
+     * @return 状态发生变化的教室数量
+     */
+    private int recomputeRoomStatuses(List<Room> rooms, List<Application> relevantApplications, Date now) {
+        Map<Long, List<Application>> applicationsByRoom = new HashMap<>();
+        for (Application application : relevantApplications) {
+            applicationsByRoom.computeIfAbsent(application.getRoomId(), k -> new ArrayList<>()).add(application);
+        }
+        
+        int changed = 0;
+        for (Room room : rooms) {
+            RoomStatus currentStatus = room.getStatus();
+            RoomStatus newStatus = determineRoomStatus(room, 
+                applicationsByRoom.getOrDefault(room.getId(), List.of()), now);
+            
+            if (currentStatus != newStatus) {
+                room.setStatus(newStatus);
+                room.setUpdateTime(now);
+                // 只写状态相关的列，不覆盖其他字段；读取后状态已被修改（如管理员设为维修）时跳过，下一轮重新计算
+                if (roomRepository.updateStatus(room.getId(), currentStatus, newStatus, room.getLastMaintenanceTime(), now) > 0) {
+                    changed++;
+                    log.info("教室 {} 状态从 {} 更新为 {}", 
+                        room.getName(), currentStatus, newStatus);
+                }
+            }
+        }
+        return changed;
+    }
+    
     /**
      * 更新申请状态
+     * 每条时间规则执行一条集合式 UPDATE，受影响的教室各重新计算一次，然后重建截止时间队列
+     * 只处理本节点持有分区内的教室
      */
     public void updateApplicationStatuses() {
         try {
             Date now = new Date();
-            log.debug("开始更新申请状态，当前时间: {}", now);
+            Set<Integer> ownedPartitions = partitionService.getOwnedPartitions();
+            if (ownedPartitions.isEmpty()) {
+                log.debug("本节点未持有调度分区，跳过申请状态更新");
+                return;
+            }
+            log.debug("开始更新申请状态，当前时间: {}，分区: {}", now, ownedPartitions);
+            
+            Set<Long> affectedRoomIds = applyTimedTransitions(now, ownedPartitions);
+            affectedRoomIds.forEach(roomBookingIndexService::refreshRoom);
+            updateRoomStatuses(affectedRoomIds, now);
             
-            // 获取需要检查的申请：待审批、已批准、待签到和使用中的申请
+            // 获取需要跟踪的申请：待审批、已批准、待签到和使用中的申请，登记下一次转换的截止时间
             List<ApplicationStatus> activeStatuses = List.of(
                 ApplicationStatus.PENDING, 
                 ApplicationStatus.APPROVED,
                 ApplicationStatus.PENDING_CHECKIN,
                 ApplicationStatus.IN_USE
             );
-            List<Application> activeApplications = applicationRepository.findByStatusIn(activeStatuses);
+            List<Application> activeApplications = ownedPartitions.size() >= partitionService.getPartitionCount()
+                ? applicationRepository.findByStatusIn(activeStatuses)
+                : applicationRepository.findByStatusInAndPartitions(activeStatuses, partitionService.getPartitionCount(), ownedPartitions);
+            activeApplications.forEach(this::scheduleApplication);
             
-            int updatedCount = 0;
-            for (Application application : activeApplications) {
-                try {
-                    ApplicationStatus oldStatus = application.getStatus();
-                    updateApplicationStatus(application, now);
-                    
-                    // 统计实际更新的申请数量
-                    if (oldStatus != application.getStatus()) {
-                        updatedCount++;
-                    }
-                } catch (Exception e) {
-                    log.error("更新申请 {} 状态时发生错误: {}", application.getId(), e.getMessage(), e);
-                }
-            }
-            
-            log.debug("申请状态更新完成，检查了 {} 个申请，实际更新了 {} 个申请", 
-                activeApplications.size(), updatedCount);
+            log.debug("申请状态更新完成，涉及 {} 个教室，跟踪 {} 个申请，待触发截止时间 {} 个", 
+                affectedRoomIds.size(), activeApplications.size(), applicationDeadlines.size());
         } catch (Exception e) {
             log.error("更新申请状态时发生错误", e);
         }
     }
     
     /**
-     * 更新单个教室状态
+     * 按时间规则批量转换申请状态，与 handleXxxStatus 的规则一一对应
+     * 按生命周期倒序执行，每个申请一轮最多前进一步，后续步骤由截止时间队列继续推进
+     * @return 受影响的教室ID
      */
-    private void updateRoomStatus(Room room, Date now) {
-        RoomStatus currentStatus = room.getStatus();
-        RoomStatus newStatus = determineRoomStatus(room, now);
-        
-        if (currentStatus != newStatus) {
-            room.setStatus(newStatus);
-            room.setUpdateTime(now);
-            roomRepository.save(room);
-            
-            log.info("教室 {} 状态从 {} 更新为 {}", 
-                room.getName(), currentStatus, newStatus);
+    private Set<Long> applyTimedTransitions(Date now, Set<Integer> partitions) {
+        Set<Long> affectedRoomIds = new HashSet<>();
+        int partitionCount = partitionService.getPartitionCount();
+        long nowTime = now.getTime();
+        Date fifteenMinutesAgo = new Date(nowTime - 15 * 60 * 1000);
+        Date fifteenMinutesLater = new Date(nowTime + 15 * 60 * 1000);
+        Date thirtyMinutesAgo = new Date(nowTime - 30 * 60 * 1000);
+        
+        // 结束时间后，使用中的申请状态为已完成
+        affectedRoomIds.addAll(applicationRepository.findRoomIdsByStatusAndEndTimeBefore(
+            ApplicationStatus.IN_USE, now, partitionCount, partitions));
+        int completed = applicationRepository.transitionByEndTimeBefore(
+            ApplicationStatus.IN_USE, now, ApplicationStatus.COMPLETED, now, partitionCount, partitions);
+        
+        // 开始时间后30分钟或者过了结束时间还未签到，则自动取消并标记过期
+        affectedRoomIds.addAll(applicationRepository.findRoomIdsByStatusAndStartTimeBeforeOrEndTimeBefore(
+            ApplicationStatus.PENDING_CHECKIN, thirtyMinutesAgo, now, partitionCount, partitions));
+        int cancelled = applicationRepository.expireByStartTimeBeforeOrEndTimeBefore(
+            ApplicationStatus.PENDING_CHECKIN, thirtyMinutesAgo, now, ApplicationStatus.CANCELLED, now, partitionCount, partitions);
+        
+        // 已批准的申请在开始时间前15分钟变为待签到
+        affectedRoomIds.addAll(applicationRepository.findRoomIdsByStatusAndStartTimeBefore(
+            ApplicationStatus.APPROVED, fifteenMinutesLater, partitionCount, partitions));
+        int checkin = applicationRepository.transitionByStartTimeBefore(
+            ApplicationStatus.APPROVED, fifteenMinutesLater, ApplicationStatus.PENDING_CHECKIN, now, partitionCount, partitions);
+        
+        // 待审批的申请在开始时间后15分钟自动驳回（不影响教室状态，但需要刷新预约区间索引）
+        affectedRoomIds.addAll(applicationRepository.findRoomIdsByStatusAndStartTimeBefore(
+            ApplicationStatus.PENDING, fifteenMinutesAgo, partitionCount, partitions));
+        int rejected = applicationRepository.transitionByStartTimeBefore(
+            ApplicationStatus.PENDING, fifteenMinutesAgo, ApplicationStatus.REJECTED, now, partitionCount, partitions);
+        
+        if (completed + cancelled + checkin + rejected > 0) {
+            log.info("批量转换申请状态：已完成 {} 个，超时未签到取消 {} 个，进入待签到 {} 个，超时未审批驳回 {} 个", 
+                completed, cancelled, checkin, rejected);
         }
+        return affectedRoomIds;
     }
     
     /**
@@ -153,7 +287,8 @@ public class RoomStatusSchedulerService {
             try {
                 application.setStatus(newStatus);
                 application.setUpdateTime(now);
-                applicationRepository.save(application);
+                // 不在事务中时保存的是副本，同步递增后的版本号
+                application.setVersion(applicationRepository.save(application).getVersion());
                 
                 if (statusChanged) {
                     log.debug("申请 {} 状态从 {} 更新为 {}", 
@@ -164,7 +299,8 @@ public class RoomStatusSchedulerService {
                     log.debug("申请 {} 过期", application.getId());
                 }
                 
-                // 申请状态变更时，同步更新对应教室的状态
+                // 申请状态变更时，同步更新预约区间索引和对应教室的状态
+                roomBookingIndexService.update(application);
                 updateRelatedRoomStatus(application.getRoomId(), now);
                 
             } catch (Exception e) {
@@ -175,123 +311,303 @@ public class RoomStatusSchedulerService {
                 throw e;
             }
         }
+        
+        scheduleApplication(application);
     }
     
     /**
-     * 更新相关教室状态
+     * 登记申请的下一次状态转换截止时间
+     * 申请进入终态时从队列中移除
+     * 处理请求的节点不一定持有该教室的分区，转换使用带原状态条件的 UPDATE，多个节点重复触发不会产生副作用
      */
-    private void updateRelatedRoomStatus(Long roomId, Date now) {
+    public void scheduleApplication(Application application) {
+        if (application == null || application.getId() == null) {
+            return;
+        }
+        
+        Date deadline = nextTransitionTime(application);
+        if (deadline == null) {
+            applicationDeadlines.cancel(application.getId());
+            return;
+        }
+        
+        applicationDeadlines.schedule(application.getId(), deadline.getTime());
+        armWakeup();
+    }
+    
+    /**
+     * 触发所有已到期的申请
+     */
+    private void fireDueApplications() {
+        synchronized (wakeupLock) {
+            wakeupFuture = null;
+            wakeupAt = Long.MAX_VALUE;
+        }
+        
         try {
-            Room room = roomRepository.findById(roomId).orElse(null);
-            if (room != null) {
-                updateRoomStatus(room, now);
-            } else {
-                log.warn("尝试更新不存在的教室状态，教室ID: {}", roomId);
+            Date now = new Date();
+            List<Long> dueIds = applicationDeadlines.pollDue(now.getTime());
+            if (!dueIds.isEmpty()) {
+                transitionApplications(applicationRepository.findAllById(dueIds), now);
+                log.debug("截止时间触发完成，到期 {} 个申请，待触发 {} 个", dueIds.size(), applicationDeadlines.size());
             }
         } catch (Exception e) {
-            log.error("更新相关教室 {} 状态时发生错误: {}", roomId, e.getMessage(), e);
+            log.error("触发到期申请时发生错误", e);
+        } finally {
+            armWakeup();
         }
     }
     
     /**
-     * 确定教室状态
+     * 批量转换已到期的申请
+     * 按原状态分组，每组执行一条带原状态条件的 UPDATE，受影响的教室各重新计算一次
      */
-    private RoomStatus determineRoomStatus(Room room, Date now) {
-        // 如果教室正在维修或清洁中，保持当前状态
-        if (room.getStatus() == RoomStatus.MAINTENANCE || 
-            room.getStatus() == RoomStatus.CLEANING) {
-            return room.getStatus();
+    private void transitionApplications(List<Application> applications, Date now) {
+        Map<ApplicationStatus, List<Application>> byCurrentStatus = new EnumMap<>(ApplicationStatus.class);
+        Map<ApplicationStatus, ApplicationStatus> targetStatuses = new EnumMap<>(ApplicationStatus.class);
+        for (Application application : applications) {
+            ApplicationStatus currentStatus = application.getStatus();
+            ApplicationStatus newStatus = determineApplicationStatus(application, now);
+            if (currentStatus != newStatus) {
+                byCurrentStatus.computeIfAbsent(currentStatus, k -> new ArrayList<>()).add(application);
+                targetStatuses.put(currentStatus, newStatus);
+            }
         }
         
-        // 检查是否有使用中的申请
-        List<Application> usingApplications = applicationRepository
-            .findByRoomIdAndStatusAndStartTimeBeforeAndEndTimeAfter(
-                room.getId(), 
-                ApplicationStatus.IN_USE, 
-                now, 
-                now
-            );
-        
-        if (!usingApplications.isEmpty()) {
-            return RoomStatus.USING;
+        Set<Long> affectedRoomIds = new HashSet<>();
+        for (Map.Entry<ApplicationStatus, List<Application>> entry : byCurrentStatus.entrySet()) {
+            ApplicationStatus currentStatus = entry.getKey();
+            ApplicationStatus newStatus = targetStatuses.get(currentStatus);
+            List<Application> group = entry.getValue();
+            List<Long> ids = group.stream().map(Application::getId).toList();
+            try {
+                // 超时未签到取消时同时标记过期
+                int updated = newStatus == ApplicationStatus.CANCELLED
+                    ? applicationRepository.expireByIds(ids, currentStatus, newStatus, now)
+                    : applicationRepository.transitionByIds(ids, currentStatus, newStatus, now);
+                for (Application application : group) {
+                    application.setStatus(newStatus);
+                    application.setUpdateTime(now);
+                    // 与 UPDATE 中的版本递增保持一致，预约区间索引按版本判断新旧
+                    application.setVersion(application.getVersion() + 1);
+                    if (newStatus == ApplicationStatus.CANCELLED) {
+                        application.setExpired(true);
+                    }
+                    // 待审批申请的驳回不影响教室状态
+                    if (currentStatus != ApplicationStatus.PENDING) {
+                        affectedRoomIds.add(application.getRoomId());
+                    }
+                }
+                if (updated < group.size()) {
+                    // 部分申请已被用户或管理员同时修改，以数据库中的状态为准，索引不能记录未生效的状态
+                    syncConcurrentlyChanged(group, affectedRoomIds);
+                }
+                log.info("{} 个申请状态从 {} 更新为 {}", updated, currentStatus, newStatus);
+            } catch (Exception e) {
+                log.error("批量更新申请状态 {} -> {} 时发生错误: {}", currentStatus, newStatus, e.getMessage(), e);
+                // 1分钟后重试，避免在下一次全量对账前丢失
+                ids.forEach(id -> applicationDeadlines.schedule(id, now.getTime() + 60 * 1000));
+                group.forEach(application -> application.setStatus(currentStatus));
+            }
         }
         
-        // 检查是否有待签到的申请（在预约时间范围内且未超过开始时间30分钟）
-        List<Application> pendingCheckinApplications = applicationRepository
-            .findByRoomIdAndStatusAndStartTimeBeforeAndEndTimeAfter(
-                room.getId(), 
-                ApplicationStatus.PENDING_CHECKIN, 
-                now, 
-                now
-            );
+        updateRoomStatuses(affectedRoomIds, now);
         
-        // 过滤掉已经超过开始时间30分钟的待签到申请（这些应该被取消）
-        pendingCheckinApplications = pendingCheckinApplications.stream()
-            .filter(app -> {
-                Date thirtyMinutesAfterStart = new Date(app.getStartTime().getTime() + 30 * 60 * 1000);
-                return now.before(thirtyMinutesAfterStart);
-            })
-            .toList();
+        // 失败重试的申请已登记重试时间，不再覆盖
+        for (Application application : applications) {
+            roomBookingIndexService.update(application);
+            if (!applicationDeadlines.contains(application.getId())) {
+                scheduleApplication(application);
+            }
+        }
+    }
+    
+    /**
+     * 重新读取申请，用数据库中的状态覆盖内存中的对象
+     */
+    private void syncConcurrentlyChanged(List<Application> group, Set<Long> affectedRoomIds) {
+        Map<Long, Application> current = new HashMap<>();
+        applicationRepository.findAllById(group.stream().map(Application::getId).toList())
+            .forEach(application -> current.put(application.getId(), application));
+        for (Application application : group) {
+            Application fresh = current.get(application.getId());
+            if (fresh == null) {
+                // 已被删除，按终态处理，索引中移除
+                application.setStatus(ApplicationStatus.CANCELLED);
+            } else if (fresh.getStatus() != application.getStatus()) {
+                application.setStatus(fresh.getStatus());
+                application.setVersion(fresh.getVersion());
+                application.setExpired(fresh.getExpired());
+                application.setUpdateTime(fresh.getUpdateTime());
+            } else {
+                continue;
+            }
+            affectedRoomIds.add(application.getRoomId());
+        }
+    }
+    
+    /**
+     * 按队列中最早的截止时间安排唤醒，已有更早的唤醒时不重复安排
+     */
+    private void armWakeup() {
+        long next = applicationDeadlines.nextDeadline();
+        synchronized (wakeupLock) {
+            if (wakeupFuture != null && wakeupAt <= next) {
+                return;
+            }
+            if (wakeupFuture != null) {
+                wakeupFuture.cancel(false);
+                wakeupFuture = null;
+                wakeupAt = Long.MAX_VALUE;
+            }
+            if (next == Long.MAX_VALUE || scheduler.isShutdown()) {
+                return;
+            }
+            long delay = Math.max(0, next - System.currentTimeMillis());
+            wakeupAt = next;
+            wakeupFuture = scheduler.schedule(this::fireDueApplications, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * 计算申请下一次按时间自动转换状态的时刻
+     * 与 handleXxxStatus 中的规则一一对应，规则使用严格晚于判断，因此截止时间加1毫秒
+     * @return 截止时间，没有后续自动转换时返回null
+     */
+    private Date nextTransitionTime(Application application) {
+        if (application.getStatus() == null || application.getStartTime() == null || application.getEndTime() == null) {
+            return null;
+        }
         
-        if (!pendingCheckinApplications.isEmpty()) {
-            return RoomStatus.RESERVED;
+        long start = application.getStartTime().getTime();
+        long end = application.getEndTime().getTime();
+        long threshold;
+        switch (application.getStatus()) {
+            case PENDING:
+                threshold = start + 15 * 60 * 1000;
+                break;
+            case APPROVED:
+                threshold = start - 15 * 60 * 1000;
+                break;
+            case PENDING_CHECKIN:
+                threshold = Math.min(start + 30 * 60 * 1000, end);
+                break;
+            case IN_USE:
+                threshold = end;
+                break;
+            default:
+                return null;
+        }
+        return new Date(threshold + 1);
+    }
+    
+    /**
+     * 更新相关教室状态
+     */
+    private void updateRelatedRoomStatus(Long roomId, Date now) {
+        updateRoomStatuses(List.of(roomId), now);
+    }
+    
+    /**
+     * 查询指定教室判断状态所需的申请
+     * 1. 使用中、待签到、已批准且与 [now, now+15分钟] 有交集的申请（进行中或即将开始）
+     * 2. 最近30分钟内结束的已完成申请
+     */
+    private List<Application> findRoomStatusRelevantApplications(Collection<Long> roomIds, Date now) {
+        List<Application> applications = new ArrayList<>();
+        applications.addAll(applicationRepository
+            .findByRoomIdInAndStatusInAndStartTimeBeforeAndEndTimeAfter(roomIds, OCCUPYING_STATUSES, upcomingLimit(now), now));
+        applications.addAll(applicationRepository
+            .findByRoomIdInAndStatusAndEndTimeBetween(roomIds, ApplicationStatus.COMPLETED, recentCompletedSince(now), now));
+        return applications;
+    }
+    
+    /**
+     * 查询指定分区内判断教室状态所需的申请，条件同 findRoomStatusRelevantApplications
+     * @param partitions 分区，为null时查询所有教室
+     */
+    private List<Application> findPartitionRoomStatusRelevantApplications(Collection<Integer> partitions, Date now) {
+        List<Application> applications = new ArrayList<>();
+        if (partitions == null) {
+            applications.addAll(applicationRepository
+                .findByStatusInAndStartTimeBeforeAndEndTimeAfter(OCCUPYING_STATUSES, upcomingLimit(now), now));
+            applications.addAll(applicationRepository
+                .findByStatusAndEndTimeBetween(ApplicationStatus.COMPLETED, recentCompletedSince(now), now));
+        } else {
+            int partitionCount = partitionService.getPartitionCount();
+            applications.addAll(applicationRepository.findByStatusInAndStartTimeBeforeAndEndTimeAfterAndPartitions(
+                OCCUPYING_STATUSES, upcomingLimit(now), now, partitionCount, partitions));
+            applications.addAll(applicationRepository.findByStatusAndEndTimeBetweenAndPartitions(
+                ApplicationStatus.COMPLETED, recentCompletedSince(now), now, partitionCount, partitions));
+        }
+        return applications;
+    }
+    
+    // startTime 使用严格小于，加1毫秒以包含恰好在15分钟后开始的申请
+    private static Date upcomingLimit(Date now) {
+        return new Date(now.getTime() + 15 * 60 * 1000 + 1);
+    }
+    
+    private static Date recentCompletedSince(Date now) {
+        return new Date(now.getTime() - 30 * 60 * 1000);
+    }
+    
+    /**
+     * 根据教室的相关申请在内存中确定教室状态
+     * @param roomApplications 该教室的相关申请，见 findRoomStatusRelevantApplications
+     */
+    private RoomStatus determineRoomStatus(Room room, List<Application> roomApplications, Date now) {
+        // 如果教室正在维修或清洁中，保持当前状态
+        if (room.getStatus() == RoomStatus.MAINTENANCE || 
+            room.getStatus() == RoomStatus.CLEANING) {
+            return room.getStatus();
         }
         
-        // 检查是否有已批准的申请在当前时间段内
-        List<Application> activeApplications = applicationRepository
-            .findByRoomIdAndStatusAndStartTimeBeforeAndEndTimeAfter(
-                room.getId(), 
-                ApplicationStatus.APPROVED, 
-                now, 
-                now
-            );
+        long nowTime = now.getTime();
+        long fifteenMinutesLater = nowTime + 15 * 60 * 1000;
+        long thirtyMinutesAgo = nowTime - 30 * 60 * 1000;
         
-        if (!activeApplications.isEmpty()) {
-            return RoomStatus.RESERVED;
-        }
+        boolean using = false;
+        boolean reserved = false;
+        boolean recentCompleted = false;
         
-        // 检查是否有已批准申请即将开始（15分钟内），但要排除开始时间前15分钟内已转为待签到的
-        Date fifteenMinutesLater = new Date(now.getTime() + 15 * 60 * 1000);
-        List<Application> upcomingApproved = applicationRepository
-            .findByRoomIdAndStatusAndStartTimeBetween(
-                room.getId(), 
-                ApplicationStatus.APPROVED,
-                now, 
-                fifteenMinutesLater
-            );
+        for (Application app : roomApplications) {
+            long start = app.getStartTime().getTime();
+            long end = app.getEndTime().getTime();
+            boolean ongoing = start < nowTime && end > nowTime;
+            boolean startingSoon = start >= nowTime && start <= fifteenMinutesLater;
+            
+            switch (app.getStatus()) {
+                case IN_USE:
+                    // 使用中的申请
+                    using |= ongoing;
+                    break;
+                case PENDING_CHECKIN:
+                    // 待签到的申请（在预约时间范围内且未超过开始时间30分钟），或即将开始的待签到申请
+                    reserved |= (ongoing && nowTime < start + 30 * 60 * 1000) || startingSoon;
+                    break;
+                case APPROVED:
+                    // 已批准的申请在当前时间段内，或即将开始（15分钟内）但尚未进入开始前15分钟的待签到窗口
+                    reserved |= ongoing || (startingSoon && nowTime < start - 15 * 60 * 1000);
+                    break;
+                case COMPLETED:
+                    // 已完成的申请刚结束（30分钟内）
+                    recentCompleted |= end >= thirtyMinutesAgo && end <= nowTime;
+                    break;
+                default:
+                    break;
+            }
+        }
         
-        // 过滤掉开始时间前15分钟内的申请（这些应该已经转为待签到状态）
-        upcomingApproved = upcomingApproved.stream()
-            .filter(app -> {
-                Date fifteenMinutesBeforeStart = new Date(app.getStartTime().getTime() - 15 * 60 * 1000);
-                return now.before(fifteenMinutesBeforeStart);
-            })
-            .toList();
-        
-        // 检查即将开始的待签到申请
-        List<Application> upcomingPendingCheckin = applicationRepository
-            .findByRoomIdAndStatusAndStartTimeBetween(
-                room.getId(), 
-                ApplicationStatus.PENDING_CHECKIN,
-                now, 
-                fifteenMinutesLater
-            );
+        if (using) {
+            return RoomStatus.USING;
+        }
         
-        if (!upcomingApproved.isEmpty() || !upcomingPendingCheckin.isEmpty()) {
+        if (reserved) {
             return RoomStatus.RESERVED;
         }
         
-        // 检查是否有已完成的申请刚结束（30分钟内）
-        Date thirtyMinutesAgo = new Date(now.getTime() - 30 * 60 * 1000);
-        List<Application> recentCompleted = applicationRepository
-            .findByRoomIdAndStatusAndEndTimeBetween(
-                room.getId(), 
-                ApplicationStatus.COMPLETED,
-                thirtyMinutesAgo, 
-                now
-            );
-        
-        if (!recentCompleted.isEmpty()) {
+        if (recentCompleted) {
             // 根据教室类型和用途决定是否需要清洁
             if (shouldRequireCleaning(room)) {
                 return RoomStatus.PENDING_CLEANING;
@@ -343,23 +659,28 @@ public class RoomStatusSchedulerService {
             return;
         }
         
+        // 结束时间在今天之前，且距离结束时间已超过12小时的申请标记为过期
+        if (application.getEndTime().before(expiryThreshold(now))) {
+            application.setExpired(true);
+            log.info("申请 {} 标记为过期，结束时间: {}, 当前时间: {}", 
+                application.getId(), application.getEndTime(), now);
+        }
+    }
+    
+    /**
+     * 过期判定阈值：结束时间早于今天零点且早于当前时间12小时前
+     */
+    private Date expiryThreshold(Date now) {
         // 获取今天零点时间
         Calendar cal = Calendar.getInstance();
+        cal.setTime(now);
         cal.set(Calendar.HOUR_OF_DAY, 0);
         cal.set(Calendar.MINUTE, 0);
         cal.set(Calendar.SECOND, 0);
         cal.set(Calendar.MILLISECOND, 0);
-        Date todayStart = cal.getTime();
-        
-        // 结束时间在今天之前，且距离结束时间已超过12小时的申请标记为过期
-        if (application.getEndTime().before(todayStart)) {
-            Date twelveHoursAfterEnd = new Date(application.getEndTime().getTime() + 12 * 60 * 60 * 1000);
-            if (now.after(twelveHoursAfterEnd)) {
-                application.setExpired(true);
-                log.info("申请 {} 标记为过期，结束时间: {}, 当前时间: {}", 
-                    application.getId(), application.getEndTime(), now);
-            }
-        }
+        long todayStart = cal.getTimeInMillis();
+        long twelveHoursAgo = now.getTime() - 12 * 60 * 60 * 1000;
+        return new Date(Math.min(todayStart, twelveHoursAgo));
     }
     
     /**
@@ -449,7 +770,7 @@ public class RoomStatusSchedulerService {
      */
     public void triggerRoomStatusUpdate(Long roomId) {
         try {
-            roomRepository.findById(roomId).ifPresent(room -> updateRoomStatus(room, new Date()));
+            updateRoomStatuses(List.of(roomId), new Date());
         } catch (Exception e) {
             log.error("手动更新教室状态时发生错误", e);
         }
@@ -480,47 +801,25 @@ public class RoomStatusSchedulerService {
     }
     
     /**
-     * 批量处理过期申请（通常在系统启动时或定期维护时调用）
+     * 批量处理过期申请（通常在系统启动时或定期维护时调用），只处理本节点持有的分区
      */
     public void batchProcessExpiredApplications() {
         try {
             Date now = new Date();
+            Set<Integer> ownedPartitions = partitionService.getOwnedPartitions();
+            if (ownedPartitions.isEmpty()) {
+                return;
+            }
             log.info("开始批量处理过期申请，当前时间: {}", now);
             
-            // 获取所有可能需要标记过期的申请状态
-            List<ApplicationStatus> expirableStatuses = List.of(
-                ApplicationStatus.PENDING, 
-                ApplicationStatus.APPROVED,
-                ApplicationStatus.PENDING_CHECKIN,
-                ApplicationStatus.IN_USE,
-                ApplicationStatus.COMPLETED,
-                ApplicationStatus.CANCELLED,
-                ApplicationStatus.REJECTED
-            );
-            
-            // 获取未标记过期但可能已过期的申请
-            List<Application> applicationsToCheck = applicationRepository
-                .findByStatusIn(expirableStatuses)
-                .stream()
-                .filter(app -> app.getExpired() == null || !app.getExpired())
-                .toList();
-            
-            int markedExpiredCount = 0;
-            for (Application application : applicationsToCheck) {
-                Boolean wasExpired = application.getExpired();
-                markApplicationIfExpired(application, now);
-                
-                if (application.getExpired() && !java.util.Objects.equals(wasExpired, application.getExpired())) {
-                    applicationRepository.save(application);
-                    markedExpiredCount++;
-                }
-            }
+            // 单条 UPDATE 标记所有满足过期条件且未标记的申请
+            int markedExpiredCount = applicationRepository.markExpiredByEndTimeBefore(expiryThreshold(now),
+                partitionService.getPartitionCount(), ownedPartitions);
             
-            log.info("批量处理过期申请完成，检查了 {} 个申请，标记过期 {} 个申请", 
-                applicationsToCheck.size(), markedExpiredCount);
+            log.info("批量处理过期申请完成，标记过期 {} 个申请", markedExpiredCount);
                 
         } catch (Exception e) {
             log.error("批量处理过期申请时发生错误", e);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.roomx.service;
+
+import java.util.Set;
+
+/**
+ * 调度分区租约存储接口
+ * 提供节点心跳和分区租约的原子操作，由 MySQL 或 Redis 实现
+ */
+public interface SchedulerLeaseStore {
+
+    /**
+     * 登记节点心跳
+     * @param nodeId 节点标识
+     * @param ttlMillis 心跳有效期（毫秒）
+     */
+    void heartbeat(String nodeId, long ttlMillis);
+
+    /**
+     * 统计心跳未过期的存活节点数量
+     */
+    int countLiveNodes();
+
+    /**
+     * 续约节点持有的分区
+     * @param nodeId 节点标识
+     * @param partitions 续约前认为持有的分区
+     * @param ttlMillis 租约有效期（毫秒）
+     * @return 续约成功、仍由该节点持有的分区
+     */
+    Set<Integer> renew(String nodeId, Set<Integer> partitions, long ttlMillis);
+
+    /**
+     * 尝试获取无人持有或租约已过期的分区
+     * @return 是否获取成功
+     */
+    boolean tryAcquire(int partition, String nodeId, long ttlMillis);
+
+    /**
+     * 释放节点持有的分区，仅当租约仍属于该节点时生效
+     */
+    void release(int partition, String nodeId);
+
+    /**
+     * 移除节点心跳（节点正常下线时调用，便于其他节点尽快重新分配）
+     */
+    void removeNode(String nodeId);
+}
@@ -0,0 +1,47 @@
+package com.roomx.service;
+
+import java.util.Set;
+
+/**
+ * 调度分区服务接口
+ * 教室按ID散列到固定数量的分区，多实例部署时每个节点只处理自己持有租约的分区，
+ * 定时任务的总负载不随实例数量增加而增加
+ */
+public interface SchedulerPartitionService {
+
+    /**
+     * 获取当前节点标识
+     */
+    String getNodeId();
+
+    /**
+     * 获取分区总数
+     */
+    int getPartitionCount();
+
+    /**
+     * 计算教室所属分区，与 SQL 中的 MOD(room_id, 分区数) 保持一致
+     */
+    default int partitionOf(Long roomId) {
+        return roomId == null ? 0 : (int) Math.floorMod(roomId, (long) getPartitionCount());
+    }
+
+    /**
+     * 获取当前节点持有的分区，租约失效时返回空集合
+     */
+    Set<Integer> getOwnedPartitions();
+
+    /**
+     * 当前节点是否负责指定教室
+     */
+    default boolean ownsRoom(Long roomId) {
+        return getOwnedPartitions().contains(partitionOf(roomId));
+    }
+
+    /**
+     * 当前节点是否负责全局任务（持有0号分区的节点负责，如过期数据清理）
+     */
+    default boolean isLeader() {
+        return getOwnedPartitions().contains(0);
+    }
+}
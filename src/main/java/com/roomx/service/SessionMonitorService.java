@@ -2,6 +2,8 @@ package com.roomx.service;
 
 import java.util.Map;
 
+import com.roomx.model.dto.CursorPage;
+
 /**
  * 会话监控服务接口
  * 用于监控和管理用户会话状态
@@ -14,6 +16,15 @@ public interface SessionMonitorService {
      */
     Map<String, SessionInfo> getAllActiveSessions();
     
+    /**
+     * 按用户名顺序分页查询活跃会话
+     * @param cursor 上一页返回的游标，为空时从头开始
+     * @param limit 每页条数
+     * @param usernamePrefix 用户名前缀，为空时不过滤
+     * @return 会话列表及下一页游标
+     */
+    CursorPage<SessionInfo> listActiveSessions(String cursor, int limit, String usernamePrefix);
+    
     /**
      * 强制使用户下线
      * @param username 用户名
@@ -0,0 +1,42 @@
+package com.roomx.service;
+
+/**
+ * 未读通知计数服务
+ * 每个用户的未读数保存在缓存中（进程内或 Redis），写入、已读、删除通知时在事务提交后原子调整，
+ * 并通过 WebSocket 推送变化量；缓存未命中时从数据库加载，定期与数据库核对
+ */
+public interface UnreadCounterService {
+
+    /**
+     * 获取未读数，缓存未命中时从数据库加载
+     * @param userId 用户ID
+     * @return 未读数
+     */
+    long getUnreadCount(Long userId);
+
+    /**
+     * 调整未读数（事务提交后生效，不在事务中时立即生效）
+     * @param userId 用户ID
+     * @param delta 变化量，新增通知为正，标记已读为负
+     */
+    void adjust(Long userId, long delta);
+
+    /**
+     * 将未读数置为0（全部已读、全部删除后调用，事务提交后生效）
+     * @param userId 用户ID
+     */
+    void reset(Long userId);
+
+    /**
+     * 与数据库核对已缓存的未读数
+     */
+    void reconcile();
+
+    /**
+     * 推送给客户端的未读数变化
+     * @param unreadCount 当前未读数
+     * @param delta 变化量，无法确定时为 null
+     */
+    record UnreadCountChange(long unreadCount, Long delta) {
+    }
+}
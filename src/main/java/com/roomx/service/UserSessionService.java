@@ -2,6 +2,8 @@ package com.roomx.service;
 
 import java.util.Map;
 
+import com.roomx.model.dto.CursorPage;
+
 public interface UserSessionService {
     
     /**
@@ -32,6 +34,13 @@ public interface UserSessionService {
      */
     String getCurrentSessionId(String username);
     
+    /**
+     * 获取用户当前会话的创建时间
+     * @param username 用户名
+     * @return 创建时间（毫秒时间戳），没有有效会话时返回0
+     */
+    long getSessionCreateTime(String username);
+    
     /**
      * 检查用户是否在其他地方登录
      * @param username 用户名
@@ -46,8 +55,24 @@ public interface UserSessionService {
      */
     Map<String, String> getAllActiveSessions();
     
+    /**
+     * 按用户名顺序分页列出活跃会话
+     * @param cursor 上一页返回的游标，为空时从头开始
+     * @param limit 每页条数
+     * @param usernamePrefix 用户名前缀，为空时不过滤
+     * @return 会话列表及下一页游标
+     */
+    CursorPage<SessionEntry> listActiveSessions(String cursor, int limit, String usernamePrefix);
+    
     /**
      * 清理过期会话
      */
     void cleanupExpiredSessions();
-} 
\ No newline at end of file
+    
+    /**
+     * 会话注册表中的会话
+     * @param createTime 创建时间（毫秒时间戳）
+     */
+    record SessionEntry(String username, String sessionId, long createTime) {
+    }
+}
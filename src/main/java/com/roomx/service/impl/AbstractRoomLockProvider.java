@@ -0,0 +1,183 @@
+package com.roomx.service.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.roomx.exception.ConcurrentModificationException;
+import com.roomx.service.RoomLockProvider;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 教室锁提供者基类
+ * 先在本节点按教室的公平锁排队，不同教室互不阻塞；锁只在有请求持有或等待时存在，
+ * 内存占用与同时被操作的教室数量成正比，与教室总数无关。
+ * 每个节点每个教室同一时刻只有一个请求进入分布式锁的竞争，由子类实现跨节点互斥。
+ * 统一记录等待时间、竞争次数和当前等待数量；指标只按提供者和结果区分，不随教室数量增长。
+ */
+@Slf4j
+public abstract class AbstractRoomLockProvider implements RoomLockProvider {
+
+    // 未指定教室的请求共用一个锁，由后续的参数校验拒绝
+    private static final Long NO_ROOM = 0L;
+
+    // 教室ID -> 本节点内的排队锁，最后一个使用者释放时移除
+    private final ConcurrentHashMap<Long, RoomQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final String providerName;
+    private final Timer acquiredTimer;
+    private final Timer timeoutTimer;
+    private final Counter contentionCounter;
+
+    protected AbstractRoomLockProvider(MeterRegistry meterRegistry, String providerName) {
+        this.providerName = providerName;
+        Gauge.builder("roomx.room.lock.waiting", waiting, AtomicInteger::get)
+            .description("正在等待教室锁的请求数")
+            .tag("provider", providerName)
+            .register(meterRegistry);
+        this.acquiredTimer = waitTimer(meterRegistry, "acquired");
+        this.timeoutTimer = waitTimer(meterRegistry, "timeout");
+        this.contentionCounter = Counter.builder("roomx.room.lock.contention")
+            .description("获取教室锁时需要等待的次数")
+            .tag("provider", providerName)
+            .register(meterRegistry);
+    }
+
+    private Timer waitTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("roomx.room.lock.wait")
+            .description("获取教室锁的等待时间")
+            .tags("provider", providerName, "outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public RoomLock acquire(Long roomId, long timeoutMillis) {
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Long key = roomId == null ? NO_ROOM : roomId;
+        RoomQueue queue = join(key);
+
+        boolean contended = queue.lock.isLocked();
+        boolean locked = false;
+        waiting.incrementAndGet();
+        try {
+            // 只使用带超时的 tryLock，公平锁按到达顺序交给排队最久的请求，不允许插队
+            if (!queue.lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw timeout(roomId, startTime, true);
+            }
+            locked = true;
+
+            long remainingMillis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+            DistributedLock distributed = acquireDistributed(roomId, remainingMillis);
+            if (distributed == null) {
+                throw timeout(roomId, startTime, true);
+            }
+            contended |= distributed.contended();
+            record(acquiredTimer, startTime, contended);
+            return new HeldRoomLock(this, key, queue, distributed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(key, queue, locked);
+            throw timeout(roomId, startTime, contended);
+        } catch (RuntimeException e) {
+            release(key, queue, locked);
+            throw e;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * 登记为教室锁的使用者，不存在时创建
+     */
+    private RoomQueue join(Long roomId) {
+        return queues.compute(roomId, (id, queue) -> {
+            RoomQueue joined = queue == null ? new RoomQueue() : queue;
+            joined.users++;
+            return joined;
+        });
+    }
+
+    /**
+     * 释放本节点的教室锁并注销使用者，最后一个使用者移除该教室的锁
+     */
+    private void release(Long roomId, RoomQueue queue, boolean locked) {
+        if (locked) {
+            queue.lock.unlock();
+        }
+        queues.computeIfPresent(roomId, (id, current) -> --current.users == 0 ? null : current);
+    }
+
+    /**
+     * 获取跨节点的教室锁，本节点内已持有该教室的排队锁
+     * @param timeoutMillis 剩余可等待时间（毫秒）
+     * @return 已获取的分布式锁，超时返回 null
+     */
+    protected abstract DistributedLock acquireDistributed(Long roomId, long timeoutMillis) throws InterruptedException;
+
+    /**
+     * 已获取的分布式锁
+     * @param contended 获取时是否发生等待
+     * @param release 释放操作
+     */
+    protected record DistributedLock(boolean contended, Runnable release) {
+    }
+
+    private ConcurrentModificationException timeout(Long roomId, long startTime, boolean contended) {
+        record(timeoutTimer, startTime, contended);
+        log.warn("等待教室 {} 的锁超时（{}），已等待 {}ms", roomId, providerName,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        return new ConcurrentModificationException("教室正在被其他用户操作，请稍后重试");
+    }
+
+    private void record(Timer timer, long startTime, boolean contended) {
+        timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        if (contended) {
+            contentionCounter.increment();
+        }
+    }
+
+    /**
+     * 本节点内一个教室的排队锁，users 为持有和等待的请求数，只在 ConcurrentHashMap.compute 中修改
+     */
+    private static class RoomQueue {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int users;
+    }
+
+    private static class HeldRoomLock implements RoomLock {
+        private final AbstractRoomLockProvider provider;
+        private final Long roomId;
+        private final RoomQueue queue;
+        private final DistributedLock distributed;
+        private boolean released;
+
+        HeldRoomLock(AbstractRoomLockProvider provider, Long roomId, RoomQueue queue, DistributedLock distributed) {
+            this.provider = provider;
+            this.roomId = roomId;
+            this.queue = queue;
+            this.distributed = distributed;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                distributed.release().run();
+            } catch (Exception e) {
+                log.warn("释放教室锁失败，等待其自然过期: {}", e.getMessage());
+            } finally {
+                provider.release(roomId, queue, true);
+            }
+        }
+    }
+}
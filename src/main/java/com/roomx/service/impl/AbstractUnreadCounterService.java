@@ -0,0 +1,207 @@
+package com.roomx.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.roomx.repository.NotificationRepository;
+import com.roomx.service.UnreadCounterService;
+import com.roomx.websocket.NotificationFanout;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 未读计数服务基类
+ * 统一处理事务提交后生效、向客户端推送变化以及与数据库核对，子类只负责计数的存储和原子更新。
+ * 只有已缓存的用户才会被调整，未缓存的用户在下次读取时从数据库加载；
+ * 加载与调整之间的竞争可能造成短暂偏差，由定期核对修正。
+ * 超过空闲时间未读取或调整的计数被淘汰，核对只检查最近被写入过的用户，开销与活跃用户数相关而不是与历史用户总数相关
+ */
+@Slf4j
+public abstract class AbstractUnreadCounterService implements UnreadCounterService {
+
+    // 每次核对查询的用户数，控制 IN 列表长度
+    private static final int RECONCILE_BATCH = 500;
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationFanout fanout;
+
+    @Value("${roomx.notification.unread-reconcile-ms:300000}")
+    private long reconcileIntervalMillis;
+
+    @Value("${roomx.notification.unread-idle-ttl-ms:1800000}")
+    protected long idleTtlMillis;
+
+    protected AbstractUnreadCounterService(NotificationRepository notificationRepository, NotificationFanout fanout) {
+        this.notificationRepository = notificationRepository;
+        this.fanout = fanout;
+    }
+
+    @Override
+    public long getUnreadCount(Long userId) {
+        Long cached = getCached(userId);
+        if (cached != null) {
+            return cached;
+        }
+        Long count = notificationRepository.countUnreadByUserId(userId);
+        return loadIfAbsent(userId, count != null ? count : 0L);
+    }
+
+    @Override
+    public void adjust(Long userId, long delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            Long value = increment(userId, delta);
+            if (value != null) {
+                push(userId, new UnreadCountChange(value, delta));
+            }
+        });
+    }
+
+    @Override
+    public void reset(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            Long previous = store(userId, 0L);
+            push(userId, new UnreadCountChange(0L, previous != null ? -previous : null));
+        });
+    }
+
+    /**
+     * 定期淘汰空闲计数，并与数据库核对最近被写入过的用户，核对期间发生变化的用户留到下一轮
+     * 核对范围取两个周期，覆盖上一轮开始后、快照前写入的用户
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${roomx.notification.unread-reconcile-ms:300000}",
+            initialDelayString = "${roomx.notification.unread-reconcile-ms:300000}")
+    public void reconcile() {
+        if (!shouldReconcile()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            evictIdle(now - idleTtlMillis);
+            List<Long> userIds = new ArrayList<>(touchedSince(now - 2 * reconcileIntervalMillis));
+            int corrected = 0;
+            for (int from = 0; from < userIds.size(); from += RECONCILE_BATCH) {
+                List<Long> batch = userIds.subList(from, Math.min(from + RECONCILE_BATCH, userIds.size()));
+                Map<Long, Long> cached = new HashMap<>();
+                for (Long userId : batch) {
+                    Long value = peek(userId);
+                    if (value != null) {
+                        cached.put(userId, value);
+                    }
+                }
+                Map<Long, Long> actual = new HashMap<>();
+                for (Object[] row : notificationRepository.countUnreadGroupByUserId(cached.keySet())) {
+                    actual.put((Long) row[0], (Long) row[1]);
+                }
+                for (Map.Entry<Long, Long> entry : cached.entrySet()) {
+                    long expected = entry.getValue();
+                    long count = actual.getOrDefault(entry.getKey(), 0L);
+                    if (expected != count && compareAndSet(entry.getKey(), expected, count)) {
+                        corrected++;
+                        push(entry.getKey(), new UnreadCountChange(count, null));
+                    }
+                }
+            }
+            if (corrected > 0) {
+                log.info("未读数核对完成: 核对 {} 个用户，修正 {} 个", userIds.size(), corrected);
+            }
+        } catch (Exception e) {
+            log.warn("未读数核对失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在事务提交后执行，不在事务中时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runQuietly(action);
+                }
+            });
+        } else {
+            runQuietly(action);
+        }
+    }
+
+    private void runQuietly(Runnable action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            // 计数更新失败不影响业务，偏差由定期核对修正
+            log.warn("更新未读数失败: {}", e.getMessage());
+        }
+    }
+
+    private void push(Long userId, UnreadCountChange change) {
+        try {
+            fanout.publishUnreadCount(userId, change);
+        } catch (Exception e) {
+            log.warn("推送未读数失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 是否由本节点执行核对
+     */
+    protected abstract boolean shouldReconcile();
+
+    /**
+     * 读取已缓存的未读数并刷新其空闲时间，未缓存时返回 null
+     */
+    protected abstract Long getCached(Long userId);
+
+    /**
+     * 读取已缓存的未读数，不刷新空闲时间，供核对使用
+     */
+    protected abstract Long peek(Long userId);
+
+    /**
+     * 未缓存时写入从数据库加载的值
+     * @return 写入后的缓存值（已被其他线程写入时返回其值）
+     */
+    protected abstract long loadIfAbsent(Long userId, long count);
+
+    /**
+     * 仅当已缓存时原子增加，结果小于0时置为0
+     * @return 增加后的值，未缓存时返回 null
+     */
+    protected abstract Long increment(Long userId, long delta);
+
+    /**
+     * 写入未读数
+     * @return 原值，未缓存时返回 null
+     */
+    protected abstract Long store(Long userId, long count);
+
+    /**
+     * 仅当缓存值仍为 expected 时替换为 count，不刷新空闲时间
+     */
+    protected abstract boolean compareAndSet(Long userId, long expected, long count);
+
+    /**
+     * 指定时间之后被加载、调整或写入过的用户ID
+     */
+    protected abstract Collection<Long> touchedSince(long sinceMillis);
+
+    /**
+     * 淘汰指定时间之前最后一次访问的计数
+     */
+    protected abstract void evictIdle(long idleBeforeMillis);
+}
@@ -1,24 +1,41 @@
 package com.roomx.service.impl;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.roomx.constant.enums.ApplicationStatus;
 import com.roomx.constant.enums.RoomStatus;
 import com.roomx.exception.ConcurrentModificationException;
 import com.roomx.model.dto.ApplicationDTO;
 import com.roomx.model.dto.ApplicationQuery;
+import com.roomx.model.dto.BatchApplicationDTO;
+import com.roomx.model.dto.BatchApplicationResultDTO;
 import com.roomx.model.dto.PageResult;
 import com.roomx.model.entity.Application;
 import com.roomx.model.entity.Room;
@@ -27,36 +44,127 @@ import com.roomx.repository.ApplicationRepository;
 import com.roomx.repository.RoomRepository;
 import com.roomx.repository.UserRepository;
 import com.roomx.service.ApplicationService;
+import com.roomx.service.RoomBookingIndexService;
+import com.roomx.service.RoomLockProvider;
+import com.roomx.service.RoomStatusSchedulerService;
+import com.roomx.utils.IntervalIndex;
 import com.roomx.utils.NotificationUtil;
 
 import jakarta.persistence.criteria.Predicate;
 
 @Service
 public class ApplicationServiceImpl implements ApplicationService {
+    
+    // 乐观锁冲突时的重试策略：最多尝试5次，退避时间从20ms开始翻倍，上限200ms，并加入随机抖动
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_BACKOFF_MS = 20;
+    private static final long MAX_BACKOFF_MS = 200;
+    
+    // 单次批量预约最多展开的时间段数量（足够覆盖一学期的每日预约）
+    private static final int MAX_BATCH_SLOTS = 200;
+    
+    private static final String BATCH_INSERT_SQL = "INSERT INTO application "
+        + "(user_id, room_id, username, user_nickname, user_role, room_name, room_location, room_type, room_capacity, "
+        + "crowd, contact, reason, status, expired, create_time, update_time, start_time, end_time, version) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
     private final ApplicationRepository applicationRepository;
     private final UserRepository userRepository;
     private final RoomRepository roomRepository;
     private final NotificationUtil notificationUtil;
-    
-    // 教室级别的锁管理器，用于防止同一教室的并发操作
-    private final java.util.concurrent.ConcurrentHashMap<Long, Lock> roomLocks = new java.util.concurrent.ConcurrentHashMap<>();
+    private final RoomStatusSchedulerService roomStatusSchedulerService;
+    private final RoomBookingIndexService roomBookingIndexService;
+    private final RoomLockProvider roomLockProvider;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final long lockWaitTimeoutMillis;
 
-    public ApplicationServiceImpl(ApplicationRepository applicationRepository, UserRepository userRepository, RoomRepository roomRepository, NotificationUtil notificationUtil) {
+    public ApplicationServiceImpl(ApplicationRepository applicationRepository, UserRepository userRepository, RoomRepository roomRepository, NotificationUtil notificationUtil,
+                                  RoomStatusSchedulerService roomStatusSchedulerService, RoomBookingIndexService roomBookingIndexService,
+                                  RoomLockProvider roomLockProvider, PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate,
+                                  @Value("${roomx.room-lock.wait-timeout-ms:3000}") long lockWaitTimeoutMillis) {
         this.applicationRepository = applicationRepository;
         this.userRepository = userRepository;
         this.roomRepository = roomRepository;
         this.notificationUtil = notificationUtil;
+        this.roomStatusSchedulerService = roomStatusSchedulerService;
+        this.roomBookingIndexService = roomBookingIndexService;
+        this.roomLockProvider = roomLockProvider;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockWaitTimeoutMillis = lockWaitTimeoutMillis;
+    }
+    
+    /**
+     * 查询申请所在教室，用于在开启事务前排队获取教室锁
+     */
+    private Long findRoomIdOf(Long applicationId) {
+        return applicationRepository.findById(applicationId)
+            .map(Application::getRoomId)
+            .orElseThrow(() -> new IllegalArgumentException("申请不存在"));
+    }
+    
+    /**
+     * 在事务中执行写操作，乐观锁冲突时整体回滚并按有限退避重试
+     * 已处于外层事务中时直接加入外层事务，由外层统一重试
+     */
+    private <T> T executeWithRetry(TransactionCallback<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(action);
+        }
+        
+        long backoff = INITIAL_BACKOFF_MS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(action);
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new ConcurrentModificationException("教室正在被其他用户操作，请稍后重试", e);
+                }
+                try {
+                    Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new ConcurrentModificationException("教室正在被其他用户操作，请稍后重试", e);
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+    
+    /**
+     * 占用教室：按读取到的版本号递增教室版本，版本已变化时抛出乐观锁异常触发重试
+     * 成功后本事务持有教室行直到提交，同一教室的其他写操作在此处串行化（跨节点有效），
+     * 并按数据库最新数据刷新该教室的预约区间索引
+     */
+    private void claimRoom(Long roomId) {
+        Long version = roomRepository.findVersionById(roomId)
+            .orElseThrow(() -> new IllegalArgumentException("教室不存在"));
+        if (roomRepository.claimVersion(roomId, version) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Room.class, roomId);
+        }
+        roomBookingIndexService.refreshRoom(roomId);
     }
     
     /**
-     * 获取教室锁
+     * 事务提交后登记申请的下一次状态转换截止时间并更新预约区间索引，避免回滚的变更进入调度队列和索引
      */
-    private Lock getRoomLock(Long roomId) {
-        return roomLocks.computeIfAbsent(roomId, k -> new ReentrantLock());
+    private void publishApplicationChange(Application application) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    roomBookingIndexService.update(application);
+                    roomStatusSchedulerService.scheduleApplication(application);
+                }
+            });
+        } else {
+            roomBookingIndexService.update(application);
+            roomStatusSchedulerService.scheduleApplication(application);
+        }
     }
 
     @Override
-    @Transactional
     public ApplicationDTO apply(ApplicationDTO applicationDTO) {
         // 验证必要字段
         if (applicationDTO.getRoomId() == null) {
@@ -86,90 +194,281 @@ public class ApplicationServiceImpl implements ApplicationService {
             throw new IllegalArgumentException("结束时间必须晚于开始时间");
         }
         
+        // 同一教室的写操作先排队获取教室锁，再在事务中占用教室版本
         Long roomId = applicationDTO.getRoomId();
-        Lock roomLock = getRoomLock(roomId);
-        
-        // 尝试获取教室锁，如果获取失败则抛出并发异常
-        if (!roomLock.tryLock()) {
-            throw new ConcurrentModificationException("教室正在被其他用户操作，请稍后重试");
-        }
-        
-        try {
-            // 获取用户和教室信息
-            User user = userRepository.findById(applicationDTO.getUserId())
-                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
-            Room room = roomRepository.findById(applicationDTO.getRoomId())
-                .orElseThrow(() -> new IllegalArgumentException("教室不存在"));
-            
-            // 在事务中重新检查时间冲突，确保数据一致性
-            if (hasTimeConflict(applicationDTO.getRoomId(), applicationDTO.getStartTime(), applicationDTO.getEndTime(), null)) {
-                throw new IllegalArgumentException("所选时间段与已有预约冲突，请选择其他时间");
-            }
-            
-            Application application = new Application();
-            
-            // 同步用户和教室信息到冗余字段
-            application.syncUserInfo(user);
-            application.syncRoomInfo(room);
-            
-            // 设置申请信息
-            application.setCrowd(applicationDTO.getCrowd());
-            application.setReason(applicationDTO.getReason());
-            application.setStatus(ApplicationStatus.PENDING); // 确保状态为待审批
-            application.setCreateTime(new Date());  // 设置创建时间
-            application.setUpdateTime(new Date());  // 设置更新时间
-            application.setStartTime(applicationDTO.getStartTime());
-            application.setEndTime(applicationDTO.getEndTime());
-            
-            return ApplicationDTO.fromEntity(applicationRepository.save(application));
-        } finally {
-            roomLock.unlock();
+        try (RoomLockProvider.RoomLock roomLock = roomLockProvider.acquire(roomId, lockWaitTimeoutMillis)) {
+            return executeWithRetry(status -> {
+                claimRoom(roomId);
+                
+                // 获取用户和教室信息
+                User user = userRepository.findById(applicationDTO.getUserId())
+                    .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+                Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("教室不存在"));
+                
+                // 在事务中重新检查时间冲突，确保数据一致性
+                if (hasTimeConflict(roomId, applicationDTO.getStartTime(), applicationDTO.getEndTime(), null)) {
+                    throw new IllegalArgumentException("所选时间段与已有预约冲突，请选择其他时间");
+                }
+                
+                Application application = new Application();
+                
+                // 同步用户和教室信息到冗余字段
+                application.syncUserInfo(user);
+                application.syncRoomInfo(room);
+                
+                // 设置申请信息
+                application.setCrowd(applicationDTO.getCrowd());
+                application.setReason(applicationDTO.getReason());
+                application.setStatus(ApplicationStatus.PENDING); // 确保状态为待审批
+                application.setCreateTime(new Date());  // 设置创建时间
+                application.setUpdateTime(new Date());  // 设置更新时间
+                application.setStartTime(applicationDTO.getStartTime());
+                application.setEndTime(applicationDTO.getEndTime());
+                
+                Application savedApplication = applicationRepository.save(application);
+                publishApplicationChange(savedApplication);
+                return ApplicationDTO.fromEntity(savedApplication);
+            });
         }
     }
 
     @Override
-    @Transactional
-    public ApplicationDTO modify(Long applicationId, ApplicationDTO applicationDTO) {
-        Application existingApplication = applicationRepository.findById(applicationId).orElse(null);
-        if (existingApplication == null) {
-            throw new IllegalArgumentException("申请不存在");
+    public BatchApplicationResultDTO applyBatch(BatchApplicationDTO batchApplicationDTO) {
+        // 验证必要字段
+        if (batchApplicationDTO.getRoomId() == null) {
+            throw new IllegalArgumentException("教室ID不能为空");
         }
-        
-        Long roomId = existingApplication.getRoomId();
-        Lock roomLock = getRoomLock(roomId);
-        
-        // 尝试获取教室锁
-        if (!roomLock.tryLock()) {
-            throw new ConcurrentModificationException("教室正在被其他用户操作，请稍后重试");
+        if (batchApplicationDTO.getUserId() == null) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        if (batchApplicationDTO.getReason() == null || batchApplicationDTO.getReason().trim().isEmpty()) {
+            throw new IllegalArgumentException("使用原因不能为空");
         }
+        List<BatchApplicationDTO.TimeSlot> slots = expandSlots(batchApplicationDTO);
         
-        try {
-            // 重新获取申请，确保数据是最新的
-            existingApplication = applicationRepository.findById(applicationId).orElse(null);
-            if (existingApplication == null) {
-                throw new IllegalArgumentException("申请不存在");
+        // 整批只排队获取一次教室锁、占用一次教室版本，冲突检查在内存索引中逐段完成，新申请一次批量插入
+        Long roomId = batchApplicationDTO.getRoomId();
+        try (RoomLockProvider.RoomLock roomLock = roomLockProvider.acquire(roomId, lockWaitTimeoutMillis)) {
+            return executeWithRetry(status -> {
+                claimRoom(roomId);
+                
+                User user = userRepository.findById(batchApplicationDTO.getUserId())
+                    .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+                Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("教室不存在"));
+                
+                BatchApplicationResultDTO result = new BatchApplicationResultDTO();
+                List<Application> accepted = new ArrayList<>();
+                List<BatchApplicationResultDTO.SlotResult> acceptedResults = new ArrayList<>();
+                // 同一批次内的时间段之间也不能重叠
+                IntervalIndex<Integer> batchIndex = new IntervalIndex<>();
+                Date now = new Date();
+                
+                for (int i = 0; i < slots.size(); i++) {
+                    BatchApplicationDTO.TimeSlot slot = slots.get(i);
+                    BatchApplicationResultDTO.SlotResult slotResult = new BatchApplicationResultDTO.SlotResult();
+                    slotResult.setStartTime(slot.getStartTime());
+                    slotResult.setEndTime(slot.getEndTime());
+                    result.getResults().add(slotResult);
+                    
+                    String error = checkSlot(roomId, slot, now, batchIndex);
+                    if (error != null) {
+                        slotResult.setMessage(error);
+                        continue;
+                    }
+                    batchIndex.put(i, slot.getStartTime().getTime(), slot.getEndTime().getTime());
+                    
+                    Application application = new Application();
+                    application.syncUserInfo(user);
+                    application.syncRoomInfo(room);
+                    application.setCrowd(batchApplicationDTO.getCrowd());
+                    application.setContact(batchApplicationDTO.getContact());
+                    application.setReason(batchApplicationDTO.getReason());
+                    application.setStatus(ApplicationStatus.PENDING);
+                    application.setCreateTime(now);
+                    application.setUpdateTime(now);
+                    application.setStartTime(slot.getStartTime());
+                    application.setEndTime(slot.getEndTime());
+                    accepted.add(application);
+                    acceptedResults.add(slotResult);
+                }
+                
+                insertApplications(accepted);
+                for (int i = 0; i < accepted.size(); i++) {
+                    Application application = accepted.get(i);
+                    acceptedResults.get(i).setSuccess(true);
+                    acceptedResults.get(i).setApplicationId(application.getId());
+                    publishApplicationChange(application);
+                }
+                
+                result.setTotal(slots.size());
+                result.setSuccessCount(accepted.size());
+                result.setFailureCount(slots.size() - accepted.size());
+                return result;
+            });
+        }
+    }
+    
+    /**
+     * 展开批量预约的时间段：直接给出的时间段原样返回，重复规则按日/周展开
+     */
+    private List<BatchApplicationDTO.TimeSlot> expandSlots(BatchApplicationDTO batchApplicationDTO) {
+        List<BatchApplicationDTO.TimeSlot> slots = new ArrayList<>();
+        if (batchApplicationDTO.getSlots() != null && !batchApplicationDTO.getSlots().isEmpty()) {
+            slots.addAll(batchApplicationDTO.getSlots());
+        } else if (batchApplicationDTO.getRecurrence() != null) {
+            BatchApplicationDTO.Recurrence recurrence = batchApplicationDTO.getRecurrence();
+            if (recurrence.getStartTime() == null || recurrence.getEndTime() == null) {
+                throw new IllegalArgumentException("重复规则的开始时间和结束时间不能为空");
             }
-            
-            // 检查申请状态
-            if (existingApplication.getStatus() != ApplicationStatus.PENDING) {
-                throw new IllegalArgumentException("只能修改待审批的申请");
+            if (!recurrence.getEndTime().after(recurrence.getStartTime())) {
+                throw new IllegalArgumentException("结束时间必须晚于开始时间");
             }
+            if (recurrence.getCount() == null && recurrence.getUntil() == null) {
+                throw new IllegalArgumentException("重复规则需要指定重复次数或截止日期");
+            }
+            if (recurrence.getCount() != null && recurrence.getCount() <= 0) {
+                throw new IllegalArgumentException("重复次数必须大于0");
+            }
+            if (recurrence.getCount() != null && recurrence.getCount() > MAX_BATCH_SLOTS) {
+                throw new IllegalArgumentException("单次批量预约最多 " + MAX_BATCH_SLOTS + " 个时间段");
+            }
+            int interval = recurrence.getInterval() == null || recurrence.getInterval() < 1 ? 1 : recurrence.getInterval();
+            int field = recurrence.getFrequency() == BatchApplicationDTO.Frequency.DAILY
+                ? Calendar.DAY_OF_MONTH : Calendar.WEEK_OF_YEAR;
+            // 只给出截止日期时最多多展开一个，用于识别超出上限
+            int limit = recurrence.getCount() != null ? recurrence.getCount() : MAX_BATCH_SLOTS + 1;
+            long duration = recurrence.getEndTime().getTime() - recurrence.getStartTime().getTime();
             
-            // 如果修改了时间，需要检查时间冲突
-            if (applicationDTO.getStartTime() != null && applicationDTO.getEndTime() != null) {
-                if (hasTimeConflict(roomId, applicationDTO.getStartTime(), applicationDTO.getEndTime(), applicationId)) {
-                    throw new IllegalArgumentException("修改后的时间段与已有预约冲突");
+            // 按日历字段累加，跨夏令时等情况下仍保持相同的钟点
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(recurrence.getStartTime());
+            while (slots.size() < limit) {
+                Date startTime = cal.getTime();
+                if (recurrence.getUntil() != null && startTime.after(recurrence.getUntil())) {
+                    break;
                 }
+                BatchApplicationDTO.TimeSlot slot = new BatchApplicationDTO.TimeSlot();
+                slot.setStartTime(startTime);
+                slot.setEndTime(new Date(startTime.getTime() + duration));
+                slots.add(slot);
+                cal.add(field, interval);
             }
-            
-            existingApplication.setCrowd(applicationDTO.getCrowd());
-            existingApplication.setReason(applicationDTO.getReason());
-            existingApplication.setUpdateTime(applicationDTO.getUpdateTime());
-            existingApplication.setStartTime(applicationDTO.getStartTime());
-            existingApplication.setEndTime(applicationDTO.getEndTime());     
-            return ApplicationDTO.fromEntity(applicationRepository.save(existingApplication));
-        } finally {
-            roomLock.unlock();
+        }
+        
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("预约时间段不能为空");
+        }
+        if (slots.size() > MAX_BATCH_SLOTS) {
+            throw new IllegalArgumentException("单次批量预约最多 " + MAX_BATCH_SLOTS + " 个时间段");
+        }
+        return slots;
+    }
+    
+    /**
+     * 检查单个时间段，返回失败原因，可以预约时返回null
+     */
+    private String checkSlot(Long roomId, BatchApplicationDTO.TimeSlot slot, Date now, IntervalIndex<Integer> batchIndex) {
+        if (slot == null || slot.getStartTime() == null || slot.getEndTime() == null) {
+            return "开始时间和结束时间不能为空";
+        }
+        if (slot.getStartTime().before(now)) {
+            return "申请开始时间不能早于当前时间";
+        }
+        if (!slot.getEndTime().after(slot.getStartTime())) {
+            return "结束时间必须晚于开始时间";
+        }
+        if (!batchIndex.overlapping(slot.getStartTime().getTime(), slot.getEndTime().getTime()).isEmpty()) {
+            return "与本次提交的其他时间段重叠";
+        }
+        if (hasTimeConflict(roomId, slot.getStartTime(), slot.getEndTime(), null)) {
+            return "所选时间段与已有预约冲突";
+        }
+        return null;
+    }
+    
+    /**
+     * 使用 JDBC 批处理插入新申请并回填自增ID
+     * 自增主键下 Hibernate 不会对插入做批处理，这里直接走当前事务的连接；
+     * 连接参数开启 rewriteBatchedStatements 后整批合并为一条多行 INSERT
+     */
+    private void insertApplications(List<Application> applications) {
+        if (applications.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(BATCH_INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Application application : applications) {
+                    ps.setLong(1, application.getUserId());
+                    ps.setLong(2, application.getRoomId());
+                    ps.setString(3, application.getUsername());
+                    ps.setString(4, application.getUserNickname());
+                    ps.setString(5, application.getUserRole());
+                    ps.setString(6, application.getRoomName());
+                    ps.setString(7, application.getRoomLocation());
+                    ps.setString(8, application.getRoomType());
+                    ps.setObject(9, application.getRoomCapacity());
+                    ps.setObject(10, application.getCrowd());
+                    ps.setString(11, application.getContact());
+                    ps.setString(12, application.getReason());
+                    ps.setString(13, application.getStatus().name());
+                    ps.setBoolean(14, application.getExpired());
+                    ps.setTimestamp(15, new Timestamp(application.getCreateTime().getTime()));
+                    ps.setTimestamp(16, new Timestamp(application.getUpdateTime().getTime()));
+                    ps.setTimestamp(17, new Timestamp(application.getStartTime().getTime()));
+                    ps.setTimestamp(18, new Timestamp(application.getEndTime().getTime()));
+                    ps.setLong(19, application.getVersion());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < applications.size()) {
+                        applications.get(i++).setId(keys.getLong(1));
+                    }
+                    if (i != applications.size()) {
+                        throw new IllegalStateException("批量插入申请后未能获取全部自增ID");
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public ApplicationDTO modify(Long applicationId, ApplicationDTO applicationDTO) {
+        Long roomId = findRoomIdOf(applicationId);
+        try (RoomLockProvider.RoomLock roomLock = roomLockProvider.acquire(roomId, lockWaitTimeoutMillis)) {
+            return executeWithRetry(status -> {
+                claimRoom(roomId);
+                
+                // 占用教室后重新获取申请，确保数据是最新的
+                Application existingApplication = applicationRepository.findById(applicationId)
+                    .orElseThrow(() -> new IllegalArgumentException("申请不存在"));
+                
+                // 检查申请状态
+                if (existingApplication.getStatus() != ApplicationStatus.PENDING) {
+                    throw new IllegalArgumentException("只能修改待审批的申请");
+                }
+                
+                // 如果修改了时间，需要检查时间冲突
+                if (applicationDTO.getStartTime() != null && applicationDTO.getEndTime() != null) {
+                    if (hasTimeConflict(roomId, applicationDTO.getStartTime(), applicationDTO.getEndTime(), applicationId)) {
+                        throw new IllegalArgumentException("修改后的时间段与已有预约冲突");
+                    }
+                }
+                
+                existingApplication.setCrowd(applicationDTO.getCrowd());
+                existingApplication.setReason(applicationDTO.getReason());
+                existingApplication.setUpdateTime(applicationDTO.getUpdateTime());
+                existingApplication.setStartTime(applicationDTO.getStartTime());
+                existingApplication.setEndTime(applicationDTO.getEndTime());     
+                Application savedApplication = applicationRepository.save(existingApplication);
+                publishApplicationChange(savedApplication);
+                return ApplicationDTO.fromEntity(savedApplication);
+            });
         }
     }
 
@@ -294,37 +593,76 @@ public class ApplicationServiceImpl implements ApplicationService {
     }
 
     @Override
-    @Transactional
     public void approve(Long applicationId, String reason) {
-        Application application = applicationRepository.findById(applicationId).orElse(null);
-        if (application == null) {
-            throw new IllegalArgumentException("申请不存在");
-        }
-        
-        Long roomId = application.getRoomId();
-        Lock roomLock = getRoomLock(roomId);
-        
-        // 尝试获取教室锁
-        if (!roomLock.tryLock()) {
-            throw new ConcurrentModificationException("教室正在被其他用户操作，请稍后重试");
+        Long roomId = findRoomIdOf(applicationId);
+        try (RoomLockProvider.RoomLock roomLock = roomLockProvider.acquire(roomId, lockWaitTimeoutMillis)) {
+            executeWithRetry(status -> {
+                claimRoom(roomId);
+                
+                // 占用教室后重新获取申请，确保数据是最新的
+                Application application = applicationRepository.findById(applicationId)
+                    .orElseThrow(() -> new IllegalArgumentException("申请不存在"));
+                
+                // 检查申请状态是否仍然是待审批
+                if (application.getStatus() != ApplicationStatus.PENDING) {
+                    throw new IllegalArgumentException("申请状态已变更，无法审批");
+                }
+                
+                // 同一教室已批准的预约不允许重叠
+                if (hasTimeConflict(roomId, application.getStartTime(), application.getEndTime(), applicationId)) {
+                    throw new IllegalArgumentException("该时间段已有其他已批准的预约，无法审批");
+                }
+                
+                application.setStatus(ApplicationStatus.APPROVED);
+                applicationRepository.save(application);
+                publishApplicationChange(application);
+                
+                // 发送审批通过通知
+                User applicant = userRepository.findById(application.getUserId()).orElse(null);
+                Room room = roomRepository.findById(application.getRoomId()).orElse(null);
+                if (applicant != null && room != null) {
+                    String applicationTitle = String.format("教室「%s」使用申请", room.getName());
+                    notificationUtil.sendApplicationApprovalNotification(
+                        applicant.getId(), 
+                        applicationTitle, 
+                        true, 
+                        reason
+                    );
+                }
+                
+                // 自动驳回时间冲突的待审批申请
+                List<Long> conflictingIds = roomBookingIndexService.findOverlapping(roomId,
+                    application.getStartTime(), application.getEndTime(), EnumSet.of(ApplicationStatus.PENDING), applicationId);
+                
+                // 只加载索引命中的候选申请，跳过索引尚未同步、已不再待审批的申请
+                for (Application otherApplication : applicationRepository.findAllById(conflictingIds)) {
+                    if (otherApplication.getStatus() == ApplicationStatus.PENDING) {
+                        reject(otherApplication.getId(), "时间冲突，自动驳回");
+                    }
+                }
+                return null;
+            });
         }
-        
-        try {
-            // 重新获取申请，确保数据是最新的
-            application = applicationRepository.findById(applicationId).orElse(null);
+    }
+
+    @Override
+    public void reject(Long applicationId, String reason) {
+        executeWithRetry(status -> {
+            Application application = applicationRepository.findById(applicationId).orElse(null);
             if (application == null) {
                 throw new IllegalArgumentException("申请不存在");
             }
             
-            // 检查申请状态是否仍然是待审批
+            // 检查申请状态
             if (application.getStatus() != ApplicationStatus.PENDING) {
-                throw new IllegalArgumentException("申请状态已变更，无法审批");
+                throw new IllegalArgumentException("只能驳回待审批的申请");
             }
             
-            application.setStatus(ApplicationStatus.APPROVED);
+            application.setStatus(ApplicationStatus.REJECTED);
             applicationRepository.save(application);
+            publishApplicationChange(application);
             
-            // 发送审批通过通知
+            // 发送审批驳回通知
             User applicant = userRepository.findById(application.getUserId()).orElse(null);
             Room room = roomRepository.findById(application.getRoomId()).orElse(null);
             if (applicant != null && room != null) {
@@ -332,146 +670,109 @@ public class ApplicationServiceImpl implements ApplicationService {
                 notificationUtil.sendApplicationApprovalNotification(
                     applicant.getId(), 
                     applicationTitle, 
-                    true, 
+                    false, 
                     reason
                 );
             }
-            
-            // 自动驳回时间冲突的待审批申请
-            List<Application> pendingApplications = applicationRepository.findByRoomIdAndStatus(
-                application.getRoomId(), ApplicationStatus.PENDING);
-            
-            for (Application otherApplication : pendingApplications) {
-                if (!otherApplication.getId().equals(applicationId) && 
-                    otherApplication.getStartTime().before(application.getEndTime()) &&
-                    otherApplication.getEndTime().after(application.getStartTime())) {
-                    reject(otherApplication.getId(), "时间冲突，自动驳回");
-                }
-            }
-        } finally {
-            roomLock.unlock();
-        }
-    }
-
-    @Override
-    @Transactional
-    public void reject(Long applicationId, String reason) {
-        Application application = applicationRepository.findById(applicationId).orElse(null);
-        if (application == null) {
-            throw new IllegalArgumentException("申请不存在");
-        }
-        
-        // 检查申请状态
-        if (application.getStatus() != ApplicationStatus.PENDING) {
-            throw new IllegalArgumentException("只能驳回待审批的申请");
-        }
-        
-        application.setStatus(ApplicationStatus.REJECTED);
-        applicationRepository.save(application);
-        
-        // 发送审批驳回通知
-        User applicant = userRepository.findById(application.getUserId()).orElse(null);
-        Room room = roomRepository.findById(application.getRoomId()).orElse(null);
-        if (applicant != null && room != null) {
-            String applicationTitle = String.format("教室「%s」使用申请", room.getName());
-            notificationUtil.sendApplicationApprovalNotification(
-                applicant.getId(), 
-                applicationTitle, 
-                false, 
-                reason
-            );
-        }
+            return null;
+        });
     }
 
 
     @Override
-    @Transactional
     public void cancel(Long applicationId, String reason) {
-        Application application = applicationRepository.findById(applicationId).orElse(null);
-        if (application == null) {
-            throw new IllegalArgumentException("申请不存在");
-        }
-        
-        // 检查申请状态，现在支持更多状态的取消
-        if (application.getStatus() != ApplicationStatus.PENDING && 
-            application.getStatus() != ApplicationStatus.APPROVED &&
-            application.getStatus() != ApplicationStatus.PENDING_CHECKIN &&
-            application.getStatus() != ApplicationStatus.IN_USE) {
-            throw new IllegalArgumentException("只能取消待审批、已批准、待签到或使用中的申请");
-        }
-        
-        // 根据当前状态执行不同的取消逻辑
-        if (application.getStatus() == ApplicationStatus.PENDING_CHECKIN) {
-            // 待签到状态下取消，执行未签到逻辑
-            application.setExpired(true);
-            application.setStatus(ApplicationStatus.CANCELLED);
+        executeWithRetry(status -> {
+            Application application = applicationRepository.findById(applicationId).orElse(null);
+            if (application == null) {
+                throw new IllegalArgumentException("申请不存在");
+            }
             
-            // 如果教室当前状态是预约中且只有这一个申请，则将教室状态恢复为可用
-            Room room = roomRepository.findById(application.getRoomId()).orElse(null);
-            if (room != null && room.getStatus() == RoomStatus.RESERVED) {
-                // 检查是否还有其他待签到的申请
-                List<Application> otherPendingCheckinApps = applicationRepository
-                    .findByRoomIdAndStatus(application.getRoomId(), ApplicationStatus.PENDING_CHECKIN)
-                    .stream()
-                    .filter(app -> !app.getId().equals(applicationId))
-                    .toList();
+            // 检查申请状态，现在支持更多状态的取消
+            if (application.getStatus() != ApplicationStatus.PENDING && 
+                application.getStatus() != ApplicationStatus.APPROVED &&
+                application.getStatus() != ApplicationStatus.PENDING_CHECKIN &&
+                application.getStatus() != ApplicationStatus.IN_USE) {
+                throw new IllegalArgumentException("只能取消待审批、已批准、待签到或使用中的申请");
+            }
+            
+            // 根据当前状态执行不同的取消逻辑
+            if (application.getStatus() == ApplicationStatus.PENDING_CHECKIN) {
+                // 待签到状态下取消，执行未签到逻辑
+                application.setExpired(true);
+                application.setStatus(ApplicationStatus.CANCELLED);
+            
+                // 如果教室当前状态是预约中且只有这一个申请，则将教室状态恢复为可用
+                Room room = roomRepository.findById(application.getRoomId()).orElse(null);
+                if (room != null && room.getStatus() == RoomStatus.RESERVED) {
+                    // 检查是否还有其他待签到的申请
+                    List<Application> otherPendingCheckinApps = applicationRepository
+                        .findByRoomIdAndStatus(application.getRoomId(), ApplicationStatus.PENDING_CHECKIN)
+                        .stream()
+                        .filter(app -> !app.getId().equals(applicationId))
+                        .toList();
                 
-                if (otherPendingCheckinApps.isEmpty()) {
-                    room.setStatus(RoomStatus.AVAILABLE);
+                    if (otherPendingCheckinApps.isEmpty()) {
+                        room.setStatus(RoomStatus.AVAILABLE);
+                        room.setUpdateTime(new Date());
+                        roomRepository.save(room);
+                    }
+                }
+            } else if (application.getStatus() == ApplicationStatus.IN_USE) {
+                // 使用中状态下取消，执行完成使用逻辑
+                application.setStatus(ApplicationStatus.COMPLETED);
+            
+                // 更新教室状态为需要清洁
+                Room room = roomRepository.findById(application.getRoomId()).orElse(null);
+                if (room != null) {
+                    room.setStatus(RoomStatus.PENDING_CLEANING);
                     room.setUpdateTime(new Date());
                     roomRepository.save(room);
                 }
+            } else {
+                // 其他状态（PENDING、APPROVED）正常取消
+                application.setStatus(ApplicationStatus.CANCELLED);
             }
-        } else if (application.getStatus() == ApplicationStatus.IN_USE) {
-            // 使用中状态下取消，执行完成使用逻辑
-            application.setStatus(ApplicationStatus.COMPLETED);
             
-            // 更新教室状态为需要清洁
-            Room room = roomRepository.findById(application.getRoomId()).orElse(null);
-            if (room != null) {
-                room.setStatus(RoomStatus.PENDING_CLEANING);
-                room.setUpdateTime(new Date());
-                roomRepository.save(room);
-            }
-        } else {
-            // 其他状态（PENDING、APPROVED）正常取消
-            application.setStatus(ApplicationStatus.CANCELLED);
-        }
-        
-        applicationRepository.save(application);
+            applicationRepository.save(application);
+            publishApplicationChange(application);
+            return null;
+        });
     }
 
     @Override
-    @Transactional
     public void checkin(Long applicationId) {
-        Application application = applicationRepository.findById(applicationId).orElse(null);
-        if (application == null) {
-            throw new IllegalArgumentException("申请不存在");
-        }
-        
-        // 检查申请状态，只有待签到状态才能签到
-        if (application.getStatus() != ApplicationStatus.PENDING_CHECKIN) {
-            throw new IllegalArgumentException("只能签到待签到状态的申请");
-        }
-        
-        // 检查是否在预约时间内
-        Date now = new Date();
-        if (now.before(application.getStartTime())) {
-            throw new IllegalArgumentException("还未到预约开始时间，无法签到");
-        }
-        
-        // 设置签到时间并更新状态为使用中
-        application.setCheckinTime(now);
-        application.setStatus(ApplicationStatus.IN_USE);
-        
-        // 同时更新教室状态为使用中
-        Room room = application.getRoom();
-        if (room != null) {
-            room.setStatus(com.roomx.constant.enums.RoomStatus.USING);
-            roomRepository.save(room);
-        }
-        
-        applicationRepository.save(application);
+        executeWithRetry(status -> {
+            Application application = applicationRepository.findById(applicationId).orElse(null);
+            if (application == null) {
+                throw new IllegalArgumentException("申请不存在");
+            }
+            
+            // 检查申请状态，只有待签到状态才能签到
+            if (application.getStatus() != ApplicationStatus.PENDING_CHECKIN) {
+                throw new IllegalArgumentException("只能签到待签到状态的申请");
+            }
+            
+            // 检查是否在预约时间内
+            Date now = new Date();
+            if (now.before(application.getStartTime())) {
+                throw new IllegalArgumentException("还未到预约开始时间，无法签到");
+            }
+            
+            // 设置签到时间并更新状态为使用中
+            application.setCheckinTime(now);
+            application.setStatus(ApplicationStatus.IN_USE);
+            
+            // 同时更新教室状态为使用中
+            Room room = application.getRoom();
+            if (room != null) {
+                room.setStatus(com.roomx.constant.enums.RoomStatus.USING);
+                roomRepository.save(room);
+            }
+            
+            applicationRepository.save(application);
+            publishApplicationChange(application);
+            return null;
+        });
     }
 
     @Override
@@ -486,24 +787,9 @@ public class ApplicationServiceImpl implements ApplicationService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public boolean hasTimeConflict(Long roomId, Date startTime, Date endTime, Long excludeApplicationId) {
-        // 使用数据库级别的锁来确保查询的一致性
-        List<Application> approvedApplications = applicationRepository.findByRoomIdAndStatusAndEndTimeAfter(
-            roomId, ApplicationStatus.APPROVED, new Date());
-        
-        for (Application application : approvedApplications) {
-            // 排除指定的申请（用于修改时检查）
-            if (application.getId().equals(excludeApplicationId)) {
-                continue;
-            }
-            
-            // 检查时间重叠
-            if (startTime.before(application.getEndTime()) && endTime.after(application.getStartTime())) {
-                return true;
-            }
-        }
-        return false;
+        // 查询内存中的预约区间索引，不访问数据库
+        return roomBookingIndexService.hasConflict(roomId, startTime, endTime, excludeApplicationId);
     }
 
 } 
\ No newline at end of file
@@ -11,45 +11,57 @@ import com.roomx.model.dto.UserLoginDTO;
 import com.roomx.model.dto.UserRegisterDTO;
 import com.roomx.model.dto.UserTokenDTO;
 import com.roomx.model.dto.UserUpdatePasswordDTO;
+import com.roomx.exception.ServiceOverloadedException;
 import com.roomx.model.entity.User;
 import com.roomx.repository.UserRepository;
+import com.roomx.security.AuthenticatedUser;
+import com.roomx.security.CurrentUserContext;
 import com.roomx.service.AuthService;
+import com.roomx.service.PasswordHashService;
 import com.roomx.service.TemporaryTokenService;
 import com.roomx.service.UserSessionService;
 import com.roomx.utils.DateUtil;
 import com.roomx.utils.EnhancedJwtUtil;
-import com.roomx.utils.PasswordEncoderUtil;
 import com.roomx.utils.PasswordStrengthUtil;
+import com.roomx.utils.TokenClaims;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final UserSessionService userSessionService;
     private final TemporaryTokenService temporaryTokenService;
+    private final PasswordHashService passwordHashService;
 
     public AuthServiceImpl(UserRepository userRepository, UserSessionService userSessionService, 
-                          TemporaryTokenService temporaryTokenService) {
+                          TemporaryTokenService temporaryTokenService, PasswordHashService passwordHashService) {
         this.userRepository = userRepository;
         this.userSessionService = userSessionService;
         this.temporaryTokenService = temporaryTokenService;
+        this.passwordHashService = passwordHashService;
     }
 
     @Override
     public UserTokenDTO login(UserLoginDTO userLoginDTO) {
         User user = userRepository.findByUsername(userLoginDTO.getUsername());
-        if (user != null && PasswordEncoderUtil.matches(userLoginDTO.getPassword(), user.getPassword())) {
+        if (user != null && passwordHashService.matches(userLoginDTO.getPassword(), user.getPassword())) {
             // 生成新的会话ID
             String sessionId = userSessionService.generateSessionId(user.getUsername());
             
             // 使用增强的JWT工具生成包含会话ID的token
-            String token = EnhancedJwtUtil.generateToken(user.getUsername(), user.getRole(), sessionId);
+            String token = EnhancedJwtUtil.generateToken(user.getUsername(), user.getId(), user.getRole(), sessionId);
             
             // 更新用户最后登录时间 - 使用DateUtil确保时间一致性
             Date loginTime = DateUtil.getCurrentUTCTime();
-            System.out.println("用户 " + user.getUsername() + " 登录时间: " + DateUtil.formatUTC(loginTime));
+            log.debug("用户 {} 登录时间: {}", user.getUsername(), DateUtil.formatUTC(loginTime));
             user.setLastLoginTime(loginTime);
+            rehashIfNeeded(user, userLoginDTO.getPassword());
             userRepository.save(user);
             
             return UserTokenDTO.fromLogin(user, token, sessionId);
@@ -72,7 +84,7 @@ public class AuthServiceImpl implements AuthService {
         user.setUsername(userRegisterDTO.getUsername());
     // 密码强度校验
     PasswordStrengthUtil.validateOrThrow(userRegisterDTO.getPassword());
-    user.setPassword(PasswordEncoderUtil.encode(userRegisterDTO.getPassword()));
+    user.setPassword(passwordHashService.encode(userRegisterDTO.getPassword()));
         user.setNickname(userRegisterDTO.getNickname());
         user.setEmail(userRegisterDTO.getEmail());
         user.setPhone(userRegisterDTO.getPhone());
@@ -133,7 +145,7 @@ public class AuthServiceImpl implements AuthService {
         
         // 生成会话ID和token
         String sessionId = userSessionService.generateSessionId(user.getUsername());
-        String token = EnhancedJwtUtil.generateToken(user.getUsername(), user.getRole(), sessionId);
+        String token = EnhancedJwtUtil.generateToken(user.getUsername(), user.getId(), user.getRole(), sessionId);
         
         return UserTokenDTO.fromLogin(user, token, sessionId);
     }
@@ -159,12 +171,12 @@ public class AuthServiceImpl implements AuthService {
         if (user == null) {
             return 1; // 用户不存在
         }
-        if (!PasswordEncoderUtil.matches(userUpdatePasswordDTO.getOldPassword(), user.getPassword())) {
+        if (!passwordHashService.matches(userUpdatePasswordDTO.getOldPassword(), user.getPassword())) {
             return 2; // 旧密码错误
         }
     // 新密码强度校验
     PasswordStrengthUtil.validateOrThrow(userUpdatePasswordDTO.getNewPassword());
-    user.setPassword(PasswordEncoderUtil.encode(userUpdatePasswordDTO.getNewPassword()));
+    user.setPassword(passwordHashService.encode(userUpdatePasswordDTO.getNewPassword()));
         userRepository.save(user);
         
         // 密码更新后，使所有会话失效，强制重新登录
@@ -180,7 +192,7 @@ public class AuthServiceImpl implements AuthService {
             throw new IllegalArgumentException("用户不存在");
         }
         
-        if (!PasswordEncoderUtil.matches(password, user.getPassword())) {
+        if (!passwordHashService.matches(password, user.getPassword())) {
             throw new IllegalArgumentException("密码验证失败");
         }
         
@@ -202,18 +214,29 @@ public class AuthServiceImpl implements AuthService {
         }
         
         String currentUsername = authentication.getName();
-        User currentUser = userRepository.findByUsername(currentUsername);
-        if (currentUser == null) {
-            throw new IllegalArgumentException("当前用户不存在");
+        Long currentUserId;
+        UserRole currentRole;
+        AuthenticatedUser principal = CurrentUserContext.get();
+        if (principal != null && principal.userId() != null) {
+            // token 携带用户ID和角色，与权限切面一致以 token 为准
+            currentUserId = principal.userId();
+            currentRole = principal.role();
+        } else {
+            User currentUser = userRepository.findByUsername(currentUsername);
+            if (currentUser == null) {
+                throw new IllegalArgumentException("当前用户不存在");
+            }
+            currentUserId = currentUser.getId();
+            currentRole = currentUser.getRole();
         }
         
         // 检查是否有管理员权限
-        if (currentUser.getRole() != UserRole.ADMIN) {
+        if (currentRole != UserRole.ADMIN) {
             throw new IllegalArgumentException("只有管理员可以删除用户");
         }
         
         // 判断是否删除自己
-        boolean isDeletingSelf = user.getId().equals(currentUser.getId());
+        boolean isDeletingSelf = user.getId().equals(currentUserId);
         
         if (isDeletingSelf) {
             // 删除自己时，必须提供有效的验证令牌
@@ -250,6 +273,22 @@ public class AuthServiceImpl implements AuthService {
         userRepository.delete(user);
     }
 
+    /**
+     * 登录成功后，密码哈希的计算强度与当前配置不一致时用明文密码重新加密
+     * 哈希线程池繁忙时跳过，下次登录再处理，不影响本次登录
+     */
+    private void rehashIfNeeded(User user, String rawPassword) {
+        if (!passwordHashService.needsRehash(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(passwordHashService.encode(rawPassword));
+            log.info("用户 {} 的密码已按新的计算强度重新加密", user.getUsername());
+        } catch (ServiceOverloadedException e) {
+            log.warn("密码哈希繁忙，跳过用户 {} 的重新加密", user.getUsername());
+        }
+    }
+
     /**
      * 验证token和会话是否有效
      * @param token JWT token
@@ -257,15 +296,22 @@ public class AuthServiceImpl implements AuthService {
      */
     public TokenValidationResult validateTokenAndSession(String token) {
         try {
-            // 验证token格式和签名
-            if (!EnhancedJwtUtil.validateToken(token)) {
+            // 一次解析并验证token，得到全部声明
+            TokenClaims claims;
+            try {
+                claims = EnhancedJwtUtil.parseAndVerify(token);
+            } catch (ExpiredJwtException e) {
+                return new TokenValidationResult(false, "登录已过期，请重新登录", null, null);
+            } catch (JwtException | IllegalArgumentException e) {
                 return new TokenValidationResult(false, "Token格式无效", null, null);
             }
+            if (claims.isExpired(System.currentTimeMillis())) {
+                return new TokenValidationResult(false, "登录已过期，请重新登录", null, null);
+            }
             
-            // 从token中获取用户信息
-            String username = EnhancedJwtUtil.getUsernameFromToken(token);
-            String sessionId = EnhancedJwtUtil.getSessionIdFromToken(token);
-            UserRole role = EnhancedJwtUtil.getRoleFromToken(token);
+            String username = claims.username();
+            String sessionId = claims.sessionId();
+            UserRole role = claims.role();
             
             if (username == null || sessionId == null) {
                 return new TokenValidationResult(false, "Token缺少必要信息", null, null);
@@ -281,7 +327,7 @@ public class AuthServiceImpl implements AuthService {
                 return new TokenValidationResult(false, "账号在其他地方登录，当前会话已失效", username, role);
             }
             
-            return new TokenValidationResult(true, "验证成功", username, role);
+            return new TokenValidationResult(new AuthenticatedUser(username, claims.userId(), role, sessionId));
             
         } catch (Exception e) {
             return new TokenValidationResult(false, "Token验证失败: " + e.getMessage(), null, null);
@@ -297,12 +343,23 @@ public class AuthServiceImpl implements AuthService {
         private final String message;
         private final String username;
         private final UserRole role;
+        // 验证成功时的已认证用户，失败时为null
+        private final AuthenticatedUser principal;
 
         public TokenValidationResult(boolean valid, String message, String username, UserRole role) {
             this.valid = valid;
             this.message = message;
             this.username = username;
             this.role = role;
+            this.principal = null;
+        }
+
+        public TokenValidationResult(AuthenticatedUser principal) {
+            this.valid = true;
+            this.message = "验证成功";
+            this.username = principal.username();
+            this.role = principal.role();
+            this.principal = principal;
         }
 
     }
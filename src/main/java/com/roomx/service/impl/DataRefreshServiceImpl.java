@@ -12,7 +12,6 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.roomx.constant.enums.ApplicationStatus;
-import com.roomx.constant.enums.RoomStatus;
 import com.roomx.model.entity.Application;
 import com.roomx.model.entity.FootPrint;
 import com.roomx.model.entity.Room;
@@ -22,6 +21,8 @@ import com.roomx.repository.FootPrintRepository;
 import com.roomx.repository.RoomRepository;
 import com.roomx.repository.UserRepository;
 import com.roomx.service.DataRefreshService;
+import com.roomx.service.RoomStatusSchedulerService;
+import com.roomx.service.SchedulerPartitionService;
 
 @Service
 public class DataRefreshServiceImpl implements DataRefreshService {
@@ -40,6 +41,12 @@ public class DataRefreshServiceImpl implements DataRefreshService {
     @Autowired
     private FootPrintRepository footPrintRepository;
     
+    @Autowired
+    private SchedulerPartitionService partitionService;
+    
+    @Autowired
+    private RoomStatusSchedulerService roomStatusSchedulerService;
+    
     // 缓存存储
     private final ConcurrentHashMap<String, Object> cache = new ConcurrentHashMap<>();
     private final AtomicLong lastRefreshTime = new AtomicLong(0);
@@ -205,45 +212,10 @@ public class DataRefreshServiceImpl implements DataRefreshService {
     
     /**
      * 更新教室状态
+     * 委托给调度服务的批量计算：分区条件在 SQL 中执行，每轮只做固定次数的范围查询
      */
     private void updateRoomStatus() {
-        try {
-            List<Room> rooms = roomRepository.findAll();
-            Date now = new Date();
-            int updatedCount = 0;
-            
-            for (Room room : rooms) {
-                boolean needsUpdate = false;
-                
-                // 检查是否有正在进行的申请
-                List<Application> activeApplications = applicationRepository.findAll().stream()
-                    .filter(app -> app.getRoom().getId().equals(room.getId()))
-                    .filter(app -> app.getStatus() == ApplicationStatus.APPROVED)
-                    .filter(app -> app.getStartTime() != null && app.getEndTime() != null)
-                    .filter(app -> app.getStartTime().before(now) && app.getEndTime().after(now))
-                    .toList();
-                
-                if (!activeApplications.isEmpty() && room.getStatus() != RoomStatus.USING) {
-                    room.setStatus(RoomStatus.USING);
-                    needsUpdate = true;
-                } else if (activeApplications.isEmpty() && room.getStatus() == RoomStatus.USING) {
-                    room.setStatus(RoomStatus.AVAILABLE);
-                    needsUpdate = true;
-                }
-                
-                if (needsUpdate) {
-                    roomRepository.save(room);
-                    updatedCount++;
-                }
-            }
-            
-            if (updatedCount > 0) {
-                logger.info("更新了 {} 个教室的状态", updatedCount);
-            }
-            
-        } catch (Exception e) {
-            logger.error("更新教室状态失败", e);
-        }
+        roomStatusSchedulerService.updateRoomStatuses();
     }
     
     /**
@@ -295,9 +267,14 @@ public class DataRefreshServiceImpl implements DataRefreshService {
     
     /**
      * 每2小时清理一次过期数据（从1小时调整为2小时）
+     * 多实例部署时只由持有0号调度分区的节点执行，缓存刷新仍在每个节点本地执行
      */
     @Scheduled(fixedRate = 7200000) // 2小时
     public void scheduledCleanupExpiredData() {
+        if (!partitionService.isLeader()) {
+            logger.debug("本节点不负责全局清理任务，跳过过期数据清理");
+            return;
+        }
         logger.debug("执行定时任务：清理过期数据");
         cleanupExpiredData();
     }
@@ -0,0 +1,87 @@
+package com.roomx.service.impl;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import com.roomx.model.entity.SchedulerLease;
+import com.roomx.repository.SchedulerLeaseRepository;
+import com.roomx.service.SchedulerLeaseStore;
+
+/**
+ * 基于 MySQL scheduler_lease 表的租约存储
+ * 所有获取、续约、释放都是带持有者条件的单条 UPDATE，由数据库保证原子性；
+ * 过期时间按数据库时间计算，不使用各节点的本地时钟
+ */
+@Service
+@ConditionalOnExpression("${roomx.scheduler.cluster.enabled:false} and !${redis.enabled:false}")
+public class DatabaseSchedulerLeaseStore implements SchedulerLeaseStore {
+
+    private static final String NODE_PREFIX = "node:";
+    private static final String PARTITION_PREFIX = "partition:";
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Override
+    public void heartbeat(String nodeId, long ttlMillis) {
+        String leaseKey = NODE_PREFIX + nodeId;
+        if (leaseRepository.tryAcquire(leaseKey, nodeId, ttlMillis) == 0) {
+            leaseRepository.insertIfAbsent(leaseKey);
+            leaseRepository.tryAcquire(leaseKey, nodeId, ttlMillis);
+        }
+        // 顺便清理早已下线节点的心跳记录
+        leaseRepository.deleteExpired(NODE_PREFIX, 10 * ttlMillis);
+    }
+
+    @Override
+    public int countLiveNodes() {
+        return (int) leaseRepository.countLive(NODE_PREFIX);
+    }
+
+    @Override
+    public Set<Integer> renew(String nodeId, Set<Integer> partitions, long ttlMillis) {
+        if (partitions.isEmpty()) {
+            return Set.of();
+        }
+
+        Map<String, Integer> partitionsByKey = new HashMap<>();
+        for (Integer partition : partitions) {
+            partitionsByKey.put(PARTITION_PREFIX + partition, partition);
+        }
+
+        leaseRepository.renew(partitionsByKey.keySet(), nodeId, ttlMillis);
+
+        Set<Integer> renewed = new HashSet<>();
+        for (SchedulerLease lease : leaseRepository.findLiveByOwner(partitionsByKey.keySet(), nodeId)) {
+            renewed.add(partitionsByKey.get(lease.getLeaseKey()));
+        }
+        return renewed;
+    }
+
+    @Override
+    public boolean tryAcquire(int partition, String nodeId, long ttlMillis) {
+        String leaseKey = PARTITION_PREFIX + partition;
+        if (leaseRepository.tryAcquire(leaseKey, nodeId, ttlMillis) > 0) {
+            return true;
+        }
+        // 首次使用该分区时记录尚不存在
+        return leaseRepository.insertIfAbsent(leaseKey) > 0
+            && leaseRepository.tryAcquire(leaseKey, nodeId, ttlMillis) > 0;
+    }
+
+    @Override
+    public void release(int partition, String nodeId) {
+        leaseRepository.release(PARTITION_PREFIX + partition, nodeId);
+    }
+
+    @Override
+    public void removeNode(String nodeId) {
+        leaseRepository.deleteById(NODE_PREFIX + nodeId);
+    }
+}
@@ -0,0 +1,140 @@
+package com.roomx.service.impl;
+
+import java.net.InetAddress;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.roomx.service.SchedulerLeaseStore;
+import com.roomx.service.SchedulerPartitionService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于租约的调度分区服务
+ * 每个节点定期登记心跳并续约已持有的分区，按存活节点数计算应持有的分区数（向上取整），
+ * 多出的分区主动释放，不足时获取无人持有或租约已过期的分区。
+ * 节点宕机后其租约在有效期后过期，由其他节点在下一轮续约时接管。
+ * 节点标识在每个实例中独立生成，同一 JVM 内的多个应用上下文互不影响。
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "roomx.scheduler.cluster.enabled", havingValue = "true")
+public class LeaseSchedulerPartitionService implements SchedulerPartitionService {
+
+    @Autowired
+    private SchedulerLeaseStore leaseStore;
+
+    @Value("${roomx.scheduler.cluster.partitions:16}")
+    private int partitionCount;
+
+    @Value("${roomx.scheduler.cluster.lease-ttl-ms:30000}")
+    private long leaseTtlMillis;
+
+    @Value("${roomx.scheduler.cluster.node-id:}")
+    private String configuredNodeId;
+
+    private String nodeId;
+
+    // 已持有的分区及租约在本地视角下的有效期
+    private volatile Set<Integer> ownedPartitions = Set.of();
+    private volatile long leaseValidUntil = 0;
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId == null || configuredNodeId.isBlank() ? generateNodeId() : configuredNodeId;
+        log.info("调度分区服务启动，节点 {}，分区数 {}，租约有效期 {}ms", nodeId, partitionCount, leaseTtlMillis);
+        rebalance();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Set<Integer> partitions = ownedPartitions;
+        ownedPartitions = Set.of();
+        leaseValidUntil = 0;
+        try {
+            for (Integer partition : partitions) {
+                leaseStore.release(partition, nodeId);
+            }
+            leaseStore.removeNode(nodeId);
+            log.info("节点 {} 已释放 {} 个调度分区", nodeId, partitions.size());
+        } catch (Exception e) {
+            log.warn("节点 {} 释放调度分区失败，等待租约自然过期: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 登记心跳、续约并按存活节点数重新平衡分区
+     */
+    @Scheduled(fixedDelayString = "${roomx.scheduler.cluster.renew-interval-ms:10000}")
+    public void rebalance() {
+        long startTime = System.currentTimeMillis();
+        try {
+            leaseStore.heartbeat(nodeId, leaseTtlMillis);
+            TreeSet<Integer> owned = new TreeSet<>(leaseStore.renew(nodeId, ownedPartitions, leaseTtlMillis));
+
+            int liveNodes = Math.max(1, leaseStore.countLiveNodes());
+            int target = (partitionCount + liveNodes - 1) / liveNodes;
+
+            if (owned.size() > target) {
+                // 释放编号最大的多余分区，交给新加入的节点
+                while (owned.size() > target) {
+                    leaseStore.release(owned.pollLast(), nodeId);
+                }
+            } else if (owned.size() < target) {
+                // 从按节点标识散列的位置开始尝试，减少多个节点争抢同一分区
+                int offset = Math.floorMod(nodeId.hashCode(), partitionCount);
+                for (int i = 0; i < partitionCount && owned.size() < target; i++) {
+                    int partition = (offset + i) % partitionCount;
+                    if (!owned.contains(partition) && leaseStore.tryAcquire(partition, nodeId, leaseTtlMillis)) {
+                        owned.add(partition);
+                    }
+                }
+            }
+
+            Set<Integer> previous = ownedPartitions;
+            ownedPartitions = Set.copyOf(owned);
+            leaseValidUntil = startTime + leaseTtlMillis;
+
+            if (!previous.equals(ownedPartitions)) {
+                log.info("节点 {} 持有的调度分区变更为 {}（存活节点 {} 个）", nodeId, owned, liveNodes);
+            }
+        } catch (Exception e) {
+            log.error("节点 {} 续约调度分区失败: {}", nodeId, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    @Override
+    public Set<Integer> getOwnedPartitions() {
+        // 续约失败超过租约有效期后，其他节点可能已接管，本节点不再认为持有任何分区
+        return System.currentTimeMillis() < leaseValidUntil ? ownedPartitions : Set.of();
+    }
+
+    private String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
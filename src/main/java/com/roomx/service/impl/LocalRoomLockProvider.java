@@ -0,0 +1,27 @@
+package com.roomx.service.impl;
+
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 单节点教室锁：只使用本节点按教室的公平锁
+ * 多实例部署时跨节点的并发写由教室版本号兜底
+ */
+@Service
+@ConditionalOnProperty(name = "roomx.room-lock.provider", havingValue = "local", matchIfMissing = true)
+public class LocalRoomLockProvider extends AbstractRoomLockProvider {
+
+    private static final Runnable NO_OP = () -> { };
+
+    public LocalRoomLockProvider(MeterRegistry meterRegistry) {
+        super(meterRegistry, "local");
+    }
+
+    @Override
+    protected DistributedLock acquireDistributed(Long roomId, long timeoutMillis) {
+        return new DistributedLock(false, NO_OP);
+    }
+}
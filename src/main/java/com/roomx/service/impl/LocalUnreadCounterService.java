@@ -0,0 +1,111 @@
+package com.roomx.service.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.roomx.repository.NotificationRepository;
+import com.roomx.websocket.NotificationFanout;
+
+/**
+ * 基于本地内存的未读计数
+ * 计数保存在分段加锁的 ConcurrentHashMap 中，每个用户一个原子计数器，并记录最后访问和写入时间；
+ * 核对时淘汰空闲的计数，淘汰与调整同时发生时调整丢失，下次读取从数据库重新加载。
+ * 未启用 Redis 时使用，每个节点各自核对
+ */
+@Service
+@ConditionalOnProperty(name = "redis.enabled", havingValue = "false", matchIfMissing = true)
+public class LocalUnreadCounterService extends AbstractUnreadCounterService {
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public LocalUnreadCounterService(NotificationRepository notificationRepository, NotificationFanout fanout) {
+        super(notificationRepository, fanout);
+    }
+
+    @Override
+    protected boolean shouldReconcile() {
+        return true;
+    }
+
+    @Override
+    protected Long getCached(Long userId) {
+        Counter counter = counters.get(userId);
+        if (counter == null) {
+            return null;
+        }
+        counter.lastAccess = System.currentTimeMillis();
+        return counter.value.get();
+    }
+
+    @Override
+    protected Long peek(Long userId) {
+        Counter counter = counters.get(userId);
+        return counter != null ? counter.value.get() : null;
+    }
+
+    @Override
+    protected long loadIfAbsent(Long userId, long count) {
+        return counters.computeIfAbsent(userId, k -> new Counter(count)).value.get();
+    }
+
+    @Override
+    protected Long increment(Long userId, long delta) {
+        Counter counter = counters.get(userId);
+        if (counter == null) {
+            return null;
+        }
+        counter.touch();
+        return counter.value.accumulateAndGet(delta, (value, d) -> Math.max(0, value + d));
+    }
+
+    @Override
+    protected Long store(Long userId, long count) {
+        Counter previous = counters.putIfAbsent(userId, new Counter(count));
+        if (previous == null) {
+            return null;
+        }
+        previous.touch();
+        return previous.value.getAndSet(count);
+    }
+
+    @Override
+    protected boolean compareAndSet(Long userId, long expected, long count) {
+        Counter counter = counters.get(userId);
+        return counter != null && counter.value.compareAndSet(expected, count);
+    }
+
+    @Override
+    protected Collection<Long> touchedSince(long sinceMillis) {
+        return counters.entrySet().stream()
+            .filter(entry -> entry.getValue().lastWrite >= sinceMillis)
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    @Override
+    protected void evictIdle(long idleBeforeMillis) {
+        counters.values().removeIf(counter -> counter.lastAccess < idleBeforeMillis);
+    }
+
+    private static final class Counter {
+        private final AtomicLong value;
+        private volatile long lastAccess;
+        private volatile long lastWrite;
+
+        Counter(long value) {
+            this.value = new AtomicLong(value);
+            touch();
+        }
+
+        void touch() {
+            long now = System.currentTimeMillis();
+            lastAccess = now;
+            lastWrite = now;
+        }
+    }
+}
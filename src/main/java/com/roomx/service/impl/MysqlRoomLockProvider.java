@@ -0,0 +1,110 @@
+package com.roomx.service.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Service;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于 MySQL GET_LOCK 咨询锁的教室锁
+ * 咨询锁绑定在数据库连接上，持有期间占用一个连接；锁在事务开始前获取，
+ * 因此使用独立的小连接池，避免持锁请求与其事务争用业务连接池而互相等待。
+ * 本节点内已按教室排队，每个教室最多一个连接在 GET_LOCK 上等待
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "roomx.room-lock.provider", havingValue = "mysql")
+public class MysqlRoomLockProvider extends AbstractRoomLockProvider {
+
+    private static final String LOCK_NAME_PREFIX = "roomx:room:";
+
+    private final HikariDataSource dataSource;
+
+    public MysqlRoomLockProvider(MeterRegistry meterRegistry, DataSourceProperties dataSourceProperties,
+                                 @Value("${roomx.room-lock.mysql-pool-size:4}") int poolSize,
+                                 @Value("${roomx.room-lock.wait-timeout-ms:3000}") long waitTimeoutMillis) {
+        super(meterRegistry, "mysql");
+        this.dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.dataSource.setPoolName("roomx-room-lock");
+        this.dataSource.setMaximumPoolSize(poolSize);
+        this.dataSource.setMinimumIdle(0);
+        // 连接池耗尽时最多等待一个锁等待周期，Hikari 要求不小于 250ms
+        this.dataSource.setConnectionTimeout(Math.max(250, waitTimeoutMillis));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dataSource.close();
+    }
+
+    @Override
+    protected DistributedLock acquireDistributed(Long roomId, long timeoutMillis) {
+        String lockName = LOCK_NAME_PREFIX + roomId;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            // 先不等待尝试一次，用于区分是否发生竞争；GET_LOCK 的超时单位为秒，支持小数
+            boolean contended = false;
+            boolean acquired = getLock(connection, lockName, 0);
+            long remainingMillis = deadline - System.currentTimeMillis();
+            if (!acquired && remainingMillis > 0) {
+                contended = true;
+                acquired = getLock(connection, lockName, remainingMillis / 1000.0);
+            }
+            if (!acquired) {
+                connection.close();
+                return null;
+            }
+
+            Connection held = connection;
+            return new DistributedLock(contended, () -> release(held, lockName));
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new IllegalStateException("获取教室锁失败: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean getLock(Connection connection, String lockName, double timeoutSeconds) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, lockName);
+            statement.setDouble(2, timeoutSeconds);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void release(Connection connection, String lockName) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, lockName);
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            log.warn("释放教室咨询锁 {} 失败: {}", lockName, e.getMessage());
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("关闭数据库连接失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.roomx.service.impl;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.roomx.service.NotificationArchiveService;
+import com.roomx.service.SchedulerPartitionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 通知归档服务实现
+ * 按 (is_read, create_time) 索引取出一批到期的已读通知ID，在一个短事务中复制到归档表并从通知表删除，
+ * 每批之间不持有锁，不会长时间阻塞用户的读写；多实例部署时只由主节点执行
+ */
+@Slf4j
+@Service
+public class NotificationArchiveServiceImpl implements NotificationArchiveService {
+
+    private static final String COLUMNS = "id, title, content, type, priority, is_read, user_id, create_time, read_time, "
+        + "action_type, action_target, related_id, related_type";
+
+    private static final String SELECT_EXPIRED_SQL = "SELECT id FROM notification "
+        + "WHERE is_read = TRUE AND create_time < ? ORDER BY create_time, id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerPartitionService partitionService;
+
+    @Value("${roomx.notification.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${roomx.notification.archive.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${roomx.notification.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${roomx.notification.archive.max-chunks:200}")
+    private int maxChunks;
+
+    public NotificationArchiveServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            SchedulerPartitionService partitionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitionService = partitionService;
+    }
+
+    /**
+     * 定时归档，单次最多处理 max-chunks 批，剩余的留到下一次
+     */
+    @Scheduled(fixedDelayString = "${roomx.notification.archive.interval-ms:3600000}", initialDelay = 600000)
+    public void scheduledArchive() {
+        if (!enabled || !partitionService.isLeader()) {
+            return;
+        }
+        try {
+            archiveReadNotifications();
+        } catch (Exception e) {
+            log.warn("通知归档失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int archiveReadNotifications() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        long startTime = System.currentTimeMillis();
+        int archived = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_EXPIRED_SQL, Long.class, cutoff, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer moved = transactionTemplate.execute(status -> archiveChunk(ids));
+            archived += moved != null ? moved : 0;
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("已归档 {} 条 {} 天前的已读通知，耗时 {}ms", archived, retentionDays, System.currentTimeMillis() - startTime);
+        }
+        return archived;
+    }
+
+    /**
+     * 复制到归档表后删除，归档表已有的ID（上次中断留下的）忽略
+     */
+    private int archiveChunk(List<Long> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(new Timestamp(System.currentTimeMillis()));
+        args.addAll(ids);
+        jdbcTemplate.update("INSERT IGNORE INTO notification_archive (" + COLUMNS + ", archive_time) "
+            + "SELECT " + COLUMNS + ", ? FROM notification WHERE is_read = TRUE AND id IN (" + placeholders + ")",
+            args.toArray());
+        return jdbcTemplate.update("DELETE FROM notification WHERE is_read = TRUE AND id IN (" + placeholders + ")",
+            ids.toArray());
+    }
+}
@@ -1,24 +1,37 @@
 package com.roomx.service.impl;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.roomx.event.NotificationsCreatedEvent;
+import com.roomx.model.dto.CursorPage;
 import com.roomx.model.dto.NotificationDTO;
 import com.roomx.model.dto.PageResult;
 import com.roomx.model.entity.Notification;
 import com.roomx.repository.NotificationRepository;
 import com.roomx.service.NotificationService;
-import com.roomx.websocket.NotificationWebSocketHandler;
+import com.roomx.service.UnreadCounterService;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -26,11 +39,25 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class NotificationServiceImpl implements NotificationService {
     
+    private static final String INSERT_SQL = "INSERT INTO notification "
+        + "(title, content, type, priority, is_read, user_id, create_time, read_time, "
+        + "action_type, action_target, related_id, related_type) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    // 按ID列表批量标记时的最大数量，避免 IN 列表过长
+    private static final int MAX_BULK_IDS = 1000;
+    
     @Autowired
     private NotificationRepository notificationRepository;
     
     @Autowired
-    private NotificationWebSocketHandler webSocketHandler;
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private UnreadCounterService unreadCounterService;
 
     @Override
     public PageResult<NotificationDTO> getUserNotifications(Long userId, int pageNum, int pageSize) {
@@ -48,37 +75,107 @@ public class NotificationServiceImpl implements NotificationService {
         return result;
     }
 
+    /**
+     * 游标为上一页最后一条的 "创建时间毫秒:ID"，查询沿 (user_id, create_time, id) 索引定位，
+     * 多取一条判断是否还有下一页，开销只与页大小有关
+     */
+    @Override
+    public CursorPage<NotificationDTO> getUserNotificationsByCursor(Long userId, String cursor, int limit) {
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<Notification> notifications;
+        if (cursor == null || cursor.isBlank()) {
+            notifications = notificationRepository.findFirstPage(userId, pageable);
+        } else {
+            int separator = cursor.indexOf(':');
+            try {
+                Date createTime = new Date(Long.parseLong(cursor.substring(0, separator)));
+                Long id = Long.valueOf(cursor.substring(separator + 1));
+                notifications = notificationRepository.findPageAfter(userId, createTime, id, pageable);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("无效的分页游标: " + cursor);
+            }
+        }
+        
+        boolean hasMore = notifications.size() > limit;
+        if (hasMore) {
+            notifications = notifications.subList(0, limit);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Notification last = notifications.get(notifications.size() - 1);
+            nextCursor = last.getCreateTime().getTime() + ":" + last.getId();
+        }
+        List<NotificationDTO> records = notifications.stream()
+                .map(NotificationDTO::fromEntity)
+                .collect(Collectors.toList());
+        return new CursorPage<>(records, nextCursor, hasMore);
+    }
+
     @Override
     public Long getUnreadCount(Long userId) {
-        return notificationRepository.countUnreadByUserId(userId);
+        // 读取维护的计数，只在缓存未命中时查询数据库
+        return unreadCounterService.getUnreadCount(userId);
     }
 
     @Override
+    @Transactional
     public void markAsRead(Long notificationId, Long userId) {
+        int updated = notificationRepository.markReadById(notificationId, userId, new Date());
+        if (updated > 0) {
+            unreadCounterService.adjust(userId, -updated);
+            return;
+        }
+        
+        // 未更新时区分通知不存在、不属于该用户和已经是已读
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new IllegalArgumentException("通知不存在"));
-        
-        // 验证通知是否属于该用户
         if (!notification.getUserId().equals(userId)) {
             throw new IllegalArgumentException("无权操作此通知");
         }
-        
-        notification.setIsRead(true);
-        notification.setReadTime(new Date());
-        notificationRepository.save(notification);
     }
 
     @Override
-    public void markAllAsRead(Long userId) {
-        List<Notification> unreadNotifications = notificationRepository.findByUserIdAndIsReadFalseOrderByCreateTimeDesc(userId);
-        
-        Date now = new Date();
-        unreadNotifications.forEach(notification -> {
-            notification.setIsRead(true);
-            notification.setReadTime(now);
-        });
-        
-        notificationRepository.saveAll(unreadNotifications);
+    @Transactional
+    public int markAllAsRead(Long userId) {
+        int updated = notificationRepository.markAllReadByUserId(userId, new Date());
+        unreadCounterService.adjust(userId, -updated);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public int markAsReadByIds(Collection<Long> notificationIds, Long userId) {
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            return 0;
+        }
+        if (notificationIds.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("一次最多标记 " + MAX_BULK_IDS + " 条通知");
+        }
+        int updated = notificationRepository.markReadByIds(notificationIds, userId, new Date());
+        unreadCounterService.adjust(userId, -updated);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public int markAsReadByType(String type, Long userId) {
+        if (type == null || type.isBlank()) {
+            throw new IllegalArgumentException("通知类型不能为空");
+        }
+        int updated = notificationRepository.markReadByType(type, userId, new Date());
+        unreadCounterService.adjust(userId, -updated);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public int markAsReadBefore(Date before, Long userId) {
+        if (before == null) {
+            throw new IllegalArgumentException("截止时间不能为空");
+        }
+        int updated = notificationRepository.markReadBefore(before, userId, new Date());
+        unreadCounterService.adjust(userId, -updated);
+        return updated;
     }
 
     @Override
@@ -90,7 +187,13 @@ public class NotificationServiceImpl implements NotificationService {
         try {
             // 使用删除操作，如果记录不存在会返回0，如果删除成功会返回1
             log.info("=== 执行数据库删除操作 === notificationId={}, userId={}, thread={}", notificationId, userId, threadName);
-            int deletedCount = notificationRepository.deleteByIdAndUserId(notificationId, userId);
+            // 先尝试删除未读通知以便准确调整未读数，不是未读通知时再按原方式删除
+            int deletedCount = notificationRepository.deleteUnreadByIdAndUserId(notificationId, userId);
+            if (deletedCount > 0) {
+                unreadCounterService.adjust(userId, -deletedCount);
+            } else {
+                deletedCount = notificationRepository.deleteByIdAndUserId(notificationId, userId);
+            }
             log.info("=== 数据库删除操作完成 === notificationId={}, deletedCount={}, thread={}", notificationId, deletedCount, threadName);
             
             if (deletedCount == 0) {
@@ -124,39 +227,21 @@ public class NotificationServiceImpl implements NotificationService {
         }
     }
 
+    /**
+     * 写入通知，推送在事务提交后由 NotificationDispatcher 异步完成，事务回滚时不会推送
+     */
     @Override
     public void createNotification(NotificationDTO notificationDTO) {
-        Notification notification = new Notification();
-        notification.setTitle(notificationDTO.getTitle());
-        notification.setContent(notificationDTO.getContent());
-        notification.setType(notificationDTO.getType());
-        notification.setPriority(notificationDTO.getPriority());
-        notification.setUserId(notificationDTO.getUserId());
-        notification.setIsRead(false);
-        notification.setCreateTime(new Date());
-        notification.setActionType(notificationDTO.getActionType());
-        notification.setActionTarget(notificationDTO.getActionTarget());
-        notification.setRelatedId(notificationDTO.getRelatedId());
-        notification.setRelatedType(notificationDTO.getRelatedType());
-        
-        // 保存通知
-        Notification savedNotification = notificationRepository.save(notification);
-        
-        // 立即通过WebSocket推送通知给用户
-        try {
-            NotificationDTO savedDTO = NotificationDTO.fromEntity(savedNotification);
-            webSocketHandler.sendNotificationToUser(notificationDTO.getUserId(), savedDTO);
-            log.info("通知已推送给用户: userId={}, notificationId={}, title={}", 
-                    notificationDTO.getUserId(), savedNotification.getId(), savedNotification.getTitle());
-        } catch (Exception e) {
-            log.warn("WebSocket推送通知失败: userId={}, notificationId={}, error={}", 
-                    notificationDTO.getUserId(), savedNotification.getId(), e.getMessage());
-        }
+        createNotifications(List.of(notificationDTO));
     }
 
+    /**
+     * 批量写入通知，整批一次 JDBC 批处理插入，推送同样在事务提交后进行
+     */
     @Override
     public void createNotifications(Iterable<NotificationDTO> notificationDTOs) {
         List<Notification> notifications = new ArrayList<>();
+        Date now = new Date();
         for (NotificationDTO dto : notificationDTOs) {
             Notification notification = new Notification();
             notification.setTitle(dto.getTitle());
@@ -165,29 +250,67 @@ public class NotificationServiceImpl implements NotificationService {
             notification.setPriority(dto.getPriority());
             notification.setUserId(dto.getUserId());
             notification.setIsRead(false);
-            notification.setCreateTime(new Date());
+            notification.setCreateTime(now);
             notification.setActionType(dto.getActionType());
             notification.setActionTarget(dto.getActionTarget());
             notification.setRelatedId(dto.getRelatedId());
             notification.setRelatedType(dto.getRelatedType());
             notifications.add(notification);
         }
+        if (notifications.isEmpty()) {
+            return;
+        }
         
-        // 批量保存
-        List<Notification> savedNotifications = notificationRepository.saveAll(notifications);
+        insertNotifications(notifications);
         
-        // 为每个用户推送通知
-        for (Notification savedNotification : savedNotifications) {
-            try {
-                NotificationDTO savedDTO = NotificationDTO.fromEntity(savedNotification);
-                webSocketHandler.sendNotificationToUser(savedNotification.getUserId(), savedDTO);
-                log.info("批量通知已推送给用户: userId={}, notificationId={}, title={}", 
-                        savedNotification.getUserId(), savedNotification.getId(), savedNotification.getTitle());
-            } catch (Exception e) {
-                log.warn("WebSocket批量推送通知失败: userId={}, notificationId={}, error={}", 
-                        savedNotification.getUserId(), savedNotification.getId(), e.getMessage());
-            }
+        List<NotificationDTO> saved = notifications.stream()
+                .map(NotificationDTO::fromEntity)
+                .collect(Collectors.toList());
+        eventPublisher.publishEvent(new NotificationsCreatedEvent(saved));
+        
+        Map<Long, Long> unreadDeltas = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            unreadDeltas.merge(notification.getUserId(), 1L, Long::sum);
         }
+        unreadDeltas.forEach(unreadCounterService::adjust);
+        log.info("已写入 {} 条通知，事务提交后推送", saved.size());
+    }
+    
+    /**
+     * 使用 JDBC 批处理插入通知并回填自增ID，在调用方的事务中执行
+     */
+    private void insertNotifications(List<Notification> notifications) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Notification notification : notifications) {
+                    ps.setString(1, notification.getTitle());
+                    ps.setString(2, notification.getContent());
+                    ps.setString(3, notification.getType());
+                    ps.setString(4, notification.getPriority());
+                    ps.setBoolean(5, notification.getIsRead());
+                    ps.setObject(6, notification.getUserId(), Types.BIGINT);
+                    ps.setTimestamp(7, new Timestamp(notification.getCreateTime().getTime()));
+                    ps.setTimestamp(8, null);
+                    ps.setString(9, notification.getActionType());
+                    ps.setString(10, notification.getActionTarget());
+                    ps.setObject(11, notification.getRelatedId(), Types.BIGINT);
+                    ps.setString(12, notification.getRelatedType());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < notifications.size()) {
+                        notifications.get(i++).setId(keys.getLong(1));
+                    }
+                    if (i != notifications.size()) {
+                        throw new IllegalStateException("批量插入通知后未能获取全部自增ID");
+                    }
+                }
+            }
+            return null;
+        });
     }
     
     @Override
@@ -224,8 +347,10 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     @Transactional
-    public void deleteAllByUserId(Long userId) {
-        List<Notification> notifications = notificationRepository.findByUserIdOrderByCreateTimeDesc(userId, PageRequest.of(0, Integer.MAX_VALUE)).getContent();
-        notificationRepository.deleteAll(notifications);
+    public int deleteAllByUserId(Long userId) {
+        int deleted = notificationRepository.deleteAllByUserId(userId);
+        unreadCounterService.reset(userId);
+        log.info("已删除用户 {} 的 {} 条通知", userId, deleted);
+        return deleted;
     }
 }
@@ -0,0 +1,177 @@
+package com.roomx.service.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.roomx.exception.ServiceOverloadedException;
+import com.roomx.service.PasswordHashService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+@Service
+public class PasswordHashServiceImpl implements PasswordHashService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashServiceImpl.class);
+
+    // BCrypt 哈希格式：$2a$10$...，第二段为计算强度
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    // 被拒绝时建议客户端重试的间隔（秒）
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    @Value("${roomx.password.bcrypt-strength:10}")
+    private int strength;
+
+    @Value("${roomx.password.hash-threads:0}")
+    private int threads;
+
+    @Value("${roomx.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${roomx.password.wait-timeout-ms:5000}")
+    private long waitTimeoutMillis;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchTimer;
+    private Counter rejectedCounter;
+
+    public PasswordHashServiceImpl(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        encoder = new BCryptPasswordEncoder(strength);
+
+        // 默认与 CPU 核数相同，BCrypt 是纯计算，线程再多也不会更快
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            encodeTimer = Timer.builder("roomx.password.hash")
+                .description("密码哈希计算耗时")
+                .tag("operation", "encode")
+                .register(registry);
+            matchTimer = Timer.builder("roomx.password.hash")
+                .description("密码哈希计算耗时")
+                .tag("operation", "matches")
+                .register(registry);
+            rejectedCounter = Counter.builder("roomx.password.hash.rejected")
+                .description("排队已满被拒绝的密码哈希请求数")
+                .register(registry);
+            Gauge.builder("roomx.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("等待计算的密码哈希请求数")
+                .register(registry);
+            Gauge.builder("roomx.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在计算的密码哈希请求数")
+                .register(registry);
+        }
+
+        logger.info("密码哈希线程池已启动: 线程数 {}, 队列容量 {}, BCrypt强度 {}", poolSize, queueCapacity, strength);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String encode(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        return submit(() -> encoder.matches(rawPassword, encodedPassword), matchTimer);
+    }
+
+    @Override
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * 提交到哈希线程池并等待结果
+     * 队列已满或等待超时时抛出 ServiceOverloadedException
+     */
+    private <T> T submit(Callable<T> task, Timer timer) {
+        Callable<T> timed = timer != null ? () -> timer.recordCallable(task) : task;
+        Future<T> future;
+        try {
+            future = executor.submit(timed);
+        } catch (RejectedExecutionException e) {
+            if (rejectedCounter != null) {
+                rejectedCounter.increment();
+            }
+            logger.warn("密码哈希队列已满（{}），拒绝请求", executor.getQueue().size());
+            throw new ServiceOverloadedException("当前登录人数过多，请稍后重试", RETRY_AFTER_SECONDS);
+        }
+
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("密码哈希等待超时（{}ms）", waitTimeoutMillis);
+            throw new ServiceOverloadedException("当前登录人数过多，请稍后重试", RETRY_AFTER_SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("密码哈希被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("密码哈希失败", cause);
+        }
+    }
+}
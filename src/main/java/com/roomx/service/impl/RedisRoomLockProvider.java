@@ -0,0 +1,94 @@
+package com.roomx.service.impl;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 基于 Redis 的教室锁
+ * 等待者按到达时间进入有序集合排队，只有队首能获取锁；获取成功时以等待者标识和递增序号作为锁的值，释放时只删除自己持有的锁。
+ * 锁带有租期，持有者宕机后自动释放；超过最长等待时间仍在队列中的等待者视为已失效并被移除。
+ */
+@Service
+@ConditionalOnProperty(name = "roomx.room-lock.provider", havingValue = "redis")
+public class RedisRoomLockProvider extends AbstractRoomLockProvider {
+
+    private static final String KEY_PREFIX = "roomx:lock:room:";
+    private static final long POLL_INTERVAL_MS = 20;
+
+    // KEYS: 锁、等待队列、防护令牌计数器；ARGV: 等待者标识、租期毫秒、当前时间、失效等待者的截止到达时间
+    // 返回本次持有的序号，未获取时返回 0
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+        "redis.call('zremrangebyscore', KEYS[2], '-inf', ARGV[4]) " +
+        "redis.call('zadd', KEYS[2], 'NX', ARGV[3], ARGV[1]) " +
+        "if redis.call('exists', KEYS[1]) == 0 then " +
+        "  local head = redis.call('zrange', KEYS[2], 0, 0) " +
+        "  if head[1] == ARGV[1] then " +
+        "    local token = redis.call('incr', KEYS[3]) " +
+        "    redis.call('set', KEYS[1], ARGV[1] .. ':' .. token, 'PX', ARGV[2]) " +
+        "    redis.call('zrem', KEYS[2], ARGV[1]) " +
+        "    return token " +
+        "  end " +
+        "end " +
+        "return 0",
+        Long.class);
+
+    // 仅当锁仍属于该持有者时删除
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${roomx.room-lock.lease-ms:30000}")
+    private long leaseMillis;
+
+    @Value("${roomx.room-lock.wait-timeout-ms:3000}")
+    private long maxWaitMillis;
+
+    public RedisRoomLockProvider(MeterRegistry meterRegistry, StringRedisTemplate redisTemplate) {
+        super(meterRegistry, "redis");
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    protected DistributedLock acquireDistributed(Long roomId, long timeoutMillis) throws InterruptedException {
+        String lockKey = KEY_PREFIX + roomId;
+        String queueKey = lockKey + ":queue";
+        List<String> keys = List.of(lockKey, queueKey, lockKey + ":fence");
+        String waiterId = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        boolean contended = false;
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                // 到达时间早于最长等待时间两倍的等待者一定已经放弃或宕机
+                Long token = redisTemplate.execute(ACQUIRE_SCRIPT, keys, waiterId, String.valueOf(leaseMillis),
+                    String.valueOf(now), String.valueOf(now - 2 * maxWaitMillis));
+                if (token != null && token > 0) {
+                    String owner = waiterId + ":" + token;
+                    return new DistributedLock(contended,
+                        () -> redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey), owner));
+                }
+                if (now >= deadline) {
+                    redisTemplate.opsForZSet().remove(queueKey, waiterId);
+                    return null;
+                }
+                contended = true;
+                Thread.sleep(Math.min(POLL_INTERVAL_MS, Math.max(1, deadline - now)));
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            redisTemplate.opsForZSet().remove(queueKey, waiterId);
+            throw e;
+        }
+    }
+}
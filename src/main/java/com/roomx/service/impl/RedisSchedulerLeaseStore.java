@@ -0,0 +1,98 @@
+package com.roomx.service.impl;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.roomx.service.SchedulerLeaseStore;
+
+/**
+ * 基于 Redis 的租约存储
+ * 分区租约为带过期时间的字符串键，值为持有节点；节点心跳记录在有序集合中，分值为过期时间
+ * 过期判断一律使用 Redis 服务器时间（PEXPIRE 和脚本内的 TIME），节点之间的时钟偏差不影响租约归属
+ */
+@Service
+@ConditionalOnExpression("${roomx.scheduler.cluster.enabled:false} and ${redis.enabled:false}")
+public class RedisSchedulerLeaseStore implements SchedulerLeaseStore {
+
+    private static final String NODES_KEY = "roomx:scheduler:nodes";
+    private static final String PARTITION_KEY_PREFIX = "roomx:scheduler:partition:";
+
+    // 以 Redis 服务器时间（毫秒）登记心跳，并清理已过期的节点
+    private static final RedisScript<Long> HEARTBEAT_SCRIPT = new DefaultRedisScript<>(
+        "local time = redis.call('time') " +
+        "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+        "redis.call('zadd', KEYS[1], now + tonumber(ARGV[2]), ARGV[1]) " +
+        "redis.call('zremrangebyscore', KEYS[1], '-inf', now) " +
+        "return now",
+        Long.class);
+
+    // 按 Redis 服务器时间统计心跳未过期的节点
+    private static final RedisScript<Long> COUNT_LIVE_SCRIPT = new DefaultRedisScript<>(
+        "local time = redis.call('time') " +
+        "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+        "return redis.call('zcount', KEYS[1], now, '+inf')",
+        Long.class);
+
+    // 仅当租约仍属于该节点时续期
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+        Long.class);
+
+    // 仅当租约仍属于该节点时删除
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Override
+    public void heartbeat(String nodeId, long ttlMillis) {
+        redisTemplate.execute(HEARTBEAT_SCRIPT, List.of(NODES_KEY), nodeId, String.valueOf(ttlMillis));
+    }
+
+    @Override
+    public int countLiveNodes() {
+        Long count = redisTemplate.execute(COUNT_LIVE_SCRIPT, List.of(NODES_KEY));
+        return count == null ? 0 : count.intValue();
+    }
+
+    @Override
+    public Set<Integer> renew(String nodeId, Set<Integer> partitions, long ttlMillis) {
+        Set<Integer> renewed = new HashSet<>();
+        for (Integer partition : partitions) {
+            Long result = redisTemplate.execute(RENEW_SCRIPT, List.of(PARTITION_KEY_PREFIX + partition),
+                nodeId, String.valueOf(ttlMillis));
+            if (result != null && result > 0) {
+                renewed.add(partition);
+            }
+        }
+        return renewed;
+    }
+
+    @Override
+    public boolean tryAcquire(int partition, String nodeId, long ttlMillis) {
+        Boolean acquired = redisTemplate.opsForValue()
+            .setIfAbsent(PARTITION_KEY_PREFIX + partition, nodeId, ttlMillis, TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    @Override
+    public void release(int partition, String nodeId) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(PARTITION_KEY_PREFIX + partition), nodeId);
+    }
+
+    @Override
+    public void removeNode(String nodeId) {
+        redisTemplate.opsForZSet().remove(NODES_KEY, nodeId);
+    }
+}
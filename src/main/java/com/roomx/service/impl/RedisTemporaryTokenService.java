@@ -0,0 +1,89 @@
+package com.roomx.service.impl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import com.roomx.service.TemporaryTokenService;
+
+/**
+ * 基于 Redis 的临时操作token
+ * token 保存为带过期时间的哈希，写入与设置过期时间在同一个 Lua 脚本中完成，由 Redis 自动过期；验证与删除在同一个 Lua 脚本中完成，
+ * 多个节点或并发重试同时提交同一个 token 时只有一次能成功
+ */
+@Service
+@ConditionalOnProperty(name = "redis.enabled", havingValue = "true")
+public class RedisTemporaryTokenService implements TemporaryTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisTemporaryTokenService.class);
+
+    private static final String TOKEN_KEY_PREFIX = "roomx:temp-token:";
+
+    // token有效期：5分钟
+    private static final int TOKEN_EXPIRY_MINUTES = 5;
+
+    // 写入 token 信息并设置过期时间，两步原子执行，不会留下没有过期时间的 token
+    private static final DefaultRedisScript<Long> CREATE_SCRIPT = new DefaultRedisScript<>(
+        "redis.call('HSET', KEYS[1], 'username', ARGV[1], 'operation', ARGV[2], 'targetId', ARGV[3]) "
+        + "return redis.call('PEXPIRE', KEYS[1], ARGV[4])",
+        Long.class);
+
+    // 返回 1：匹配并已删除；0：不存在或已过期；-1：信息不匹配（token 保留，与进程内实现一致）
+    private static final DefaultRedisScript<Long> CONSUME_SCRIPT = new DefaultRedisScript<>(
+        "local v = redis.call('HMGET', KEYS[1], 'username', 'operation', 'targetId') "
+        + "if not v[1] then return 0 end "
+        + "if v[1] ~= ARGV[1] or v[2] ~= ARGV[2] or v[3] ~= ARGV[3] then return -1 end "
+        + "redis.call('DEL', KEYS[1]) "
+        + "return 1",
+        Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisTemporaryTokenService(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public String generateToken(String username, String operation, String targetId) {
+        String token = UUID.randomUUID().toString().replace("-", "");
+        String key = TOKEN_KEY_PREFIX + token;
+        redisTemplate.execute(CREATE_SCRIPT, List.of(key), username, operation, targetId,
+            String.valueOf(Duration.ofMinutes(TOKEN_EXPIRY_MINUTES).toMillis()));
+
+        logger.info("生成临时token: {} for {} operation: {} target: {}", token, username, operation, targetId);
+        return token;
+    }
+
+    @Override
+    public boolean validateAndConsumeToken(String token, String username, String operation, String targetId) {
+        if (token == null || username == null || operation == null || targetId == null) {
+            return false;
+        }
+
+        Long result = redisTemplate.execute(CONSUME_SCRIPT, List.of(TOKEN_KEY_PREFIX + token),
+            username, operation, targetId);
+        if (result == null || result == 0) {
+            logger.info("Token不存在、已过期或已被使用: {}", token);
+            return false;
+        }
+        if (result < 0) {
+            logger.warn("Token信息不匹配: {}", token);
+            return false;
+        }
+
+        logger.info("Token验证成功并已消费: {}", token);
+        return true;
+    }
+
+    @Override
+    public void cleanExpiredTokens() {
+        // token 由 Redis 按过期时间自动删除
+    }
+}
@@ -0,0 +1,141 @@
+package com.roomx.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.roomx.repository.NotificationRepository;
+import com.roomx.service.SchedulerPartitionService;
+import com.roomx.websocket.NotificationFanout;
+
+/**
+ * 基于 Redis 的未读计数
+ * 每个用户一个带空闲过期时间的计数键，读取和写入时续期，长期不活跃的用户由 Redis 自动淘汰；
+ * 写入时同时记录到按写入时间排序的有序集合，核对只检查最近写入过的用户。
+ * 调整、加载和核对都通过脚本原子完成，核对只由主节点执行
+ */
+@Service
+@ConditionalOnProperty(name = "redis.enabled", havingValue = "true")
+public class RedisUnreadCounterService extends AbstractUnreadCounterService {
+
+    private static final String KEY_PREFIX = "roomx:notification:unread:";
+    private static final String TOUCHED_KEY = "roomx:notification:unread-touched";
+
+    // 读取并续期，未缓存时返回 nil；ARGV: 过期毫秒
+    private static final RedisScript<Long> GET_SCRIPT = new DefaultRedisScript<>(
+        "local value = redis.call('get', KEYS[1]) " +
+        "if not value then return nil end " +
+        "redis.call('pexpire', KEYS[1], ARGV[1]) " +
+        "return tonumber(value)",
+        Long.class);
+
+    // 以下脚本 KEYS: 计数键、写入记录；ARGV 末尾三项: 过期毫秒、当前时间、用户ID
+
+    // 仅当已缓存时增加，结果小于0时置为0；未缓存时返回 nil。ARGV[1]: 增量
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('exists', KEYS[1]) == 0 then return nil end " +
+        "local value = redis.call('incrby', KEYS[1], ARGV[1]) " +
+        "if value < 0 then redis.call('set', KEYS[1], 0) value = 0 end " +
+        "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+        "redis.call('zadd', KEYS[2], ARGV[3], ARGV[4]) " +
+        "return value",
+        Long.class);
+
+    // 未缓存时写入，返回写入后的值。ARGV[1]: 从数据库加载的值
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+        "redis.call('set', KEYS[1], ARGV[1], 'NX') " +
+        "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+        "redis.call('zadd', KEYS[2], ARGV[3], ARGV[4]) " +
+        "return tonumber(redis.call('get', KEYS[1]))",
+        Long.class);
+
+    // 写入并返回原值，未缓存时返回 nil。ARGV[1]: 新值
+    private static final RedisScript<Long> STORE_SCRIPT = new DefaultRedisScript<>(
+        "local previous = redis.call('get', KEYS[1]) " +
+        "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) " +
+        "redis.call('zadd', KEYS[2], ARGV[3], ARGV[4]) " +
+        "if previous then return tonumber(previous) end " +
+        "return nil",
+        Long.class);
+
+    // 仅当仍为期望值时替换，保留剩余过期时间。KEYS: 计数键；ARGV: 期望值、新值
+    private static final RedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end " +
+        "local ttl = redis.call('pttl', KEYS[1]) " +
+        "redis.call('set', KEYS[1], ARGV[2]) " +
+        "if ttl > 0 then redis.call('pexpire', KEYS[1], ttl) end " +
+        "return 1",
+        Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final SchedulerPartitionService partitionService;
+
+    public RedisUnreadCounterService(NotificationRepository notificationRepository, NotificationFanout fanout,
+            StringRedisTemplate redisTemplate, SchedulerPartitionService partitionService) {
+        super(notificationRepository, fanout);
+        this.redisTemplate = redisTemplate;
+        this.partitionService = partitionService;
+    }
+
+    @Override
+    protected boolean shouldReconcile() {
+        return partitionService.isLeader();
+    }
+
+    @Override
+    protected Long getCached(Long userId) {
+        return redisTemplate.execute(GET_SCRIPT, List.of(KEY_PREFIX + userId), Long.toString(idleTtlMillis));
+    }
+
+    @Override
+    protected Long peek(Long userId) {
+        String value = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    @Override
+    protected long loadIfAbsent(Long userId, long count) {
+        Long value = write(LOAD_SCRIPT, userId, count);
+        return value != null ? value : count;
+    }
+
+    @Override
+    protected Long increment(Long userId, long delta) {
+        return write(INCREMENT_SCRIPT, userId, delta);
+    }
+
+    @Override
+    protected Long store(Long userId, long count) {
+        return write(STORE_SCRIPT, userId, count);
+    }
+
+    private Long write(RedisScript<Long> script, Long userId, long argument) {
+        return redisTemplate.execute(script, List.of(KEY_PREFIX + userId, TOUCHED_KEY), Long.toString(argument),
+            Long.toString(idleTtlMillis), Long.toString(System.currentTimeMillis()), userId.toString());
+    }
+
+    @Override
+    protected boolean compareAndSet(Long userId, long expected, long count) {
+        Long result = redisTemplate.execute(COMPARE_AND_SET_SCRIPT, List.of(KEY_PREFIX + userId),
+            Long.toString(expected), Long.toString(count));
+        return result != null && result == 1L;
+    }
+
+    @Override
+    protected Collection<Long> touchedSince(long sinceMillis) {
+        Set<String> userIds = redisTemplate.opsForZSet().rangeByScore(TOUCHED_KEY, sinceMillis, Double.POSITIVE_INFINITY);
+        return userIds == null ? List.of() : userIds.stream().map(Long::valueOf).toList();
+    }
+
+    @Override
+    protected void evictIdle(long idleBeforeMillis) {
+        // 计数键由 Redis 按过期时间淘汰，这里只清理写入记录
+        redisTemplate.opsForZSet().removeRangeByScore(TOUCHED_KEY, Double.NEGATIVE_INFINITY, idleBeforeMillis);
+    }
+}
@@ -0,0 +1,323 @@
+package com.roomx.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.roomx.model.dto.CursorPage;
+import com.roomx.service.UserSessionService;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 基于 Redis 的用户会话管理
+ * 每个用户的会话保存为带过期时间的哈希（sessionId、createdAt），所有节点共享，重启不丢失；
+ * 本地近缓存保存最近读取的会话几秒钟，热路径上的 validateSession / isLoggedInElsewhere 通常不访问 Redis。
+ * 会话变更通过发布/订阅通知各节点清除近缓存，通知丢失时由近缓存的短有效期兜底。
+ * 用户名另存一份分值相同的有序集合，分页列表按字典序 ZRANGEBYLEX 读取，不需要读出全部会话
+ */
+@Service
+@ConditionalOnProperty(name = "redis.enabled", havingValue = "true")
+public class RedisUserSessionService implements UserSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisUserSessionService.class);
+
+    private static final String SESSION_KEY_PREFIX = "roomx:session:user:";
+    // 活跃会话索引：成员为用户名，分值为过期时间
+    private static final String INDEX_KEY = "roomx:session:index";
+    // 用户名索引：分值均为0，按字典序分页
+    private static final String NAMES_KEY = "roomx:session:names";
+    private static final String INVALIDATION_CHANNEL = "roomx:session:invalidate";
+    private static final String FIELD_SESSION_ID = "sessionId";
+    private static final String FIELD_CREATED_AT = "createdAt";
+
+    // 会话过期时间（小时）
+    private static final int SESSION_EXPIRY_HOURS = 24;
+    private static final long SESSION_EXPIRY_MILLIS = TimeUnit.HOURS.toMillis(SESSION_EXPIRY_HOURS);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Map<String, CachedSession> nearCache = new ConcurrentHashMap<>();
+
+    @Value("${roomx.session.near-cache-ttl-ms:5000}")
+    private long nearCacheTtlMillis;
+
+    public RedisUserSessionService(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String username = new String(message.getBody(), StandardCharsets.UTF_8);
+            nearCache.remove(username);
+        }, new ChannelTopic(INVALIDATION_CHANNEL));
+        backfillNameIndex();
+        logger.info("Redis用户会话管理服务已启动");
+    }
+
+    @Override
+    public String generateSessionId(String username) {
+        String sessionId = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+
+        String previous = currentSessionIdFromRedis(username);
+        if (previous != null) {
+            logger.info("用户 {} 已有活跃会话，将创建新会话。旧会话ID: {}", username, previous);
+        }
+
+        String key = SESSION_KEY_PREFIX + username;
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_SESSION_ID, sessionId);
+        fields.put(FIELD_CREATED_AT, String.valueOf(now));
+        redisTemplate.opsForHash().putAll(key, fields);
+        redisTemplate.expire(key, SESSION_EXPIRY_MILLIS, TimeUnit.MILLISECONDS);
+        redisTemplate.opsForZSet().add(INDEX_KEY, username, now + SESSION_EXPIRY_MILLIS);
+        redisTemplate.opsForZSet().add(NAMES_KEY, username, 0);
+
+        nearCache.put(username, new CachedSession(sessionId, now, now + nearCacheTtlMillis));
+        publishInvalidation(username);
+
+        logger.info("为用户 {} 生成新会话ID: {}", username, sessionId);
+        return sessionId;
+    }
+
+    @Override
+    public boolean validateSession(String username, String sessionId) {
+        CachedSession session = lookup(username);
+        if (session.sessionId() == null) {
+            logger.debug("用户 {} 没有活跃会话", username);
+            return false;
+        }
+        if (!session.sessionId().equals(sessionId)) {
+            logger.warn("用户 {} 的会话ID不匹配。期望: {}, 实际: {}", username, session.sessionId(), sessionId);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void invalidateSession(String username) {
+        Boolean removed = redisTemplate.delete(SESSION_KEY_PREFIX + username);
+        redisTemplate.opsForZSet().remove(INDEX_KEY, username);
+        redisTemplate.opsForZSet().remove(NAMES_KEY, username);
+        nearCache.remove(username);
+        publishInvalidation(username);
+
+        if (Boolean.TRUE.equals(removed)) {
+            logger.info("用户 {} 的会话已失效", username);
+        } else {
+            logger.debug("用户 {} 没有活跃会话需要失效", username);
+        }
+    }
+
+    @Override
+    public String getCurrentSessionId(String username) {
+        return lookup(username).sessionId();
+    }
+
+    @Override
+    public long getSessionCreateTime(String username) {
+        CachedSession session = lookup(username);
+        return session.sessionId() != null ? session.createdAt() : 0;
+    }
+
+    @Override
+    public boolean isLoggedInElsewhere(String username, String currentSessionId) {
+        String sessionId = lookup(username).sessionId();
+        if (sessionId == null) {
+            return false; // 没有其他会话
+        }
+
+        boolean isElsewhere = !sessionId.equals(currentSessionId);
+        if (isElsewhere) {
+            logger.info("用户 {} 在其他地方登录。当前会话: {}, 服务器会话: {}", username, currentSessionId, sessionId);
+        }
+        return isElsewhere;
+    }
+
+    @Override
+    public Map<String, String> getAllActiveSessions() {
+        Set<String> usernames = redisTemplate.opsForZSet()
+            .rangeByScore(INDEX_KEY, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        Map<String, String> activeSessions = new ConcurrentHashMap<>();
+        if (usernames == null || usernames.isEmpty()) {
+            return activeSessions;
+        }
+
+        List<String> names = List.copyOf(usernames);
+        List<Object> sessionIds = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String username : names) {
+                connection.hashCommands().hGet((SESSION_KEY_PREFIX + username).getBytes(StandardCharsets.UTF_8),
+                    FIELD_SESSION_ID.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        for (int i = 0; i < names.size(); i++) {
+            Object sessionId = sessionIds.get(i);
+            if (sessionId != null) {
+                activeSessions.put(names.get(i), sessionId.toString());
+            }
+        }
+        return activeSessions;
+    }
+
+    @Override
+    public CursorPage<SessionEntry> listActiveSessions(String cursor, int limit, String usernamePrefix) {
+        String prefix = StringUtils.hasText(usernamePrefix) ? usernamePrefix : null;
+
+        // 起点取前缀与游标中靠后的一个，前缀匹配的用户名在字典序中是连续的，多取一条判断是否还有下一页
+        Range<String> range;
+        if (StringUtils.hasText(cursor) && (prefix == null || cursor.compareTo(prefix) >= 0)) {
+            range = Range.rightUnbounded(Range.Bound.exclusive(cursor));
+        } else if (prefix != null) {
+            range = Range.rightUnbounded(Range.Bound.inclusive(prefix));
+        } else {
+            range = Range.unbounded();
+        }
+        Set<String> fetched = redisTemplate.opsForZSet()
+            .rangeByLex(NAMES_KEY, range, Limit.limit().count(limit + 1));
+
+        List<String> names = new ArrayList<>(limit);
+        boolean hasMore = false;
+        if (fetched != null) {
+            for (String username : fetched) {
+                if (prefix != null && !username.startsWith(prefix)) {
+                    break;
+                }
+                if (names.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                names.add(username);
+            }
+        }
+
+        List<SessionEntry> entries = new ArrayList<>(names.size());
+        if (!names.isEmpty()) {
+            List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String username : names) {
+                    connection.hashCommands().hMGet((SESSION_KEY_PREFIX + username).getBytes(StandardCharsets.UTF_8),
+                        FIELD_SESSION_ID.getBytes(StandardCharsets.UTF_8), FIELD_CREATED_AT.getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            for (int i = 0; i < names.size(); i++) {
+                // 会话哈希已过期而索引尚未清理时跳过
+                List<?> fields = (List<?>) values.get(i);
+                if (fields != null && fields.get(0) != null && fields.get(1) != null) {
+                    entries.add(new SessionEntry(names.get(i), fields.get(0).toString(),
+                        Long.parseLong(fields.get(1).toString())));
+                }
+            }
+        }
+
+        String nextCursor = hasMore ? names.get(names.size() - 1) : null;
+        return new CursorPage<>(entries, nextCursor, hasMore);
+    }
+
+    @Override
+    @Scheduled(fixedRate = 60 * 1000, initialDelay = 60 * 1000)
+    public void cleanupExpiredSessions() {
+        // 会话哈希由 Redis 过期删除，这里只清理索引和近缓存；按过期时间取出到期的用户名，开销与到期数量相关
+        long now = System.currentTimeMillis();
+        Set<String> expired = redisTemplate.opsForZSet().rangeByScore(INDEX_KEY, Double.NEGATIVE_INFINITY, now);
+        if (expired != null && !expired.isEmpty()) {
+            redisTemplate.opsForZSet().remove(NAMES_KEY, expired.toArray());
+            redisTemplate.opsForZSet().removeRangeByScore(INDEX_KEY, Double.NEGATIVE_INFINITY, now);
+            logger.info("清理了 {} 个过期会话索引", expired.size());
+        }
+        nearCache.values().removeIf(session -> session.cachedUntil() <= now);
+    }
+
+    /**
+     * 用户名索引不存在时（从旧版本升级）从过期时间索引补齐
+     */
+    private void backfillNameIndex() {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(NAMES_KEY))) {
+                return;
+            }
+            Set<String> usernames = redisTemplate.opsForZSet().range(INDEX_KEY, 0, -1);
+            if (usernames != null && !usernames.isEmpty()) {
+                for (String username : usernames) {
+                    redisTemplate.opsForZSet().add(NAMES_KEY, username, 0);
+                }
+                logger.info("补齐了 {} 个会话用户名索引", usernames.size());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("补齐会话用户名索引失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 读取会话：近缓存未过期时直接返回，否则从 Redis 加载（无会话时也缓存空结果）
+     * Redis 不可用时退回到已过期的近缓存条目，避免所有请求同时认证失败
+     */
+    private CachedSession lookup(String username) {
+        long now = System.currentTimeMillis();
+        CachedSession cached = nearCache.get(username);
+        if (cached != null && cached.cachedUntil() > now) {
+            return cached;
+        }
+
+        try {
+            List<Object> values = redisTemplate.opsForHash()
+                .multiGet(SESSION_KEY_PREFIX + username, List.of(FIELD_SESSION_ID, FIELD_CREATED_AT));
+            Object sessionId = values.get(0);
+            Object createdAt = values.get(1);
+            CachedSession loaded = new CachedSession(
+                sessionId != null ? sessionId.toString() : null,
+                createdAt != null ? Long.parseLong(createdAt.toString()) : 0,
+                now + nearCacheTtlMillis);
+            nearCache.put(username, loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            if (cached != null) {
+                logger.warn("读取用户 {} 的会话失败，使用本地缓存: {}", username, e.getMessage());
+                return cached;
+            }
+            throw e;
+        }
+    }
+
+    private String currentSessionIdFromRedis(String username) {
+        Object sessionId = redisTemplate.opsForHash().get(SESSION_KEY_PREFIX + username, FIELD_SESSION_ID);
+        return sessionId != null ? sessionId.toString() : null;
+    }
+
+    private void publishInvalidation(String username) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, username);
+        } catch (RuntimeException e) {
+            logger.warn("发布会话失效通知失败，其他节点将在近缓存过期后生效: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 近缓存条目，sessionId 为 null 表示没有活跃会话
+     */
+    private record CachedSession(String sessionId, long createdAt, long cachedUntil) {
+    }
+}
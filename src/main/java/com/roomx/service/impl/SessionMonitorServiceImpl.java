@@ -1,18 +1,22 @@
 package com.roomx.service.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.roomx.model.dto.CursorPage;
 import com.roomx.service.SessionMonitorService;
 import com.roomx.service.UserSessionService;
+import com.roomx.service.UserSessionService.SessionEntry;
+import com.roomx.utils.TimingWheel;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -28,6 +32,9 @@ public class SessionMonitorServiceImpl implements SessionMonitorService {
     // 会话过期时间（小时）
     private static final int SESSION_EXPIRY_HOURS = 24;
     
+    // 详细会话信息的过期时间轮：1秒刻度，每层64格，3层覆盖约72小时
+    private final TimingWheel<String> expiryWheel = new TimingWheel<>(1000, 64, 3, System.currentTimeMillis());
+    
     // 定时清理任务
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
     
@@ -39,8 +46,8 @@ public class SessionMonitorServiceImpl implements SessionMonitorService {
     
     @PostConstruct
     public void init() {
-        // 启动定时清理任务，每小时清理一次过期会话
-        scheduler.scheduleAtFixedRate(this::cleanupExpiredSessions, 1, 1, TimeUnit.HOURS);
+        // 启动定时清理任务，清理开销只与到期会话数有关，每10秒执行一次
+        scheduler.scheduleAtFixedRate(this::cleanupExpiredSessions, 10, 10, TimeUnit.SECONDS);
         logger.info("会话监控服务已启动");
     }
     
@@ -58,14 +65,30 @@ public class SessionMonitorServiceImpl implements SessionMonitorService {
         logger.info("会话监控服务已关闭");
     }
     
+    /**
+     * 以会话注册表（启用 Redis 时为所有节点共享）为准列出活跃会话，
+     * 本节点记录了客户端信息的会话附带详细信息
+     */
     @Override
     public Map<String, SessionInfo> getAllActiveSessions() {
-        return sessionDetails.entrySet().stream()
-            .filter(entry -> !isSessionExpired(entry.getValue()))
-            .collect(Collectors.toConcurrentMap(
-                Map.Entry::getKey,
-                Map.Entry::getValue
-            ));
+        Map<String, SessionInfo> sessions = new ConcurrentHashMap<>();
+        userSessionService.getAllActiveSessions().forEach((username, sessionId) -> {
+            SessionInfo sessionInfo = toSessionInfo(username, sessionId);
+            if (sessionInfo != null) {
+                sessions.put(username, sessionInfo);
+            }
+        });
+        return sessions;
+    }
+    
+    @Override
+    public CursorPage<SessionInfo> listActiveSessions(String cursor, int limit, String usernamePrefix) {
+        CursorPage<SessionEntry> page = userSessionService.listActiveSessions(cursor, limit, usernamePrefix);
+        List<SessionInfo> sessions = new ArrayList<>(page.getRecords().size());
+        for (SessionEntry entry : page.getRecords()) {
+            sessions.add(toSessionInfo(entry.username(), entry.sessionId(), entry.createTime()));
+        }
+        return new CursorPage<>(sessions, page.getNextCursor(), page.isHasMore());
     }
     
     @Override
@@ -76,6 +99,7 @@ public class SessionMonitorServiceImpl implements SessionMonitorService {
             
             // 移除详细会话信息
             SessionInfo removedSession = sessionDetails.remove(username);
+            expiryWheel.cancel(username);
             if (removedSession != null) {
                 logger.info("强制用户 {} 下线成功。会话ID: {}", username, removedSession.sessionId());
             } else {
@@ -91,28 +115,48 @@ public class SessionMonitorServiceImpl implements SessionMonitorService {
     
     @Override
     public SessionInfo getUserSession(String username) {
-        SessionInfo sessionInfo = sessionDetails.get(username);
-        if (sessionInfo != null && !isSessionExpired(sessionInfo)) {
-            return sessionInfo;
+        String sessionId = userSessionService.getCurrentSessionId(username);
+        return sessionId != null ? toSessionInfo(username, sessionId) : null;
+    }
+    
+    /**
+     * 组装会话信息：本节点的详细信息与注册表中的会话一致时直接使用，否则只包含注册表中的信息
+     */
+    private SessionInfo toSessionInfo(String username, String sessionId) {
+        SessionInfo details = sessionDetails.get(username);
+        if (details != null && details.sessionId().equals(sessionId) && !isSessionExpired(details)) {
+            return details;
+        }
+        long createTime = userSessionService.getSessionCreateTime(username);
+        if (createTime == 0) {
+            return null;
         }
-        return null;
+        return new SessionInfo(username, sessionId, createTime, createTime, null, null);
+    }
+    
+    /**
+     * 组装会话信息，创建时间已由注册表给出，不再单独查询
+     */
+    private SessionInfo toSessionInfo(String username, String sessionId, long createTime) {
+        SessionInfo details = sessionDetails.get(username);
+        if (details != null && details.sessionId().equals(sessionId) && !isSessionExpired(details)) {
+            return details;
+        }
+        return new SessionInfo(username, sessionId, createTime, createTime, null, null);
     }
     
     @Override
     public int cleanupExpiredSessions() {
-        int beforeCount = sessionDetails.size();
+        int cleanedCount = 0;
         
-        sessionDetails.entrySet().removeIf(entry -> {
-            boolean expired = isSessionExpired(entry.getValue());
-            if (expired) {
-                logger.debug("清理过期会话: 用户 {}, 会话ID: {}", 
-                    entry.getKey(), entry.getValue().sessionId());
+        // 时间轮只返回到期的用户名，期间更新过的会话重新登记了过期时间，不会被误删
+        for (String username : expiryWheel.advance(System.currentTimeMillis())) {
+            SessionInfo expired = sessionDetails.get(username);
+            if (expired != null && isSessionExpired(expired) && sessionDetails.remove(username, expired)) {
+                logger.debug("清理过期会话: 用户 {}, 会话ID: {}", username, expired.sessionId());
+                cleanedCount++;
             }
-            return expired;
-        });
-        
-        int afterCount = sessionDetails.size();
-        int cleanedCount = beforeCount - afterCount;
+        }
         
         if (cleanedCount > 0) {
             logger.info("清理了 {} 个过期会话", cleanedCount);
@@ -131,6 +175,8 @@ public class SessionMonitorServiceImpl implements SessionMonitorService {
     public void updateSessionInfo(String username, String sessionId, String clientIP, String userAgent) {
         long currentTime = System.currentTimeMillis();
         SessionInfo sessionInfo = new SessionInfo(username, sessionId, currentTime, currentTime, clientIP, userAgent);
+        // 先登记过期时间再写入，清理任务不会把新会话当成旧会话的到期项删除；过期判断为严格大于，到期时间多加1毫秒
+        expiryWheel.schedule(username, currentTime + SESSION_EXPIRY_HOURS * 60 * 60 * 1000L + 1);
         sessionDetails.put(username, sessionInfo);
         
         logger.debug("更新会话信息: 用户 {}, 会话ID: {}, IP: {}", username, sessionId, clientIP);
@@ -0,0 +1,34 @@
+package com.roomx.service.impl;
+
+import java.util.Set;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.roomx.service.SchedulerPartitionService;
+
+/**
+ * 单实例部署的调度分区服务
+ * 只有一个分区且始终由本节点持有，不产生任何租约读写
+ */
+@Service
+@ConditionalOnProperty(name = "roomx.scheduler.cluster.enabled", havingValue = "false", matchIfMissing = true)
+public class StandaloneSchedulerPartitionService implements SchedulerPartitionService {
+
+    private static final Set<Integer> ALL_PARTITIONS = Set.of(0);
+
+    @Override
+    public String getNodeId() {
+        return "standalone";
+    }
+
+    @Override
+    public int getPartitionCount() {
+        return 1;
+    }
+
+    @Override
+    public Set<Integer> getOwnedPartitions() {
+        return ALL_PARTITIONS;
+    }
+}
@@ -5,6 +5,9 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -12,10 +15,16 @@ import com.roomx.service.TemporaryTokenService;
 
 import lombok.Data;
 
+/**
+ * 进程内临时操作token，未启用 Redis 时使用（单节点开发环境）；多实例部署时使用 RedisTemporaryTokenService
+ */
 @Service
+@ConditionalOnProperty(name = "redis.enabled", havingValue = "false", matchIfMissing = true)
 public class TemporaryTokenServiceImpl implements TemporaryTokenService {
     
-    // 存储临时token的内存映射，实际生产环境应该使用Redis
+    private static final Logger logger = LoggerFactory.getLogger(TemporaryTokenServiceImpl.class);
+    
+    // 存储临时token的内存映射
     private final Map<String, TokenInfo> tokenStore = new ConcurrentHashMap<>();
     
     // token有效期：5分钟
@@ -47,7 +56,7 @@ public class TemporaryTokenServiceImpl implements TemporaryTokenService {
         TokenInfo tokenInfo = new TokenInfo(username, operation, targetId);
         tokenStore.put(token, tokenInfo);
         
-        System.out.println("生成临时token: " + token + " for " + username + " operation: " + operation + " target: " + targetId);
+        logger.info("生成临时token: {} for {} operation: {} target: {}", token, username, operation, targetId);
         return token;
     }
     
@@ -56,18 +65,18 @@ public class TemporaryTokenServiceImpl implements TemporaryTokenService {
         TokenInfo tokenInfo = tokenStore.get(token);
         
         if (tokenInfo == null) {
-            System.out.println("Token不存在: " + token);
+            logger.info("Token不存在: {}", token);
             return false;
         }
         
         if (tokenInfo.isExpired()) {
-            System.out.println("Token已过期: " + token);
+            logger.info("Token已过期: {}", token);
             tokenStore.remove(token);
             return false;
         }
         
         if (tokenInfo.isConsumed()) {
-            System.out.println("Token已被使用: " + token);
+            logger.info("Token已被使用: {}", token);
             tokenStore.remove(token);
             return false;
         }
@@ -76,15 +85,18 @@ public class TemporaryTokenServiceImpl implements TemporaryTokenService {
         if (!tokenInfo.getUsername().equals(username) ||
             !tokenInfo.getOperation().equals(operation) ||
             !tokenInfo.getTargetId().equals(targetId)) {
-            System.out.println("Token信息不匹配: " + token);
+            logger.warn("Token信息不匹配: {}", token);
             return false;
         }
         
-        // 标记为已使用并移除
+        // 移除成功的请求才算消费，并发重试同一个token时只有一次成功
+        if (!tokenStore.remove(token, tokenInfo)) {
+            logger.info("Token已被使用: {}", token);
+            return false;
+        }
         tokenInfo.setConsumed(true);
-        tokenStore.remove(token);
         
-        System.out.println("Token验证成功并已消费: " + token);
+        logger.info("Token验证成功并已消费: {}", token);
         return true;
     }
     
@@ -94,6 +106,6 @@ public class TemporaryTokenServiceImpl implements TemporaryTokenService {
         tokenStore.entrySet().removeIf(entry -> 
             entry.getValue().isExpired() || entry.getValue().isConsumed()
         );
-        System.out.println("清理过期token完成，当前token数量: " + tokenStore.size());
+        logger.debug("清理过期token完成，当前token数量: {}", tokenStore.size());
     }
 }
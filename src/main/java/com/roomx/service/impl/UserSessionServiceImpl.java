@@ -1,8 +1,11 @@
 package com.roomx.service.impl;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -10,31 +13,44 @@ import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import com.roomx.model.dto.CursorPage;
 import com.roomx.service.UserSessionService;
+import com.roomx.utils.TimingWheel;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
+/**
+ * 进程内用户会话管理，未启用 Redis 时使用；多实例部署时各节点的会话互不可见
+ * 会话按用户名有序保存，支持游标分页；过期时间登记在时间轮中，清理只处理到期的会话
+ */
 @Service
+@ConditionalOnProperty(name = "redis.enabled", havingValue = "false", matchIfMissing = true)
 public class UserSessionServiceImpl implements UserSessionService {
     
     private static final Logger logger = LoggerFactory.getLogger(UserSessionServiceImpl.class);
     
-    // 存储用户会话信息：用户名 -> (会话ID, 创建时间)
-    private final Map<String, SessionInfo> userSessions = new ConcurrentHashMap<>();
+    // 存储用户会话信息：用户名 -> (会话ID, 创建时间)，按用户名排序
+    private final ConcurrentSkipListMap<String, SessionInfo> userSessions = new ConcurrentSkipListMap<>();
     
     // 会话过期时间（小时）
     private static final int SESSION_EXPIRY_HOURS = 24;
+    private static final long SESSION_EXPIRY_MILLIS = TimeUnit.HOURS.toMillis(SESSION_EXPIRY_HOURS);
+    
+    // 过期时间轮：1秒刻度，每层64格，3层覆盖约72小时
+    private final TimingWheel<String> expiryWheel = new TimingWheel<>(1000, 64, 3, System.currentTimeMillis());
     
     // 定时清理任务
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
     
     @PostConstruct
     public void init() {
-        // 启动定时清理任务，每小时清理一次过期会话
-        scheduler.scheduleAtFixedRate(this::cleanupExpiredSessions, 1, 1, TimeUnit.HOURS);
+        // 启动定时清理任务，清理开销只与到期会话数有关，每10秒执行一次
+        scheduler.scheduleAtFixedRate(this::cleanupExpiredSessions, 10, 10, TimeUnit.SECONDS);
         logger.info("用户会话管理服务已启动");
     }
     
@@ -55,7 +71,7 @@ public class UserSessionServiceImpl implements UserSessionService {
     @Override
     public String generateSessionId(String username) {
         String sessionId = UUID.randomUUID().toString();
-        LocalDateTime now = LocalDateTime.now();
+        long now = System.currentTimeMillis();
         
         // 如果用户已有会话，先记录日志
         SessionInfo existingSession = userSessions.get(username);
@@ -65,6 +81,8 @@ public class UserSessionServiceImpl implements UserSessionService {
         
         // 创建新会话
         SessionInfo sessionInfo = new SessionInfo(sessionId, now);
+        // 先登记过期时间再写入，清理任务不会把新会话当成旧会话的到期项删除
+        expiryWheel.schedule(username, now + SESSION_EXPIRY_MILLIS);
         userSessions.put(username, sessionInfo);
         
         logger.info("为用户 {} 生成新会话ID: {}", username, sessionId);
@@ -89,7 +107,7 @@ public class UserSessionServiceImpl implements UserSessionService {
         // 检查会话是否过期
         if (isSessionExpired(sessionInfo)) {
             logger.warn("用户 {} 的会话已过期", username);
-            userSessions.remove(username);
+            userSessions.remove(username, sessionInfo);
             return false;
         }
         
@@ -100,6 +118,7 @@ public class UserSessionServiceImpl implements UserSessionService {
     @Override
     public void invalidateSession(String username) {
         SessionInfo removedSession = userSessions.remove(username);
+        expiryWheel.cancel(username);
         if (removedSession != null) {
             logger.info("用户 {} 的会话已失效。会话ID: {}", username, removedSession.sessionId);
         } else {
@@ -116,6 +135,15 @@ public class UserSessionServiceImpl implements UserSessionService {
         return null;
     }
     
+    @Override
+    public long getSessionCreateTime(String username) {
+        SessionInfo sessionInfo = userSessions.get(username);
+        if (sessionInfo != null && !isSessionExpired(sessionInfo)) {
+            return sessionInfo.createdAt;
+        }
+        return 0;
+    }
+    
     @Override
     public boolean isLoggedInElsewhere(String username, String currentSessionId) {
         SessionInfo sessionInfo = userSessions.get(username);
@@ -126,7 +154,7 @@ public class UserSessionServiceImpl implements UserSessionService {
         
         if (isSessionExpired(sessionInfo)) {
             // 清理过期会话
-            userSessions.remove(username);
+            userSessions.remove(username, sessionInfo);
             return false;
         }
         
@@ -154,20 +182,52 @@ public class UserSessionServiceImpl implements UserSessionService {
     }
     
     @Override
-    public void cleanupExpiredSessions() {
-        int beforeCount = userSessions.size();
+    public CursorPage<SessionEntry> listActiveSessions(String cursor, int limit, String usernamePrefix) {
+        String prefix = StringUtils.hasText(usernamePrefix) ? usernamePrefix : null;
+        
+        // 起点取前缀与游标中靠后的一个，前缀匹配的用户名在有序表中是连续的
+        NavigableMap<String, SessionInfo> view = userSessions;
+        if (StringUtils.hasText(cursor) && (prefix == null || cursor.compareTo(prefix) >= 0)) {
+            view = userSessions.tailMap(cursor, false);
+        } else if (prefix != null) {
+            view = userSessions.tailMap(prefix, true);
+        }
         
-        userSessions.entrySet().removeIf(entry -> {
-            boolean expired = isSessionExpired(entry.getValue());
-            if (expired) {
-                logger.debug("清理过期会话: 用户 {}, 会话ID: {}", 
-                    entry.getKey(), entry.getValue().sessionId);
+        List<SessionEntry> entries = new ArrayList<>(limit);
+        boolean hasMore = false;
+        for (Map.Entry<String, SessionInfo> entry : view.entrySet()) {
+            if (prefix != null && !entry.getKey().startsWith(prefix)) {
+                break;
             }
-            return expired;
-        });
+            SessionInfo sessionInfo = entry.getValue();
+            if (isSessionExpired(sessionInfo)) {
+                continue;
+            }
+            if (entries.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            entries.add(new SessionEntry(entry.getKey(), sessionInfo.sessionId, sessionInfo.createdAt));
+        }
         
-        int afterCount = userSessions.size();
-        int cleanedCount = beforeCount - afterCount;
+        String nextCursor = hasMore ? entries.get(entries.size() - 1).username() : null;
+        return new CursorPage<>(entries, nextCursor, hasMore);
+    }
+    
+    @Override
+    public void cleanupExpiredSessions() {
+        int cleanedCount = 0;
+        long now = System.currentTimeMillis();
+        
+        // 时间轮只返回到期的用户名；期间重新登录的用户已登记新的过期时间，不会被误删
+        for (String username : expiryWheel.advance(now)) {
+            SessionInfo removed = userSessions.get(username);
+            if (removed != null && removed.createdAt + SESSION_EXPIRY_MILLIS <= now
+                    && userSessions.remove(username, removed)) {
+                logger.debug("清理过期会话: 用户 {}, 会话ID: {}", username, removed.sessionId);
+                cleanedCount++;
+            }
+        }
         
         if (cleanedCount > 0) {
             logger.info("清理了 {} 个过期会话", cleanedCount);
@@ -178,13 +238,13 @@ public class UserSessionServiceImpl implements UserSessionService {
      * 检查会话是否过期
      */
     private boolean isSessionExpired(SessionInfo sessionInfo) {
-        return sessionInfo.createdAt.plusHours(SESSION_EXPIRY_HOURS).isBefore(LocalDateTime.now());
+        return sessionInfo.createdAt + SESSION_EXPIRY_MILLIS < System.currentTimeMillis();
     }
 
     /**
          * 会话信息内部类
          */
-        private record SessionInfo(String sessionId, LocalDateTime createdAt) {
+        private record SessionInfo(String sessionId, long createdAt) {
 
         @Override
             public String toString() {
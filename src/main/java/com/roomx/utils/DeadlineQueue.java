@@ -0,0 +1,96 @@
+package com.roomx.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 截止时间队列
+ * 每个键最多保留一个截止时间，按截止时间排序，便于只取出已到期的键
+ * 新截止时间会替换同一键的旧截止时间，所有操作均为 O(log n)
+ */
+public class DeadlineQueue<K extends Comparable<K>> {
+
+    private final TreeSet<Entry<K>> entries = new TreeSet<>();
+    private final Map<K, Long> deadlines = new HashMap<>();
+
+    /**
+     * 设置（或替换）键的截止时间
+     * @param key 键
+     * @param deadline 截止时间（毫秒时间戳）
+     */
+    public synchronized void schedule(K key, long deadline) {
+        Long previous = deadlines.put(key, deadline);
+        if (previous != null) {
+            entries.remove(new Entry<>(previous, key));
+        }
+        entries.add(new Entry<>(deadline, key));
+    }
+
+    /**
+     * 移除键的截止时间
+     * @param key 键
+     * @return 是否存在并被移除
+     */
+    public synchronized boolean cancel(K key) {
+        Long previous = deadlines.remove(key);
+        if (previous == null) {
+            return false;
+        }
+        entries.remove(new Entry<>(previous, key));
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    /**
+     * 取出并移除所有截止时间不晚于 now 的键
+     * @param now 当前时间（毫秒时间戳）
+     * @return 已到期的键，按截止时间排序
+     */
+    public synchronized List<K> pollDue(long now) {
+        List<K> due = new ArrayList<>();
+        Iterator<Entry<K>> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Entry<K> entry = iterator.next();
+            if (entry.deadline > now) {
+                break;
+            }
+            iterator.remove();
+            deadlines.remove(entry.key);
+            due.add(entry.key);
+        }
+        return due;
+    }
+
+    /**
+     * 获取最早的截止时间
+     * @return 最早截止时间，队列为空时返回 Long.MAX_VALUE
+     */
+    public synchronized long nextDeadline() {
+        return entries.isEmpty() ? Long.MAX_VALUE : entries.first().deadline;
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        deadlines.clear();
+    }
+
+    private record Entry<K extends Comparable<K>>(long deadline, K key) implements Comparable<Entry<K>> {
+
+        @Override
+        public int compareTo(Entry<K> other) {
+            int byDeadline = Long.compare(deadline, other.deadline);
+            return byDeadline != 0 ? byDeadline : key.compareTo(other.key);
+        }
+    }
+}
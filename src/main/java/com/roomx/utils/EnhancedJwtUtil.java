@@ -11,6 +11,7 @@ import com.roomx.constant.enums.UserRole;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -20,15 +21,19 @@ public class EnhancedJwtUtil {
     private static final String SECRET_STRING = "yourSecretKeyForRoomXApplication2024";
     private static final Key SECRET_KEY = Keys.hmacShaKeyFor(SECRET_STRING.getBytes());
     private static final long EXPIRATION = 24 * 60 * 60 * 1000; // 1天
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SECRET_KEY).build();
+    // 已验证token缓存，最多保留10000个token
+    private static final VerifiedTokenCache VERIFIED_TOKENS = new VerifiedTokenCache(10_000);
 
     /**
      * 生成包含会话ID的token
      * @param username 用户名
+     * @param userId 用户ID，写入 token 后请求处理中不再需要按用户名查询用户
      * @param role 用户角色
      * @param sessionId 会话ID
      * @return JWT token
      */
-    public static String generateToken(String username, UserRole role, String sessionId) {
+    public static String generateToken(String username, Long userId, UserRole role, String sessionId) {
         try {
             Date now = new Date();
             Date expiration = new Date(System.currentTimeMillis() + EXPIRATION);
@@ -41,6 +46,7 @@ public class EnhancedJwtUtil {
             
             String token = Jwts.builder()
                     .setSubject(username)
+                    .claim("userId", userId)
                     .claim("role", role.toString())
                     .claim("sessionId", sessionId)
                     .setIssuedAt(now)
@@ -59,7 +65,7 @@ public class EnhancedJwtUtil {
     }
 
     /**
-     * 解析token并返回Claims
+     * 解析token并返回Claims（每次调用都会验证签名）
      * @param token JWT token
      * @return Claims对象
      */
@@ -68,11 +74,7 @@ public class EnhancedJwtUtil {
             String tokenPrefix = token.substring(0, Math.min(50, token.length())) + "...";
             logger.debug("Parsing enhanced token: {}", tokenPrefix);
             
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = PARSER.parseClaimsJws(token).getBody();
             
             logger.debug("Enhanced token parsed successfully. Subject: {}, SessionId: {}, Expiration: {}", 
                 claims.getSubject(), claims.get("sessionId"), claims.getExpiration());
@@ -94,6 +96,39 @@ public class EnhancedJwtUtil {
         }
     }
 
+    /**
+     * 解析并验证token，一次得到全部声明
+     * 验证通过的token按摘要缓存到其过期时间，同一token的后续调用不再验证签名
+     * @param token JWT token
+     * @return 不可变的声明
+     * @throws ExpiredJwtException token已过期
+     * @throws JwtException 签名无效或格式错误
+     * @throws IllegalArgumentException token为空或角色无效
+     */
+    public static TokenClaims parseAndVerify(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            throw new IllegalArgumentException("Token is null or empty");
+        }
+        
+        TokenClaims cached = VERIFIED_TOKENS.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        
+        Claims claims = parseToken(token);
+        String sessionId = claims.get("sessionId", String.class);
+        Object userId = claims.get("userId");
+        TokenClaims verified = new TokenClaims(
+            claims.getSubject(),
+            userId instanceof Number number ? number.longValue() : null,
+            toRole(claims.get("role")),
+            sessionId == null || sessionId.trim().isEmpty() ? null : sessionId,
+            claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+            claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+        VERIFIED_TOKENS.put(token, verified);
+        return verified;
+    }
+
     /**
      * 验证token是否有效
      * @param token JWT token
@@ -108,27 +143,22 @@ public class EnhancedJwtUtil {
         }
         
         try {
-            Claims claims = Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+            TokenClaims claims = parseAndVerify(token);
             
             // 检查token是否过期
-            if (claims.getExpiration().before(new Date())) {
-                logger.warn("Enhanced token is expired. Expiration: {}", claims.getExpiration());
-                TokenValidationLogger.logTokenExpired(claims.getSubject(), claims.getExpiration().toString());
+            if (claims.isExpired(System.currentTimeMillis())) {
+                logger.warn("Enhanced token is expired. Expiration: {}", claims.expiresAt());
+                TokenValidationLogger.logTokenExpired(claims.username(), String.valueOf(claims.expiresAt()));
                 return false;
             }
             
             // 检查是否包含sessionId
-            String sessionId = claims.get("sessionId", String.class);
-            if (sessionId == null || sessionId.trim().isEmpty()) {
-                logger.warn("Enhanced token missing sessionId for user: {}", claims.getSubject());
+            if (claims.sessionId() == null) {
+                logger.warn("Enhanced token missing sessionId for user: {}", claims.username());
                 return false;
             }
             
-            logger.debug("Enhanced token validation successful for user: {}", claims.getSubject());
+            logger.debug("Enhanced token validation successful for user: {}", claims.username());
             return true;
         } catch (ExpiredJwtException e) {
             logger.warn("Enhanced token validation failed - expired: {}", e.getMessage());
@@ -154,8 +184,7 @@ public class EnhancedJwtUtil {
      */
     public static String getUsernameFromToken(String token) {
         try {
-            Claims claims = parseToken(token);
-            return claims.getSubject();
+            return parseAndVerify(token).username();
         } catch (Exception e) {
             logger.error("Error getting username from enhanced token: {}", e.getMessage());
             throw e;
@@ -169,45 +198,7 @@ public class EnhancedJwtUtil {
      */
     public static UserRole getRoleFromToken(String token) {
         try {
-            Claims claims = parseToken(token);
-            Object roleObj = claims.get("role");
-            
-            logger.debug("EnhancedJwtUtil: 从token解析角色 - 原始roleObj: {}, 类型: {}", 
-                roleObj, roleObj != null ? roleObj.getClass().getName() : "null");
-            
-            // 处理角色转换
-            UserRole role;
-            if (roleObj instanceof String roleStr) {
-
-                // 兼容性处理：将SERVICE_STAFF映射为SERVICE
-                if ("SERVICE_STAFF".equals(roleStr)) {
-                    roleStr = "SERVICE";
-                    logger.warn("EnhancedJwtUtil: 检测到旧的SERVICE_STAFF角色，自动映射为SERVICE");
-                }
-                
-                try {
-                    role = UserRole.valueOf(roleStr);
-                    logger.debug("EnhancedJwtUtil: 成功解析角色字符串: {} -> {}", roleObj, role);
-                } catch (IllegalArgumentException e) {
-                    logger.warn("EnhancedJwtUtil: 无效的角色字符串: {}", roleObj);
-                    TokenValidationLogger.logException("Enhanced role parsing", e.getMessage(), 
-                        "Invalid role string: " + roleObj);
-                    throw e;
-                }
-            } else if (roleObj instanceof UserRole) {
-                role = (UserRole) roleObj;
-                logger.debug("EnhancedJwtUtil: 直接使用UserRole对象: {}", role);
-            } else {
-                logger.warn("EnhancedJwtUtil: 意外的角色类型: {}", 
-                    roleObj != null ? roleObj.getClass().getName() : "null");
-                TokenValidationLogger.logException("Enhanced role parsing", "Unexpected role type", 
-                    "Role type: " + (roleObj != null ? roleObj.getClass().getName() : "null"));
-                throw new IllegalArgumentException("Unexpected role type: " + 
-                    (roleObj != null ? roleObj.getClass().getName() : "null"));
-            }
-            
-            logger.debug("EnhancedJwtUtil: 最终解析的角色: {}", role);
-            return role;
+            return parseAndVerify(token).role();
         } catch (Exception e) {
             logger.error("EnhancedJwtUtil: 从token获取角色时出错: {}", e.getMessage());
             TokenValidationLogger.logException("Enhanced role extraction", e.getMessage(), 
@@ -223,10 +214,8 @@ public class EnhancedJwtUtil {
      */
     public static String getSessionIdFromToken(String token) {
         try {
-            Claims claims = parseToken(token);
-            String sessionId = claims.get("sessionId", String.class);
-            
-            if (sessionId == null || sessionId.trim().isEmpty()) {
+            String sessionId = parseAndVerify(token).sessionId();
+            if (sessionId == null) {
                 logger.warn("EnhancedJwtUtil: token中缺少sessionId");
                 return null;
             }
@@ -239,6 +228,41 @@ public class EnhancedJwtUtil {
         }
     }
 
+    /**
+     * 将token中的role声明转换为用户角色
+     */
+    private static UserRole toRole(Object roleObj) {
+        logger.debug("EnhancedJwtUtil: 从token解析角色 - 原始roleObj: {}, 类型: {}", 
+            roleObj, roleObj != null ? roleObj.getClass().getName() : "null");
+        
+        if (roleObj instanceof String roleStr) {
+
+            // 兼容性处理：将SERVICE_STAFF映射为SERVICE
+            if ("SERVICE_STAFF".equals(roleStr)) {
+                roleStr = "SERVICE";
+                logger.warn("EnhancedJwtUtil: 检测到旧的SERVICE_STAFF角色，自动映射为SERVICE");
+            }
+            
+            try {
+                return UserRole.valueOf(roleStr);
+            } catch (IllegalArgumentException e) {
+                logger.warn("EnhancedJwtUtil: 无效的角色字符串: {}", roleObj);
+                TokenValidationLogger.logException("Enhanced role parsing", e.getMessage(), 
+                    "Invalid role string: " + roleObj);
+                throw e;
+            }
+        } else if (roleObj instanceof UserRole role) {
+            return role;
+        }
+        
+        logger.warn("EnhancedJwtUtil: 意外的角色类型: {}", 
+            roleObj != null ? roleObj.getClass().getName() : "null");
+        TokenValidationLogger.logException("Enhanced role parsing", "Unexpected role type", 
+            "Role type: " + (roleObj != null ? roleObj.getClass().getName() : "null"));
+        throw new IllegalArgumentException("Unexpected role type: " + 
+            (roleObj != null ? roleObj.getClass().getName() : "null"));
+    }
+
     /**
      * 使token失效
      * @param username 用户名
@@ -0,0 +1,99 @@
+package com.roomx.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 区间索引
+ * 每个键对应一个左闭右开区间 [start, end)，按开始时间排序，
+ * 同时按长度计数记录当前最长区间，查询重叠区间时只需扫描开始时间落在 [start - 最长长度, end) 内的区间，
+ * 复杂度为 O(log n + m)，m 为开始时间落在该范围内的区间数，受最长区间长度约束，
+ * 可能多于实际重叠的区间数；最长区间被移除后扫描范围随之缩小
+ */
+public class IntervalIndex<K extends Comparable<K>> {
+
+    private final TreeSet<Entry<K>> entries = new TreeSet<>();
+    private final Map<K, Entry<K>> byKey = new HashMap<>();
+    // 区间长度 -> 该长度的区间数，最大键即最长区间长度
+    private final TreeMap<Long, Integer> lengths = new TreeMap<>();
+
+    /**
+     * 设置（或替换）键的区间
+     * @param key 键
+     * @param start 开始时间（毫秒时间戳，包含）
+     * @param end 结束时间（毫秒时间戳，不包含）
+     */
+    public synchronized void put(K key, long start, long end) {
+        Entry<K> entry = new Entry<>(start, end, key);
+        Entry<K> previous = byKey.put(key, entry);
+        if (previous != null) {
+            entries.remove(previous);
+            releaseLength(previous);
+        }
+        entries.add(entry);
+        lengths.merge(end - start, 1, Integer::sum);
+    }
+
+    /**
+     * 移除键的区间
+     * @return 是否存在并被移除
+     */
+    public synchronized boolean remove(K key) {
+        Entry<K> previous = byKey.remove(key);
+        if (previous == null) {
+            return false;
+        }
+        entries.remove(previous);
+        releaseLength(previous);
+        return true;
+    }
+
+    private void releaseLength(Entry<K> entry) {
+        lengths.computeIfPresent(entry.end - entry.start, (length, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 查询与 [start, end) 重叠的区间
+     * @return 重叠区间的键，按开始时间排序
+     */
+    public synchronized List<K> overlapping(long start, long end) {
+        List<K> result = new ArrayList<>();
+        if (entries.isEmpty() || end <= start) {
+            return result;
+        }
+        long maxLength = lengths.lastKey();
+        // 开始时间早于 start - maxLength 的区间一定在 start 之前结束，键为 null 的探针排在同一开始时间的最前面
+        for (Entry<K> entry : entries.tailSet(new Entry<>(start - maxLength, start - maxLength, null))) {
+            if (entry.start >= end) {
+                break;
+            }
+            if (entry.end > start) {
+                result.add(entry.key);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return byKey.size();
+    }
+
+    private record Entry<K extends Comparable<K>>(long start, long end, K key) implements Comparable<Entry<K>> {
+
+        @Override
+        public int compareTo(Entry<K> other) {
+            int byStart = Long.compare(start, other.start);
+            if (byStart != 0) {
+                return byStart;
+            }
+            if (key == null || other.key == null) {
+                return key == null ? (other.key == null ? 0 : -1) : 1;
+            }
+            return key.compareTo(other.key);
+        }
+    }
+}
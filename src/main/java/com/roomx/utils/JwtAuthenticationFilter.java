@@ -1,16 +1,21 @@
 package com.roomx.utils;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.roomx.constant.enums.UserRole;
+import com.roomx.security.AuthenticatedUser;
 import com.roomx.service.impl.AuthServiceImpl;
 
 import jakarta.servlet.FilterChain;
@@ -21,6 +26,14 @@ import jakarta.servlet.http.HttpServletResponse;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     
+    // 每个角色对应的权限列表，避免每次请求重新创建
+    private static final Map<UserRole, List<GrantedAuthority>> AUTHORITIES = new EnumMap<>(UserRole.class);
+    static {
+        for (UserRole role : UserRole.values()) {
+            AUTHORITIES.put(role, List.of(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        }
+    }
+    
     private final AuthServiceImpl authService;
     
     public JwtAuthenticationFilter(AuthServiceImpl authService) {
@@ -82,13 +95,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
             
-            // 验证成功，设置认证信息
-            String username = validationResult.getUsername();
-            UserRole role = validationResult.getRole();
+            // 验证成功，发布已认证用户，@RequireAuth 的权限检查直接使用，不再解析token
+            AuthenticatedUser principal = validationResult.getPrincipal();
+            String username = principal.username();
             
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                username, null, Collections.singletonList(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + role.name()))
+                principal, null, AUTHORITIES.get(principal.role())
             );
+            request.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, principal);
             
             SecurityContextHolder.getContext().setAuthentication(authentication);
             
@@ -1,18 +0,0 @@
-package com.roomx.utils;
-
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
-
-public class PasswordEncoderUtil {
-    private static final PasswordEncoder encoder = new BCryptPasswordEncoder();
-
-    // 加密
-    public static String encode(String rawPassword) {
-        return encoder.encode(rawPassword);
-    }
-
-    // 校验
-    public static boolean matches(String rawPassword, String encodedPassword) {
-        return encoder.matches(rawPassword, encodedPassword);
-    }
-}
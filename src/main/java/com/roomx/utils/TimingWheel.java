@@ -0,0 +1,169 @@
+package com.roomx.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分层时间轮
+ * 每个键最多保留一个到期时间，按到期时间放入不同精度的轮子中：第 0 层每格一个刻度，
+ * 第 l 层每格 wheelSize^l 个刻度，高层的格子到期时将其中的键重新放入更低的层。
+ * 登记和取消均为 O(1)，推进时间的开销只与经过的刻度数和到期的键数有关，与键的总数无关
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    // spans[l] = wheelSize^l，第 l 层每格覆盖的刻度数
+    private final long[] spans;
+    private final List<List<Set<K>>> wheels = new ArrayList<>();
+    private final Map<K, Entry> entries = new HashMap<>();
+    // 登记时已经到期的键，下次推进时直接返回
+    private final Set<K> overdue = new LinkedHashSet<>();
+    private long currentTick;
+
+    /**
+     * @param tickMillis 刻度（毫秒），到期时间精确到刻度
+     * @param wheelSize 每层的格子数
+     * @param levels 层数，覆盖范围为 tickMillis * wheelSize^levels，超出范围的键先放在最高层，逐级下移
+     * @param now 当前时间（毫秒时间戳）
+     */
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long now) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.spans = new long[levels + 1];
+        spans[0] = 1;
+        for (int l = 1; l <= levels; l++) {
+            spans[l] = spans[l - 1] * wheelSize;
+        }
+        for (int l = 0; l < levels; l++) {
+            List<Set<K>> wheel = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                wheel.add(new LinkedHashSet<>());
+            }
+            wheels.add(wheel);
+        }
+        this.currentTick = now / tickMillis;
+    }
+
+    /**
+     * 设置（或替换）键的到期时间，到期时间向上取整到刻度，键不会早于到期时间返回
+     * @param deadline 到期时间（毫秒时间戳）
+     */
+    public synchronized void schedule(K key, long deadline) {
+        cancel(key);
+        place(key, new Entry(Math.floorDiv(deadline + tickMillis - 1, tickMillis)), false);
+    }
+
+    /**
+     * 移除键的到期时间
+     * @return 是否存在并被移除
+     */
+    public synchronized boolean cancel(K key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.level < 0) {
+            overdue.remove(key);
+        } else {
+            wheels.get(entry.level).get(entry.slot).remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * 推进到 now，取出并移除所有已到期的键
+     * @return 已到期的键
+     */
+    public synchronized List<K> advance(long now) {
+        List<K> expired = new ArrayList<>(overdue);
+        for (K key : overdue) {
+            entries.remove(key);
+        }
+        overdue.clear();
+
+        long targetTick = now / tickMillis;
+        if (entries.isEmpty()) {
+            currentTick = Math.max(currentTick, targetTick);
+            return expired;
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 先从高到低下移本刻度开始的高层格子，再取出第 0 层本刻度的格子
+            for (int l = levels - 1; l >= 1; l--) {
+                if (currentTick % spans[l] == 0) {
+                    cascade(l, (int) ((currentTick / spans[l]) % wheelSize));
+                }
+            }
+            Set<K> bucket = wheels.get(0).get((int) (currentTick % wheelSize));
+            if (!bucket.isEmpty()) {
+                for (K key : bucket) {
+                    entries.remove(key);
+                    expired.add(key);
+                }
+                bucket.clear();
+            }
+            if (entries.isEmpty()) {
+                currentTick = targetTick;
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void cascade(int level, int slot) {
+        Set<K> bucket = wheels.get(level).get(slot);
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(bucket);
+        bucket.clear();
+        for (K key : keys) {
+            place(key, entries.get(key), true);
+        }
+    }
+
+    /**
+     * 放入对应层的格子
+     * 第 0 层当前刻度的格子在推进时已经处理过，只有下移过程中（随后就会处理该格子）才能放入
+     */
+    private void place(K key, Entry entry, boolean cascading) {
+        long delta = entry.tick - currentTick;
+        if (delta < 0 || (delta == 0 && !cascading)) {
+            entry.level = -1;
+            overdue.add(key);
+            entries.put(key, entry);
+            return;
+        }
+
+        int level = 0;
+        while (level < levels - 1 && delta >= spans[level + 1]) {
+            level++;
+        }
+        // 超出最高层范围时放在最高层最远的格子，到时再重新放置
+        long tick = delta >= spans[levels] ? currentTick + spans[levels] - spans[levels - 1] : entry.tick;
+        entry.level = level;
+        entry.slot = (int) ((tick / spans[level]) % wheelSize);
+        wheels.get(level).get(entry.slot).add(key);
+        entries.put(key, entry);
+    }
+
+    private static final class Entry {
+        private final long tick;
+        private int level;
+        private int slot;
+
+        Entry(long tick) {
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.roomx.utils;
+
+import java.time.Instant;
+
+import com.roomx.constant.enums.UserRole;
+
+/**
+ * 已验证签名的 JWT 声明，不可变，可在缓存和线程间共享
+ * @param username 用户名（subject）
+ * @param userId 用户ID，token 中未携带时为 null
+ * @param role 用户角色
+ * @param sessionId 会话ID，token 中缺失时为 null
+ * @param issuedAt 签发时间
+ * @param expiresAt 过期时间
+ */
+public record TokenClaims(String username, Long userId, UserRole role, String sessionId, Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt == null || expiresAt.toEpochMilli() <= nowMillis;
+    }
+}
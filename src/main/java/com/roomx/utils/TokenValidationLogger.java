@@ -1,194 +1,360 @@
 package com.roomx.utils;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.time.LocalDateTime;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Token验证日志记录工具类
- * 用于记录详细的token验证过程，输出到项目根目录的日志文件中
+ * 用于记录详细的token验证过程，输出到项目根目录的日志文件中。
+ * 请求线程只把日志事件放入无锁环形缓冲区，由后台线程格式化并批量写入文件；
+ * 缓冲区满时丢弃事件并计数，不阻塞请求。文件超过大小上限时按序号滚动
  */
 public class TokenValidationLogger {
     private static final Logger logger = LoggerFactory.getLogger(TokenValidationLogger.class);
-    private static final String LOG_FILE_PATH = "token_validation.log";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
-    private static final ReentrantLock logLock = new ReentrantLock();
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+        .withZone(ZoneId.systemDefault());
+    
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+    
+    /**
+     * 日志配置
+     * @param enabled 是否写入日志文件
+     * @param path 日志文件路径
+     * @param bufferSize 环形缓冲区容量
+     * @param batchSize 每批最多写入的事件数
+     * @param flushIntervalMillis 缓冲区为空时后台线程的等待间隔
+     * @param maxFileSize 单个文件大小上限（字节），0 表示不滚动
+     * @param maxFiles 保留的历史文件数量
+     * @param minLevel 最低记录级别
+     * @param sampleRate DEBUG/INFO 级别事件的采样率（0~1），WARN/ERROR 始终记录
+     */
+    public record Settings(boolean enabled, String path, int bufferSize, int batchSize, long flushIntervalMillis,
+                           long maxFileSize, int maxFiles, Level minLevel, double sampleRate) {
+
+        public static Settings defaults() {
+            return new Settings(true, "token_validation.log", 8192, 512, 200, 10 * 1024 * 1024, 5, Level.DEBUG, 1.0);
+        }
+    }
+    
+    private static final AtomicLong droppedCount = new AtomicLong();
+    private static volatile Settings settings = Settings.defaults();
+    private static volatile AsyncWriter writer;
+    
+    /**
+     * 应用新配置：启动新的后台写入线程，旧线程写完已入队的事件后退出
+     */
+    public static synchronized void configure(Settings newSettings) {
+        AsyncWriter previous = writer;
+        settings = newSettings;
+        writer = newSettings.enabled() ? new AsyncWriter(newSettings) : null;
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+    
+    /**
+     * 停止后台写入线程，写完已入队的事件
+     */
+    public static synchronized void shutdown() {
+        AsyncWriter previous = writer;
+        writer = null;
+        settings = new Settings(false, settings.path(), settings.bufferSize(), settings.batchSize(),
+            settings.flushIntervalMillis(), settings.maxFileSize(), settings.maxFiles(), settings.minLevel(), settings.sampleRate());
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+    
+    /**
+     * 缓冲区满而被丢弃的事件总数
+     */
+    public static long getDroppedCount() {
+        return droppedCount.get();
+    }
+    
+    /**
+     * 等待写入的事件数
+     */
+    public static int getPendingCount() {
+        AsyncWriter current = writer;
+        return current == null ? 0 : current.buffer.size();
+    }
     
     /**
      * 记录token验证开始
      */
     public static void logValidationStart(String requestURI, String clientIP, String userAgent) {
-        String message = String.format("[%s] TOKEN_VALIDATION_START | URI: %s | IP: %s | User-Agent: %s",
-                getCurrentTime(), requestURI, clientIP, userAgent);
-        writeToLog(message);
-        logger.info(message);
+        enqueue(Level.INFO, "TOKEN_VALIDATION_START | URI: %s | IP: %s | User-Agent: %s", requestURI, clientIP, userAgent);
     }
     
     /**
      * 记录token验证跳过
      */
     public static void logValidationSkipped(String requestURI, String reason) {
-        String message = String.format("[%s] TOKEN_VALIDATION_SKIPPED | URI: %s | Reason: %s",
-                getCurrentTime(), requestURI, reason);
-        writeToLog(message);
-        logger.info(message);
+        enqueue(Level.INFO, "TOKEN_VALIDATION_SKIPPED | URI: %s | Reason: %s", requestURI, reason);
     }
     
     /**
      * 记录token解析开始
      */
     public static void logTokenParsingStart(String tokenPrefix) {
-        String message = String.format("[%s] TOKEN_PARSING_START | Token: %s...",
-                getCurrentTime(), tokenPrefix);
-        writeToLog(message);
-        logger.debug(message);
+        enqueue(Level.DEBUG, "TOKEN_PARSING_START | Token: %s...", tokenPrefix);
     }
     
     /**
      * 记录token解析成功
      */
     public static void logTokenParsingSuccess(String username, String role, String expiration) {
-        String message = String.format("[%s] TOKEN_PARSING_SUCCESS | Username: %s | Role: %s | Expiration: %s",
-                getCurrentTime(), username, role, expiration);
-        writeToLog(message);
-        logger.debug(message);
+        enqueue(Level.DEBUG, "TOKEN_PARSING_SUCCESS | Username: %s | Role: %s | Expiration: %s", username, role, expiration);
     }
     
     /**
      * 记录token解析失败
      */
     public static void logTokenParsingFailure(String error, String tokenPrefix) {
-        String message = String.format("[%s] TOKEN_PARSING_FAILURE | Error: %s | Token: %s...",
-                getCurrentTime(), error, tokenPrefix);
-        writeToLog(message);
-        logger.warn(message);
+        enqueue(Level.WARN, "TOKEN_PARSING_FAILURE | Error: %s | Token: %s...", error, tokenPrefix);
     }
     
     /**
      * 记录token过期
      */
     public static void logTokenExpired(String username, String expiration) {
-        String message = String.format("[%s] TOKEN_EXPIRED | Username: %s | Expiration: %s",
-                getCurrentTime(), username, expiration);
-        writeToLog(message);
-        logger.warn(message);
+        enqueue(Level.WARN, "TOKEN_EXPIRED | Username: %s | Expiration: %s", username, expiration);
     }
     
     /**
      * 记录认证设置成功
      */
     public static void logAuthenticationSet(String username, String role) {
-        String message = String.format("[%s] AUTHENTICATION_SET | Username: %s | Role: %s",
-                getCurrentTime(), username, role);
-        writeToLog(message);
-        logger.debug(message);
+        enqueue(Level.DEBUG, "AUTHENTICATION_SET | Username: %s | Role: %s", username, role);
     }
     
     /**
      * 记录认证设置失败
      */
     public static void logAuthenticationFailed(String reason) {
-        String message = String.format("[%s] AUTHENTICATION_FAILED | Reason: %s",
-                getCurrentTime(), reason);
-        writeToLog(message);
-        logger.warn(message);
+        enqueue(Level.WARN, "AUTHENTICATION_FAILED | Reason: %s", reason);
     }
     
     /**
      * 记录token验证完成
      */
     public static void logValidationComplete(String requestURI, boolean success, String details) {
-        String message = String.format("[%s] TOKEN_VALIDATION_COMPLETE | URI: %s | Success: %s | Details: %s",
-                getCurrentTime(), requestURI, success, details);
-        writeToLog(message);
-        logger.info(message);
+        enqueue(Level.INFO, "TOKEN_VALIDATION_COMPLETE | URI: %s | Success: %s | Details: %s", requestURI, success, details);
     }
     
     /**
      * 记录token生成
      */
     public static void logTokenGeneration(String username, String role, String expiration) {
-        String message = String.format("[%s] TOKEN_GENERATION | Username: %s | Role: %s | Expiration: %s",
-                getCurrentTime(), username, role, expiration);
-        writeToLog(message);
-        logger.info(message);
+        enqueue(Level.INFO, "TOKEN_GENERATION | Username: %s | Role: %s | Expiration: %s", username, role, expiration);
     }
     
     /**
      * 记录token验证统计
      */
     public static void logValidationStats(String username, String requestURI, long durationMs) {
-        String message = String.format("[%s] TOKEN_VALIDATION_STATS | Username: %s | URI: %s | Duration: %dms",
-                getCurrentTime(), username, requestURI, durationMs);
-        writeToLog(message);
-        logger.debug(message);
+        enqueue(Level.DEBUG, "TOKEN_VALIDATION_STATS | Username: %s | URI: %s | Duration: %dms", username, requestURI, durationMs);
     }
     
     /**
      * 记录token验证失败
      */
     public static void logValidationFailed(String requestURI, String reason) {
-        String message = String.format("[%s] TOKEN_VALIDATION_FAILED | URI: %s | Reason: %s",
-                getCurrentTime(), requestURI, reason);
-        writeToLog(message);
-        logger.warn(message);
+        enqueue(Level.WARN, "TOKEN_VALIDATION_FAILED | URI: %s | Reason: %s", requestURI, reason);
     }
     
     /**
      * 记录token验证成功
      */
     public static void logValidationSuccess(String requestURI, String username, long durationMs) {
-        String message = String.format("[%s] TOKEN_VALIDATION_SUCCESS | URI: %s | Username: %s | Duration: %dms",
-                getCurrentTime(), requestURI, username, durationMs);
-        writeToLog(message);
-        logger.debug(message);
+        enqueue(Level.DEBUG, "TOKEN_VALIDATION_SUCCESS | URI: %s | Username: %s | Duration: %dms", requestURI, username, durationMs);
     }
 
     /**
      * 记录异常情况
      */
     public static void logException(String operation, String error, String details) {
-        String message = String.format("[%s] TOKEN_VALIDATION_EXCEPTION | Operation: %s | Error: %s | Details: %s",
-                getCurrentTime(), operation, error, details);
-        writeToLog(message);
-        logger.error(message);
+        enqueue(Level.ERROR, "TOKEN_VALIDATION_EXCEPTION | Operation: %s | Error: %s | Details: %s", operation, error, details);
+    }
+    
+    /**
+     * 按级别和采样率过滤后放入缓冲区，格式化在后台线程完成
+     */
+    private static void enqueue(Level level, String format, Object... args) {
+        Settings current = settings;
+        if (!current.enabled() || level.ordinal() < current.minLevel().ordinal()) {
+            return;
+        }
+        if (level.ordinal() < Level.WARN.ordinal() && current.sampleRate() < 1.0
+                && ThreadLocalRandom.current().nextDouble() >= current.sampleRate()) {
+            return;
+        }
+        
+        AsyncWriter target = writer;
+        if (target == null) {
+            target = startDefaultWriter();
+            if (target == null) {
+                return;
+            }
+        }
+        if (!target.buffer.offer(new LogEvent(System.currentTimeMillis(), level, format, args))) {
+            droppedCount.incrementAndGet();
+        }
     }
     
     /**
-     * 获取当前时间字符串
+     * 尚未通过 configure 配置时按默认配置启动写入线程
      */
-    private static String getCurrentTime() {
-        return LocalDateTime.now().format(DATE_FORMATTER);
+    private static synchronized AsyncWriter startDefaultWriter() {
+        if (writer == null && settings.enabled()) {
+            writer = new AsyncWriter(settings);
+        }
+        return writer;
+    }
+    
+    private record LogEvent(long timestamp, Level level, String format, Object[] args) {
+
+        String render() {
+            return "[" + DATE_FORMATTER.format(Instant.ofEpochMilli(timestamp)) + "] " + String.format(format, args);
+        }
     }
     
     /**
-     * 写入日志文件
+     * 后台写入线程：批量取出事件，经同一个 FileChannel 追加写入，并同步输出到应用日志
      */
-    @SuppressWarnings("ResultOfMethodCallIgnored")
-    private static void writeToLog(String message) {
-        logLock.lock();
-        try {
-            File logFile = new File(LOG_FILE_PATH);
-            File parentDir = logFile.getParentFile();
-            if (parentDir != null && !parentDir.exists()) {
-                parentDir.mkdirs();
+    private static class AsyncWriter implements Runnable {
+        private final Settings settings;
+        private final Path path;
+        private final MpscRingBuffer<LogEvent> buffer;
+        private final StringBuilder batch = new StringBuilder(16 * 1024);
+        private final Thread thread;
+        private volatile boolean running = true;
+        private FileChannel channel;
+        
+        AsyncWriter(Settings settings) {
+            this.settings = settings;
+            this.path = Paths.get(settings.path());
+            this.buffer = new MpscRingBuffer<>(settings.bufferSize());
+            this.thread = new Thread(this, "token-log-writer");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+        
+        @Override
+        public void run() {
+            while (running || buffer.size() > 0) {
+                int drained = buffer.drain(this::append, settings.batchSize());
+                if (drained > 0) {
+                    flush();
+                } else if (running) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(settings.flushIntervalMillis()));
+                }
             }
-            
-            try (PrintWriter writer = new PrintWriter(new FileWriter(logFile, true))) {
-                writer.println(message);
-                writer.flush();
+            closeChannel();
+        }
+        
+        void shutdown() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        private void append(LogEvent event) {
+            String message = event.render();
+            batch.append(message).append('\n');
+            switch (event.level()) {
+                case DEBUG -> logger.debug(message);
+                case INFO -> logger.info(message);
+                case WARN -> logger.warn(message);
+                case ERROR -> logger.error(message);
+            }
+        }
+        
+        private void flush() {
+            byte[] bytes = batch.toString().getBytes(StandardCharsets.UTF_8);
+            batch.setLength(0);
+            try {
+                rotateIfNeeded(bytes.length);
+                if (channel == null) {
+                    openChannel();
+                }
+                ByteBuffer data = ByteBuffer.wrap(bytes);
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
             } catch (IOException e) {
                 logger.error("Failed to write to token validation log file: {}", e.getMessage());
+                closeChannel();
+            }
+        }
+        
+        private void openChannel() throws IOException {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        
+        /**
+         * 写入后会超过大小上限时滚动：token_validation.log -> .1 -> .2 ...，超出保留数量的最旧文件被覆盖
+         */
+        private void rotateIfNeeded(int incoming) throws IOException {
+            if (settings.maxFileSize() <= 0) {
+                return;
+            }
+            long currentSize = channel != null ? channel.size() : (Files.exists(path) ? Files.size(path) : 0);
+            if (currentSize == 0 || currentSize + incoming <= settings.maxFileSize()) {
+                return;
+            }
+            
+            closeChannel();
+            if (settings.maxFiles() <= 0) {
+                Files.deleteIfExists(path);
+                return;
+            }
+            for (int i = settings.maxFiles() - 1; i >= 1; i--) {
+                Path source = Paths.get(settings.path() + "." + i);
+                if (Files.exists(source)) {
+                    Files.move(source, Paths.get(settings.path() + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, Paths.get(settings.path() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        private void closeChannel() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.debug("Failed to close token validation log file: {}", e.getMessage());
+                }
+                channel = null;
             }
-        } finally {
-            logLock.unlock();
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.roomx.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已验证 token 缓存
+ * 以 token 的 SHA-256 摘要为键缓存验证通过的声明，条目在 token 过期时失效，
+ * 同一客户端的重复请求不再做签名验证和 JSON 解析。
+ * 容量有上限：写入时超过上限先清理过期条目，仍超过则淘汰部分条目
+ */
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Map<String, TokenClaims> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取缓存的声明，不存在或已过期时返回 null
+     */
+    public TokenClaims get(String token) {
+        String key = digest(token);
+        TokenClaims claims = entries.get(key);
+        if (claims != null && claims.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, claims);
+            return null;
+        }
+        return claims;
+    }
+
+    public void put(String token, TokenClaims claims) {
+        long now = System.currentTimeMillis();
+        if (claims.isExpired(now)) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(digest(token), claims);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 清理过期条目；仍达到上限时淘汰约四分之一的条目，被淘汰的 token 下次请求时重新验证
+     */
+    private void evict(long now) {
+        entries.values().removeIf(claims -> claims.isExpired(now));
+        if (entries.size() < maxSize) {
+            return;
+        }
+        int toRemove = Math.max(1, maxSize / 4);
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (iterator.hasNext() && toRemove-- > 0) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,33 @@
+package com.roomx.websocket;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.roomx.model.dto.NotificationDTO;
+import com.roomx.service.UnreadCounterService.UnreadCountChange;
+
+/**
+ * 进程内通知分发，未启用 Redis 时使用：直接推送给本节点的连接
+ */
+@Component
+@ConditionalOnProperty(name = "redis.enabled", havingValue = "false", matchIfMissing = true)
+public class LoopbackNotificationFanout implements NotificationFanout {
+
+    private final NotificationWebSocketHandler webSocketHandler;
+
+    public LoopbackNotificationFanout(NotificationWebSocketHandler webSocketHandler) {
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    @Override
+    public void publish(Long userId, List<NotificationDTO> notifications) {
+        webSocketHandler.sendNotificationsToUser(userId, notifications);
+    }
+
+    @Override
+    public void publishUnreadCount(Long userId, UnreadCountChange change) {
+        webSocketHandler.sendUnreadCountToUser(userId, change);
+    }
+}
@@ -0,0 +1,136 @@
+package com.roomx.websocket;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.roomx.event.NotificationsCreatedEvent;
+import com.roomx.model.dto.NotificationDTO;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 通知推送调度
+ * 写入通知的事务提交后把通知按用户放入待推送队列，由推送线程池交给 NotificationFanout 分发，业务线程不等待推送。
+ * 用户的第一条通知入队后等待一个合并窗口再推送，窗口内到达的通知（如批量发送、审批时批量驳回冲突申请）
+ * 由同一个任务一次分发，客户端只收到一条 NOTIFICATION_BATCH 消息
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    @Value("${roomx.notification.dispatch-threads:2}")
+    private int dispatchThreads;
+
+    @Value("${roomx.notification.coalesce-window-ms:5}")
+    private long coalesceWindowMillis;
+
+    private final NotificationFanout fanout;
+
+    // 用户ID -> 待推送的通知
+    private final Map<Long, Queue<NotificationDTO>> pending = new ConcurrentHashMap<>();
+    // 已有推送任务排队的用户
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService dispatcher;
+
+    public NotificationDispatcher(NotificationFanout fanout) {
+        this.fanout = fanout;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 每个用户同一时间最多只有一个推送任务排队
+        dispatcher = new ScheduledThreadPoolExecutor(dispatchThreads,
+            runnable -> {
+                Thread thread = new Thread(runnable, "notification-dispatch-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        dispatcher.shutdown();
+        try {
+            if (!dispatcher.awaitTermination(5, TimeUnit.SECONDS)) {
+                dispatcher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 事务提交后入队；不在事务中写入的通知立即入队
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onNotificationsCreated(NotificationsCreatedEvent event) {
+        for (NotificationDTO notification : event.notifications()) {
+            Long userId = notification.getUserId();
+            if (userId == null) {
+                continue;
+            }
+            // 在 compute 中入队，与 dispatch 中的 remove 互斥，入队的通知不会落在已取走的队列里
+            pending.compute(userId, (k, queue) -> {
+                Queue<NotificationDTO> target = queue != null ? queue : new ConcurrentLinkedQueue<>();
+                target.offer(notification);
+                return target;
+            });
+            scheduleIfIdle(userId);
+        }
+    }
+
+    private void scheduleIfIdle(Long userId) {
+        if (!scheduled.add(userId)) {
+            return;
+        }
+        if (coalesceWindowMillis > 0) {
+            dispatcher.schedule(() -> dispatch(userId), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+        } else {
+            dispatcher.execute(() -> dispatch(userId));
+        }
+    }
+
+    /**
+     * 推送用户累积的通知
+     * 排队标记一直保持到推送完成，同一用户的推送不会在多个线程上并行，客户端按入队顺序收到通知；
+     * 推送期间到达的通知留在队列中，清除标记后重新检查并调度新的任务，不会遗漏
+     */
+    private void dispatch(Long userId) {
+        try {
+            Queue<NotificationDTO> queue = pending.remove(userId);
+            if (queue == null || queue.isEmpty()) {
+                return;
+            }
+            List<NotificationDTO> notifications = List.copyOf(queue);
+            try {
+                fanout.publish(userId, notifications);
+                log.debug("通知已分发: userId={}, 数量={}", userId, notifications.size());
+            } catch (Exception e) {
+                log.warn("推送通知失败: userId={}, 数量={}, error={}", userId, notifications.size(), e.getMessage());
+            }
+        } finally {
+            scheduled.remove(userId);
+            if (pending.containsKey(userId)) {
+                scheduleIfIdle(userId);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.roomx.websocket;
+
+import java.util.List;
+
+import com.roomx.model.dto.NotificationDTO;
+import com.roomx.service.UnreadCounterService.UnreadCountChange;
+
+/**
+ * 通知分发
+ * 把通知送到目标用户所在的节点，由该节点推送给本地连接。
+ * 启用 Redis 时通过发布/订阅在所有节点间分发，否则只在本节点内投递
+ */
+public interface NotificationFanout {
+
+    /**
+     * 分发用户的通知
+     * @param userId 接收用户ID
+     * @param notifications 已提交的通知
+     */
+    void publish(Long userId, List<NotificationDTO> notifications);
+
+    /**
+     * 分发用户的未读数变化
+     * @param userId 用户ID
+     * @param change 未读数及变化量
+     */
+    void publishUnreadCount(Long userId, UnreadCountChange change);
+}
@@ -0,0 +1,232 @@
+package com.roomx.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.roomx.model.dto.NotificationDTO;
+import com.roomx.model.entity.Notification;
+import com.roomx.repository.NotificationRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 断线重连的通知补发缓冲
+ * 用户在本节点建立连接后，为其保留最近推送的通知（每个用户一个定长环形缓冲），断开后继续保留一段时间。
+ * 客户端重连时带上最后收到的通知ID，缓冲能覆盖时直接补发，否则从数据库查询；
+ * 缺失的通知过多时通知客户端重新加载列表
+ */
+@Slf4j
+@Component
+public class NotificationReplayBuffer {
+
+    // 覆盖范围未知
+    private static final long UNKNOWN = Long.MAX_VALUE;
+
+    @Value("${roomx.websocket.replay-buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${roomx.websocket.replay-retention-ms:300000}")
+    private long retentionMillis;
+
+    @Value("${roomx.websocket.replay-db-limit:100}")
+    private int dbLimit;
+
+    private final NotificationRepository notificationRepository;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    // 用户ID -> 补发缓冲
+    private final Map<Long, UserBuffer> buffers = new ConcurrentHashMap<>();
+
+    private Counter bufferReplays;
+    private Counter databaseReplays;
+    private Counter resyncs;
+
+    public NotificationReplayBuffer(NotificationRepository notificationRepository, WebSocketSessionRegistry sessionRegistry,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.sessionRegistry = sessionRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("roomx.websocket.replay.users", buffers, Map::size)
+                .description("保留补发缓冲的用户数")
+                .register(registry);
+            bufferReplays = replayCounter(registry, "buffer");
+            databaseReplays = replayCounter(registry, "database");
+            resyncs = replayCounter(registry, "resync");
+        });
+    }
+
+    private Counter replayCounter(MeterRegistry registry, String source) {
+        return Counter.builder("roomx.websocket.replay")
+            .description("重连补发次数")
+            .tag("source", source)
+            .register(registry);
+    }
+
+    /**
+     * 用户在本节点建立连接，开始（或继续）保留推送的通知
+     */
+    public void track(Long userId) {
+        buffers.computeIfAbsent(userId, k -> new UserBuffer(bufferSize)).touch();
+    }
+
+    /**
+     * 用户的一个连接断开，从此刻开始计算保留时间
+     */
+    public void release(Long userId) {
+        UserBuffer buffer = buffers.get(userId);
+        if (buffer != null) {
+            buffer.touch();
+        }
+    }
+
+    /**
+     * 是否在为该用户保留通知（用户离线后的保留期内仍为 true）
+     */
+    public boolean isTracked(Long userId) {
+        return buffers.containsKey(userId);
+    }
+
+    /**
+     * 记录推送给用户的通知，未保留缓冲的用户忽略
+     */
+    public void record(Long userId, NotificationDTO notification) {
+        UserBuffer buffer = buffers.get(userId);
+        if (buffer != null && notification.getId() != null) {
+            buffer.add(notification);
+        }
+    }
+
+    /**
+     * 获取 lastNotificationId 之后的通知
+     * @return 补发结果，缺失过多时 complete 为 false，客户端应重新加载列表
+     */
+    public Replay replay(Long userId, long lastNotificationId) {
+        UserBuffer buffer = buffers.get(userId);
+        if (buffer != null) {
+            List<NotificationDTO> buffered = buffer.after(lastNotificationId);
+            if (buffered != null) {
+                increment(bufferReplays);
+                return new Replay(buffered, true);
+            }
+        }
+
+        List<Notification> rows = notificationRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(
+                userId, lastNotificationId, PageRequest.of(0, dbLimit + 1));
+        if (rows.size() > dbLimit) {
+            increment(resyncs);
+            return new Replay(List.of(), false);
+        }
+        increment(databaseReplays);
+        if (buffer != null) {
+            // 缓冲在查询前已存在：查询结果之后的通知都会进入缓冲，下次重连可直接补发
+            buffer.coverAfter(rows.isEmpty() ? lastNotificationId : rows.get(rows.size() - 1).getId());
+        }
+        return new Replay(rows.stream().map(NotificationDTO::fromEntity).toList(), true);
+    }
+
+    /**
+     * 清理在本节点离线超过保留时间的用户
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long threshold = System.currentTimeMillis() - retentionMillis;
+        buffers.entrySet().removeIf(entry -> entry.getValue().lastTouched < threshold
+                && !sessionRegistry.isOnline(entry.getKey()));
+    }
+
+    private void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * 补发结果
+     * @param notifications 按ID升序的通知
+     * @param complete 是否完整，为 false 时客户端应重新加载通知列表
+     */
+    public record Replay(List<NotificationDTO> notifications, boolean complete) {
+    }
+
+    /**
+     * 单个用户的环形缓冲
+     * coveredAfter 之后的通知保证都在缓冲中，被覆盖掉的通知会抬高该值；evictedMax 为被覆盖掉的最大ID
+     */
+    private static final class UserBuffer {
+        private final NotificationDTO[] ring;
+        private int head;
+        private int size;
+        private long coveredAfter = UNKNOWN;
+        private long evictedMax = Long.MIN_VALUE;
+        private volatile long lastTouched = System.currentTimeMillis();
+
+        UserBuffer(int capacity) {
+            this.ring = new NotificationDTO[Math.max(1, capacity)];
+        }
+
+        void touch() {
+            lastTouched = System.currentTimeMillis();
+        }
+
+        synchronized void add(NotificationDTO notification) {
+            if (size == ring.length) {
+                long evictedId = ring[head].getId();
+                evictedMax = Math.max(evictedMax, evictedId);
+                if (coveredAfter != UNKNOWN) {
+                    coveredAfter = Math.max(coveredAfter, evictedId);
+                }
+                ring[head] = notification;
+                head = (head + 1) % ring.length;
+            } else {
+                ring[(head + size) % ring.length] = notification;
+                size++;
+            }
+        }
+
+        /**
+         * 缓冲能覆盖 lastId 之后的全部通知时返回这些通知，否则返回 null
+         * lastId 本身还在缓冲中时，之后推送的通知也都在缓冲中
+         */
+        synchronized List<NotificationDTO> after(long lastId) {
+            boolean covered = lastId >= coveredAfter;
+            List<NotificationDTO> result = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                NotificationDTO notification = ring[(head + i) % ring.length];
+                long id = notification.getId();
+                if (id == lastId) {
+                    covered = true;
+                } else if (id > lastId) {
+                    result.add(notification);
+                }
+            }
+            if (!covered) {
+                return null;
+            }
+            result.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+            return result;
+        }
+
+        synchronized void coverAfter(long id) {
+            // 已被覆盖掉的通知不在缓冲中，覆盖起点不能低于它们
+            coveredAfter = Math.min(coveredAfter, Math.max(id, evictedMax));
+        }
+    }
+}
@@ -2,8 +2,7 @@ package com.roomx.websocket;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
@@ -13,11 +12,22 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roomx.model.dto.NotificationDTO;
+import com.roomx.model.dto.UserInfoDTO;
+import com.roomx.service.UserService;
 import com.roomx.service.impl.AuthServiceImpl;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * 通知 WebSocket 处理器
+ * 负责连接认证和消息格式，连接和发送由 WebSocketSessionRegistry 管理，同一用户可以有多个连接。
+ * 重连时客户端通过连接参数 lastNotificationId 或 {"type":"RESUME","lastNotificationId":...} 消息
+ * 告知最后收到的通知ID，服务端以一条 NOTIFICATION_REPLAY 消息补发之后的通知（可能与实时推送重复，客户端按ID去重）；
+ * 缺失过多时发送 RESYNC_REQUIRED，客户端重新加载通知列表
+ */
 @Slf4j
 @Component
 public class NotificationWebSocketHandler extends TextWebSocketHandler {
@@ -25,11 +35,17 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
     @Autowired
     private AuthServiceImpl authService;
     
-    // 存储用户ID与WebSocket会话的映射
-    private final Map<Long, WebSocketSession> userSessions = new ConcurrentHashMap<>();
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+    
+    @Autowired
+    private NotificationReplayBuffer replayBuffer;
     
-    // 存储会话ID与用户ID的映射
-    private final Map<String, Long> sessionUserMap = new ConcurrentHashMap<>();
+    // 单条 NOTIFICATION_BATCH 消息最多包含的通知数，避免单个消息过大
+    private static final int MAX_BATCH_SIZE = 100;
     
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -71,7 +87,9 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
             
             // 3. 获取认证用户的ID
             String username = validationResult.getUsername();
-            Long userIdLong = getUserIdByUsername(username);
+            Long userIdLong = validationResult.getPrincipal().userId() != null
+                    ? validationResult.getPrincipal().userId()
+                    : getUserIdByUsername(username);
             if (userIdLong == null) {
                 log.warn("=== WebSocket连接失败：无法获取用户ID === sessionId={}, username={}", 
                         sessionId, username);
@@ -80,16 +98,22 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
                 return;
             }
             
-            // 4. 建立连接映射
-            userSessions.put(userIdLong, session);
-            sessionUserMap.put(sessionId, userIdLong);
+            // 4. 登记连接，同一用户的其他连接保持不变；先开始保留通知，登记后推送的通知都能补发
+            replayBuffer.track(userIdLong);
+            sessionRegistry.register(userIdLong, session);
             log.info("=== 用户WebSocket连接建立成功 === userId={}, username={}, sessionId={}, 当前连接数={}", 
-                    userIdLong, username, sessionId, userSessions.size());
+                    userIdLong, username, sessionId, sessionRegistry.getSessionCount());
             
             // 5. 发送连接确认消息
-            sendMessage(session, new WebSocketMessage("CONNECTION_ESTABLISHED", "WebSocket连接已建立"));
+            sessionRegistry.sendToSession(sessionId, toTextMessage(new WebSocketMessage("CONNECTION_ESTABLISHED", "WebSocket连接已建立")));
             log.debug("连接确认消息已发送给用户: userId={}, username={}", userIdLong, username);
             
+            // 6. 重连时补发断开期间的通知
+            Long lastNotificationId = parseLong(extractQueryParam(session, "lastNotificationId"));
+            if (lastNotificationId != null) {
+                replayTo(sessionId, userIdLong, lastNotificationId);
+            }
+            
         } catch (Exception e) {
             log.error("=== WebSocket连接建立过程中发生异常 === sessionId={}, error={}", 
                     sessionId, e.getMessage(), e);
@@ -109,18 +133,61 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
         
         // 这里可以处理客户端发送的消息，比如心跳检测
         if ("ping".equals(payload)) {
-            sendMessage(session, new WebSocketMessage("PONG", "pong"));
+            sessionRegistry.sendToSession(session.getId(), toTextMessage(new WebSocketMessage("PONG", "pong")));
+            return;
+        }
+        if (payload.startsWith("{")) {
+            handleCommand(session, payload);
+        }
+    }
+
+    /**
+     * 处理客户端的 JSON 指令，目前只有 RESUME
+     */
+    private void handleCommand(WebSocketSession session, String payload) {
+        Long userId = sessionRegistry.getUserId(session.getId());
+        if (userId == null) {
+            return;
+        }
+        try {
+            JsonNode command = objectMapper.readTree(payload);
+            if ("RESUME".equals(command.path("type").asText())) {
+                JsonNode lastId = command.path("lastNotificationId");
+                if (lastId.canConvertToLong()) {
+                    replayTo(session.getId(), userId, lastId.asLong());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("忽略无法解析的WebSocket消息: sessionId={}, error={}", session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 补发 lastNotificationId 之后的通知
+     */
+    private void replayTo(String sessionId, Long userId, long lastNotificationId) {
+        try {
+            NotificationReplayBuffer.Replay replay = replayBuffer.replay(userId, lastNotificationId);
+            if (!replay.complete()) {
+                sessionRegistry.sendToSession(sessionId, toTextMessage(new WebSocketMessage("RESYNC_REQUIRED", lastNotificationId)));
+                log.info("缺失通知过多，要求客户端重新加载: userId={}, lastNotificationId={}", userId, lastNotificationId);
+                return;
+            }
+            sessionRegistry.sendToSession(sessionId, toTextMessage(new WebSocketMessage("NOTIFICATION_REPLAY", replay.notifications())));
+            log.debug("已补发通知: userId={}, lastNotificationId={}, 数量={}", userId, lastNotificationId, replay.notifications().size());
+        } catch (Exception e) {
+            log.warn("补发通知失败: userId={}, lastNotificationId={}, error={}", userId, lastNotificationId, e.getMessage());
         }
     }
 
     @Override
     public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) throws Exception {
         String sessionId = session.getId();
-        Long userId = sessionUserMap.remove(sessionId);
+        Long userId = sessionRegistry.unregister(sessionId);
         if (userId != null) {
-            userSessions.remove(userId);
+            replayBuffer.release(userId);
             log.info("=== 用户WebSocket连接关闭 === userId={}, sessionId={}, status={}, 当前连接数={}", 
-                    userId, sessionId, status, userSessions.size());
+                    userId, sessionId, status, sessionRegistry.getSessionCount());
         } else {
             log.info("=== WebSocket连接关闭 === sessionId={}, status={}", sessionId, status);
         }
@@ -129,70 +196,111 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
     @Override
     public void handleTransportError(@NonNull WebSocketSession session, @NonNull Throwable exception) throws Exception {
         String sessionId = session.getId();
-        Long userId = sessionUserMap.get(sessionId);
+        Long userId = sessionRegistry.getUserId(sessionId);
         log.error("=== WebSocket传输错误 === userId={}, sessionId={}, error={}", 
                 userId, sessionId, exception.getMessage(), exception);
         
         // 清理连接
-        if (userId != null) {
-            sessionUserMap.remove(sessionId);
-            userSessions.remove(userId);
+        if (sessionRegistry.unregister(sessionId) != null) {
+            replayBuffer.release(userId);
             log.info("已清理错误连接: userId={}, sessionId={}, 当前连接数={}", 
-                    userId, sessionId, userSessions.size());
+                    userId, sessionId, sessionRegistry.getSessionCount());
         }
     }
 
     /**
-     * 向指定用户发送通知
+     * 向指定用户的所有连接发送通知，并保留用于重连补发
+     * 只在发送队列中入队，不等待写出，可以在业务事务中调用
      */
-    public void sendNotificationToUser(Long userId, Object notification) {
-        WebSocketSession session = userSessions.get(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                WebSocketMessage message = new WebSocketMessage("NEW_NOTIFICATION", notification);
-                sendMessage(session, message);
-                log.info("通知发送成功: userId={}, notification={}", userId, notification);
-            } catch (Exception e) {
-                log.error("发送通知失败: userId={}, error={}", userId, e.getMessage(), e);
+    public void sendNotificationToUser(Long userId, NotificationDTO notification) {
+        sendNotificationsToUser(userId, List.of(notification));
+    }
+
+    /**
+     * 向指定用户的所有连接发送一批通知
+     * 单条通知仍使用 NEW_NOTIFICATION，多条合并为 NOTIFICATION_BATCH，每批只序列化一次，所有连接共用同一消息
+     */
+    public void sendNotificationsToUser(Long userId, List<NotificationDTO> notifications) {
+        for (NotificationDTO notification : notifications) {
+            replayBuffer.record(userId, notification);
+        }
+        if (!sessionRegistry.isOnline(userId)) {
+            log.debug("用户不在线，无法发送通知: userId={}, 数量={}", userId, notifications.size());
+            return;
+        }
+        try {
+            for (int from = 0; from < notifications.size(); from += MAX_BATCH_SIZE) {
+                List<NotificationDTO> batch = notifications.subList(from, Math.min(from + MAX_BATCH_SIZE, notifications.size()));
+                WebSocketMessage message = batch.size() == 1
+                        ? new WebSocketMessage("NEW_NOTIFICATION", batch.get(0))
+                        : new WebSocketMessage("NOTIFICATION_BATCH", batch);
+                int sessions = sessionRegistry.sendToUser(userId, toTextMessage(message));
+                log.debug("通知已入队: userId={}, 连接数={}, 数量={}", userId, sessions, batch.size());
             }
-        } else {
-            log.debug("用户不在线或会话已关闭，无法发送通知: userId={}", userId);
+        } catch (Exception e) {
+            log.error("发送通知失败: userId={}, error={}", userId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 向指定用户的所有连接推送未读数变化
+     */
+    public void sendUnreadCountToUser(Long userId, Object unreadCountChange) {
+        if (!sessionRegistry.isOnline(userId)) {
+            return;
+        }
+        try {
+            sessionRegistry.sendToUser(userId, toTextMessage(new WebSocketMessage("UNREAD_COUNT", unreadCountChange)));
+        } catch (Exception e) {
+            log.error("推送未读数失败: userId={}, error={}", userId, e.getMessage());
         }
     }
 
     /**
-     * 向所有在线用户广播消息
+     * 向所有在线连接广播消息，消息只序列化一次
      */
     public void broadcastMessage(Object message) {
-        WebSocketMessage wsMessage = new WebSocketMessage("BROADCAST", message);
-        userSessions.values().forEach(session -> {
-            if (session.isOpen()) {
-                try {
-                    sendMessage(session, wsMessage);
-                } catch (Exception e) {
-                    log.error("广播消息失败: sessionId={}, error={}", session.getId(), e.getMessage());
-                }
-            }
-        });
-        log.info("消息广播完成，发送给 {} 个用户", userSessions.size());
+        try {
+            int sessions = sessionRegistry.broadcast(toTextMessage(new WebSocketMessage("BROADCAST", message)));
+            log.info("消息广播完成，发送给 {} 个连接", sessions);
+        } catch (Exception e) {
+            log.error("广播消息失败: error={}", e.getMessage());
+        }
     }
 
     /**
      * 获取在线用户数量
      */
     public int getOnlineUserCount() {
-        return userSessions.size();
+        return sessionRegistry.getOnlineUserCount();
+    }
+
+    /**
+     * 直接序列化为 UTF-8 字节构造消息：TextMessage 由字符串构造时每次取长度都会重新编码，
+     * 广播给大量连接时入队、出队各编码一次；由字节构造时长度直接取自已有的字节数组
+     */
+    private TextMessage toTextMessage(WebSocketMessage message) throws IOException {
+        return new TextMessage(objectMapper.writeValueAsBytes(message));
     }
 
+    /**
+     * 连接登记前直接发送（认证失败提示）
+     */
     private void sendMessage(WebSocketSession session, WebSocketMessage message) throws IOException {
-        String jsonMessage = objectMapper.writeValueAsString(message);
-        session.sendMessage(new TextMessage(jsonMessage));
+        session.sendMessage(toTextMessage(message));
     }
 
     /**
      * 从WebSocket连接中提取JWT token
      */
     private String extractTokenFromSession(WebSocketSession session) {
+        return extractQueryParam(session, "token");
+    }
+
+    /**
+     * 从连接地址中提取查询参数
+     */
+    private String extractQueryParam(WebSocketSession session, String name) {
         try {
             URI uri = session.getUri();
             if (uri == null) {
@@ -204,36 +312,40 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
                 return null;
             }
             
+            String prefix = name + "=";
             String[] params = query.split("&");
             for (String param : params) {
-                if (param.startsWith("token=")) {
-                    return param.substring("token=".length());
+                if (param.startsWith(prefix)) {
+                    return param.substring(prefix.length());
                 }
             }
         } catch (Exception e) {
-            log.error("解析JWT token失败", e);
+            log.error("解析连接参数 {} 失败", name, e);
         }
         return null;
     }
+
+    private Long parseLong(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
     
     /**
-     * 根据用户名获取用户ID
-     * 这里应该调用用户服务来获取用户ID，暂时使用简单的映射逻辑
+     * 根据用户名获取用户ID（token 中未携带用户ID时使用）
      */
     private Long getUserIdByUsername(String username) {
-        // TODO: 这里应该调用UserService来获取用户ID
-        // 暂时使用简单的映射逻辑，实际项目中应该从数据库查询
-        try {
-            // 如果用户名是admin，返回ID 1，否则尝试解析为数字
-            if ("admin".equals(username)) {
-                return 1L;
-            }
-            // 尝试直接解析用户名为数字ID（临时方案）
-            return Long.parseLong(username);
-        } catch (NumberFormatException e) {
+        UserInfoDTO userInfo = userService.getUserInfoByUsername(username);
+        if (userInfo == null) {
             log.warn("无法从用户名获取用户ID: {}", username);
             return null;
         }
+        return userInfo.getId();
     }
 
     /**
@@ -0,0 +1,119 @@
+package com.roomx.websocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roomx.model.dto.NotificationDTO;
+import com.roomx.service.UnreadCounterService.UnreadCountChange;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于 Redis 发布/订阅的跨节点通知分发
+ * 所有节点通过同一个频道收发，每个节点收到全部消息，只推送给本节点上有连接的用户。
+ * 用户的连接可能落在任何节点，按用户分区频道时每个节点仍需订阅全部分区，因此只使用一个频道。
+ * 消息格式为 "用户ID:类型:JSON"（类型 N 为通知数组，U 为未读数变化），不在本节点的用户只解析前缀就跳过，不做 JSON 反序列化。
+ * 负载均衡不需要会话粘滞，用户连接在任何节点都能实时收到通知
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "redis.enabled", havingValue = "true")
+public class RedisNotificationFanout implements NotificationFanout {
+
+    private static final String CHANNEL = "roomx:notification:fanout";
+    private static final char KIND_NOTIFICATIONS = 'N';
+    private static final char KIND_UNREAD_COUNT = 'U';
+    private static final TypeReference<List<NotificationDTO>> NOTIFICATION_LIST = new TypeReference<>() {};
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final NotificationWebSocketHandler webSocketHandler;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final NotificationReplayBuffer replayBuffer;
+
+    public RedisNotificationFanout(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                                   ObjectMapper objectMapper, NotificationWebSocketHandler webSocketHandler,
+                                   WebSocketSessionRegistry sessionRegistry, NotificationReplayBuffer replayBuffer) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.webSocketHandler = webSocketHandler;
+        this.sessionRegistry = sessionRegistry;
+        this.replayBuffer = replayBuffer;
+    }
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener((message, pattern) -> deliver(message), new ChannelTopic(CHANNEL));
+        log.info("跨节点通知分发已启动，频道: {}", CHANNEL);
+    }
+
+    @Override
+    public void publish(Long userId, List<NotificationDTO> notifications) {
+        try {
+            send(userId, KIND_NOTIFICATIONS, notifications);
+        } catch (Exception e) {
+            // Redis 不可用时至少推送给本节点的连接，其他节点的用户在下次拉取时看到
+            log.warn("发布通知失败，仅推送本节点连接: userId={}, error={}", userId, e.getMessage());
+            deliverLocally(userId, notifications);
+        }
+    }
+
+    @Override
+    public void publishUnreadCount(Long userId, UnreadCountChange change) {
+        try {
+            send(userId, KIND_UNREAD_COUNT, change);
+        } catch (Exception e) {
+            log.warn("发布未读数变化失败，仅推送本节点连接: userId={}, error={}", userId, e.getMessage());
+            webSocketHandler.sendUnreadCountToUser(userId, change);
+        }
+    }
+
+    private void send(Long userId, char kind, Object data) throws Exception {
+        String payload = userId + ":" + kind + ":" + objectMapper.writeValueAsString(data);
+        redisTemplate.convertAndSend(CHANNEL, payload);
+    }
+
+    /**
+     * 处理收到的消息：用户不在本节点（且没有保留补发缓冲）时直接跳过
+     */
+    private void deliver(Message message) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = payload.indexOf(':');
+        if (separator <= 0 || payload.length() < separator + 3 || payload.charAt(separator + 2) != ':') {
+            log.warn("忽略格式错误的通知消息");
+            return;
+        }
+        try {
+            Long userId = Long.valueOf(payload.substring(0, separator));
+            // 用户刚从本节点断开时仍需记录通知，以便重连补发
+            if (!sessionRegistry.isOnline(userId) && !replayBuffer.isTracked(userId)) {
+                return;
+            }
+            char kind = payload.charAt(separator + 1);
+            String json = payload.substring(separator + 3);
+            if (kind == KIND_NOTIFICATIONS) {
+                deliverLocally(userId, objectMapper.readValue(json, NOTIFICATION_LIST));
+            } else if (kind == KIND_UNREAD_COUNT) {
+                webSocketHandler.sendUnreadCountToUser(userId, objectMapper.readValue(json, UnreadCountChange.class));
+            }
+        } catch (Exception e) {
+            log.warn("处理通知消息失败: error={}", e.getMessage());
+        }
+    }
+
+    private void deliverLocally(Long userId, List<NotificationDTO> notifications) {
+        webSocketHandler.sendNotificationsToUser(userId, notifications);
+    }
+}
@@ -0,0 +1,340 @@
+package com.roomx.websocket;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * WebSocket 会话注册表
+ * 一个用户可以同时有多个连接（多个标签页、多台设备）。每个连接有自己的发送队列，
+ * 由发送线程池逐个写出，业务线程只负责入队，不会被慢客户端阻塞。
+ * 队列积压超过上限或单次发送超时的连接视为不可靠，直接断开，客户端重连即可
+ */
+@Slf4j
+@Component
+public class WebSocketSessionRegistry {
+
+    // Tomcat 阻塞发送超时的会话属性名
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    // 每次调度最多连续发送的消息数，避免一个连接长期占用发送线程
+    private static final int DRAIN_BATCH = 64;
+
+    @Value("${roomx.websocket.send-time-limit-ms:5000}")
+    private int sendTimeLimitMillis;
+
+    @Value("${roomx.websocket.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    @Value("${roomx.websocket.sender-threads:2}")
+    private int senderThreads;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    // 用户ID -> 该用户的所有连接
+    private final Map<Long, Set<ClientSession>> userSessions = new ConcurrentHashMap<>();
+    // WebSocket 会话ID -> 连接
+    private final Map<String, ClientSession> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private Counter slowConsumerCounter;
+
+    private ExecutorService sender;
+
+    public WebSocketSessionRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 每个连接同一时间最多只有一个发送任务，队列长度不超过连接数
+        sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ws-sender-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("roomx.websocket.sessions", sessions, Map::size)
+                .description("当前WebSocket连接数")
+                .register(registry);
+            Gauge.builder("roomx.websocket.users", userSessions, Map::size)
+                .description("当前在线用户数")
+                .register(registry);
+            Gauge.builder("roomx.websocket.queued.bytes", queuedBytes, AtomicLong::get)
+                .description("发送队列中等待写出的字节数")
+                .register(registry);
+            FunctionCounter.builder("roomx.websocket.frames.dropped", droppedFrames, AtomicLong::get)
+                .description("因连接关闭或被断开而丢弃的消息数")
+                .register(registry);
+            slowConsumerCounter = Counter.builder("roomx.websocket.slow.disconnects")
+                .description("因积压或发送超时被断开的连接数")
+                .register(registry);
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sender.shutdown();
+        try {
+            if (!sender.awaitTermination(5, TimeUnit.SECONDS)) {
+                sender.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            sender.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 登记已认证的连接
+     */
+    public void register(Long userId, WebSocketSession session) {
+        limitBlockingSend(session);
+        ClientSession client = new ClientSession(userId,
+            new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, bufferSizeLimit));
+        sessions.put(session.getId(), client);
+        // 与 unregister 一样在 compute 中修改集合，避免加入刚被移除的空集合
+        userSessions.compute(userId, (k, set) -> {
+            Set<ClientSession> clients = set != null ? set : ConcurrentHashMap.newKeySet();
+            clients.add(client);
+            return clients;
+        });
+    }
+
+    /**
+     * 移除连接，丢弃其未发送的消息
+     * @return 连接所属的用户ID，未登记时返回 null
+     */
+    public Long unregister(String sessionId) {
+        ClientSession client = sessions.remove(sessionId);
+        if (client == null) {
+            return null;
+        }
+        userSessions.computeIfPresent(client.userId, (k, set) -> {
+            set.remove(client);
+            return set.isEmpty() ? null : set;
+        });
+        client.discard();
+        return client.userId;
+    }
+
+    /**
+     * 连接所属的用户ID
+     */
+    public Long getUserId(String sessionId) {
+        ClientSession client = sessions.get(sessionId);
+        return client != null ? client.userId : null;
+    }
+
+    /**
+     * 发送到指定连接
+     * @return 是否已入队
+     */
+    public boolean sendToSession(String sessionId, TextMessage message) {
+        ClientSession client = sessions.get(sessionId);
+        return client != null && client.enqueue(message);
+    }
+
+    /**
+     * 发送到用户的所有连接
+     * @return 入队成功的连接数，用户不在线时为0
+     */
+    public int sendToUser(Long userId, TextMessage message) {
+        Set<ClientSession> clients = userSessions.get(userId);
+        if (clients == null) {
+            return 0;
+        }
+        int sent = 0;
+        for (ClientSession client : clients) {
+            if (client.enqueue(message)) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * 发送到所有连接，所有连接共用同一个消息对象
+     * @return 入队成功的连接数
+     */
+    public int broadcast(TextMessage message) {
+        int sent = 0;
+        for (ClientSession client : sessions.values()) {
+            if (client.enqueue(message)) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    public boolean isOnline(Long userId) {
+        return userSessions.containsKey(userId);
+    }
+
+    public int getOnlineUserCount() {
+        return userSessions.size();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public Collection<Long> getOnlineUserIds() {
+        return userSessions.keySet();
+    }
+
+    /**
+     * 限制 Tomcat 单次阻塞发送的时间，超时后发送失败并断开，发送线程不会被一个连接长期占用
+     */
+    private void limitBlockingSend(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session standardSession = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (standardSession != null) {
+                standardSession.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, (long) sendTimeLimitMillis);
+            }
+        }
+    }
+
+    /**
+     * 单个连接及其发送队列
+     */
+    private final class ClientSession {
+        private final Long userId;
+        private final WebSocketSession session;
+        private final ConcurrentLinkedQueue<TextMessage> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingBytes = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        ClientSession(Long userId, WebSocketSession session) {
+            this.userId = userId;
+            this.session = session;
+        }
+
+        /**
+         * 入队并在没有发送任务时调度一个
+         * @return 连接已关闭或积压超限时返回 false
+         */
+        boolean enqueue(TextMessage message) {
+            if (closed || !session.isOpen()) {
+                droppedFrames.incrementAndGet();
+                return false;
+            }
+            int bytes = message.getPayloadLength();
+            if (pendingBytes.addAndGet(bytes) > bufferSizeLimit) {
+                pendingBytes.addAndGet(-bytes);
+                droppedFrames.incrementAndGet();
+                disconnectSlow("发送队列积压超过 " + bufferSizeLimit + " 字节");
+                return false;
+            }
+            queuedBytes.addAndGet(bytes);
+            queue.offer(message);
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                for (int i = 0; i < DRAIN_BATCH; i++) {
+                    TextMessage message = queue.poll();
+                    if (message == null) {
+                        break;
+                    }
+                    release(message);
+                    if (closed) {
+                        droppedFrames.incrementAndGet();
+                        continue;
+                    }
+                    try {
+                        session.sendMessage(message);
+                    } catch (IOException | RuntimeException e) {
+                        droppedFrames.incrementAndGet();
+                        disconnectSlow("发送失败: " + e.getMessage());
+                    }
+                }
+            } finally {
+                draining.set(false);
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        private void release(TextMessage message) {
+            int bytes = message.getPayloadLength();
+            pendingBytes.addAndGet(-bytes);
+            queuedBytes.addAndGet(-bytes);
+        }
+
+        /**
+         * 断开慢连接，关闭操作在发送线程中执行，不阻塞调用方
+         */
+        private void disconnectSlow(String reason) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (slowConsumerCounter != null) {
+                slowConsumerCounter.increment();
+            }
+            log.warn("断开慢速WebSocket连接: userId={}, sessionId={}, 原因={}", userId, session.getId(), reason);
+            sender.execute(() -> {
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException e) {
+                    log.debug("关闭WebSocket连接失败: sessionId={}, error={}", session.getId(), e.getMessage());
+                }
+            });
+        }
+
+        /**
+         * 连接已移除，丢弃未发送的消息
+         */
+        void discard() {
+            closed = true;
+            TextMessage message;
+            while ((message = queue.poll()) != null) {
+                release(message);
+                droppedFrames.incrementAndGet();
+            }
+        }
+    }
+}
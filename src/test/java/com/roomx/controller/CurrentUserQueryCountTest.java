@@ -0,0 +1,89 @@
+package com.roomx.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.roomx.model.dto.UserLoginDTO;
+import com.roomx.repository.UserRepository;
+import com.roomx.service.AuthService;
+import com.roomx.utils.ThreadStatementCounter;
+
+/**
+ * 当前用户从 token 声明中获取：预约分页和通知接口不再按用户名查询用户表
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CurrentUserQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @MockitoSpyBean
+    private UserRepository userRepository;
+
+    private String login(String username, String password) {
+        UserLoginDTO loginDTO = new UserLoginDTO();
+        loginDTO.setUsername(username);
+        loginDTO.setPassword(password);
+        return authService.login(loginDTO).getToken();
+    }
+
+    /**
+     * 执行请求并返回请求线程执行的 SQL，期间不应访问 UserRepository
+     */
+    private List<String> perform(MockHttpServletRequestBuilder request, String token) throws Exception {
+        clearInvocations(userRepository);
+        ThreadStatementCounter.reset();
+        mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().isOk());
+        verifyNoInteractions(userRepository);
+        return ThreadStatementCounter.statements();
+    }
+
+    @Test
+    void applicationPageForApplierDoesNotLookUpUser() throws Exception {
+        String token = login("exusiai", "123456");
+
+        List<String> statements = perform(get("/api/application/page").param("pageNum", "1").param("pageSize", "10"), token);
+
+        // 一条列表查询和一条总数查询
+        assertThat(statements).isNotEmpty().hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void applicationPageForAdminDoesNotLookUpUser() throws Exception {
+        String token = login("admin", "admin123");
+
+        List<String> statements = perform(get("/api/application/page"), token);
+
+        assertThat(statements).isNotEmpty().hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void notificationEndpointsDoNotLookUpUser() throws Exception {
+        String token = login("exusiai", "123456");
+
+        assertThat(perform(get("/api/notifications"), token)).isNotEmpty().hasSizeLessThanOrEqualTo(2);
+        assertThat(perform(get("/api/notifications/cursor"), token)).hasSizeLessThanOrEqualTo(1);
+        assertThat(perform(get("/api/notifications/unread-count"), token)).hasSizeLessThanOrEqualTo(1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.roomx.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.roomx.App;
+import com.roomx.model.entity.Room;
+import com.roomx.repository.RoomRepository;
+
+/**
+ * 两个应用上下文共用同一个租约库（同名内存数据库），模拟两节点集群：
+ * 分区互不重叠且全部有人负责，一个节点下线后另一个节点接管全部分区
+ */
+class LeaseSchedulerPartitionClusterTest {
+
+    private static final int PARTITIONS = 8;
+    private static final Set<Integer> ALL_PARTITIONS = IntStream.range(0, PARTITIONS).boxed().collect(Collectors.toSet());
+
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+
+    @AfterEach
+    void tearDown() {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        // 以命令行参数传入，优先级高于 application.yml 中的 spring.profiles.active 和各环境配置
+        return new SpringApplicationBuilder(App.class).run(
+            "--spring.profiles.active=test",
+            // 两个上下文连接同一个内存库；表结构按需更新，不在某个节点关闭时删除
+            "--spring.datasource.url=jdbc:h2:mem:roomx-lease;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER,VALUE,KEY",
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--server.port=0",
+            "--roomx.scheduler.cluster.enabled=true",
+            "--roomx.scheduler.cluster.node-id=" + nodeId,
+            "--roomx.scheduler.cluster.partitions=" + PARTITIONS,
+            "--roomx.scheduler.cluster.lease-ttl-ms=3000",
+            "--roomx.scheduler.cluster.renew-interval-ms=200");
+    }
+
+    private static Set<Integer> owned(ConfigurableApplicationContext context) {
+        return context.getBean(SchedulerPartitionService.class).getOwnedPartitions();
+    }
+
+    private static Set<Long> roomIds(List<Room> rooms) {
+        return rooms.stream().map(Room::getId).collect(Collectors.toSet());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private boolean balanced() {
+        Set<Integer> a = owned(first);
+        Set<Integer> b = owned(second);
+        Set<Integer> union = new HashSet<>(a);
+        union.addAll(b);
+        return a.size() == PARTITIONS / 2 && b.size() == PARTITIONS / 2 && union.equals(ALL_PARTITIONS);
+    }
+
+    @Test
+    void partitionsAreDisjointAndCoveredAcrossNodes() throws InterruptedException {
+        first = startNode("node-a");
+        assertThat(owned(first)).isEqualTo(ALL_PARTITIONS);
+
+        second = startNode("node-b");
+        await(this::balanced);
+
+        Set<Integer> a = owned(first);
+        Set<Integer> b = owned(second);
+        assertThat(a).hasSize(PARTITIONS / 2).doesNotContainAnyElementsOf(b);
+        assertThat(b).hasSize(PARTITIONS / 2);
+        Set<Integer> union = new HashSet<>(a);
+        union.addAll(b);
+        assertThat(union).isEqualTo(ALL_PARTITIONS);
+
+        // 定时任务按分区在 SQL 中读取教室：两个节点读到的教室互不重叠，合起来是全部教室
+        RoomRepository roomRepository = first.getBean(RoomRepository.class);
+        Set<Long> roomsOfA = roomIds(roomRepository.findByPartitions(PARTITIONS, a));
+        Set<Long> roomsOfB = roomIds(roomRepository.findByPartitions(PARTITIONS, b));
+        assertThat(roomsOfA).doesNotContainAnyElementsOf(roomsOfB);
+        Set<Long> allRooms = new HashSet<>(roomsOfA);
+        allRooms.addAll(roomsOfB);
+        assertThat(allRooms).isEqualTo(roomIds(roomRepository.findAll()));
+
+        // 节点正常下线时释放租约并移除心跳，剩余节点在下一轮续约时接管全部分区
+        second.close();
+        second = null;
+        await(() -> owned(first).equals(ALL_PARTITIONS));
+
+        assertThat(owned(first)).isEqualTo(ALL_PARTITIONS);
+    }
+}
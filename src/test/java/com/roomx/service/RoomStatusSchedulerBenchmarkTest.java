@@ -0,0 +1,118 @@
+package com.roomx.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.roomx.constant.enums.ApplicationStatus;
+import com.roomx.constant.enums.RoomStatus;
+import com.roomx.constant.enums.RoomType;
+import com.roomx.model.entity.Application;
+import com.roomx.model.entity.Room;
+import com.roomx.repository.ApplicationRepository;
+import com.roomx.repository.RoomRepository;
+import com.roomx.utils.ThreadStatementCounter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 一轮教室状态计算在 1k/5k/20k 个教室下的 SQL 数量和耗时
+ * 每个新增教室都有一个进行中的申请，每轮开始前把这些教室重置为空闲，使每轮都要写回全部新增教室
+ */
+@Slf4j
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:roomx-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER,VALUE,KEY",
+    "logging.level.com.roomx.service.RoomStatusSchedulerBenchmarkTest=INFO"
+})
+@ActiveProfiles("test")
+class RoomStatusSchedulerBenchmarkTest {
+
+    private static final int[] ROOM_COUNTS = {1_000, 5_000, 20_000};
+
+    @Autowired
+    private RoomStatusSchedulerService roomStatusSchedulerService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void selectCountDoesNotGrowWithRoomCount() {
+        // 预热，并让启动数据的教室状态先收敛
+        roomStatusSchedulerService.updateRoomStatuses();
+        long firstSeededId = Long.MAX_VALUE;
+        int seeded = 0;
+
+        for (int roomCount : ROOM_COUNTS) {
+            firstSeededId = Math.min(firstSeededId, seedRooms(roomCount - seeded));
+            seeded = roomCount;
+            // 状态列按序号存储
+            jdbcTemplate.update("UPDATE room SET status = ? WHERE id >= ?", RoomStatus.AVAILABLE.ordinal(), firstSeededId);
+
+            ThreadStatementCounter.reset();
+            long start = System.nanoTime();
+            roomStatusSchedulerService.updateRoomStatuses();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            List<String> statements = ThreadStatementCounter.statements();
+            long selects = statements.stream().filter(sql -> sql.startsWith("select")).count();
+            long updates = statements.stream().filter(sql -> sql.startsWith("update")).count();
+            log.info("教室状态计算：{} 个新增教室，SELECT {} 条，UPDATE {} 条，耗时 {}ms",
+                roomCount, selects, updates, elapsedMillis);
+
+            // 一次读取教室、两次范围查询申请，与教室数量无关；只写回状态变化的教室
+            assertThat(selects).isEqualTo(3);
+            assertThat(updates).isEqualTo(roomCount);
+            assertThat(roomRepository.findById(firstSeededId).orElseThrow().getStatus()).isEqualTo(RoomStatus.USING);
+        }
+    }
+
+    /**
+     * 新增教室，每个教室一个进行中的申请
+     * @return 第一个新增教室的ID
+     */
+    private long seedRooms(int count) {
+        Date now = new Date();
+        List<Room> rooms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Room room = new Room();
+            room.setName("压测教室" + i);
+            room.setType(RoomType.SEMINAR_ROOM);
+            room.setCapacity(30L);
+            room.setLocation("压测楼");
+            room.setStatus(RoomStatus.AVAILABLE);
+            room.setCreateTime(now);
+            room.setUpdateTime(now);
+            rooms.add(room);
+        }
+        rooms = roomRepository.saveAll(rooms);
+
+        List<Application> applications = new ArrayList<>(count);
+        for (Room room : rooms) {
+            Application application = new Application();
+            application.setUserId(1L);
+            application.setRoomId(room.getId());
+            application.setStatus(ApplicationStatus.IN_USE);
+            application.setStartTime(new Date(now.getTime() - 10 * 60 * 1000));
+            application.setEndTime(new Date(now.getTime() + 50 * 60 * 1000));
+            application.setCreateTime(now);
+            application.setUpdateTime(now);
+            applications.add(application);
+        }
+        applicationRepository.saveAll(applications);
+        return rooms.get(0).getId();
+    }
+}
@@ -0,0 +1,58 @@
+package com.roomx.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.roomx.exception.ConcurrentModificationException;
+import com.roomx.service.RoomLockProvider.RoomLock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LocalRoomLockProviderTest {
+
+    private final LocalRoomLockProvider provider = new LocalRoomLockProvider(new SimpleMeterRegistry());
+
+    private Map<?, ?> queues() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(provider, AbstractRoomLockProvider.class, "queues");
+    }
+
+    @Test
+    void differentRoomsDoNotBlockEachOther() throws Exception {
+        try (RoomLock held = provider.acquire(1L, 1000)) {
+            // 其他线程获取另一个教室的锁不需要等待
+            CompletableFuture.runAsync(() -> provider.acquire(2L, 0).close()).get(1, TimeUnit.SECONDS);
+        }
+        assertThat(queues()).isEmpty();
+    }
+
+    @Test
+    void sameRoomWaitsAndTimesOut() {
+        try (RoomLock held = provider.acquire(1L, 1000)) {
+            assertThatThrownBy(() -> CompletableFuture.supplyAsync(() -> provider.acquire(1L, 50)).join())
+                .hasCauseInstanceOf(ConcurrentModificationException.class);
+            // 超时的请求已注销，只剩持有者
+            assertThat(queues()).hasSize(1);
+        }
+        assertThat(queues()).isEmpty();
+    }
+
+    @Test
+    void waiterGetsLockAfterRelease() throws Exception {
+        RoomLock held = provider.acquire(1L, 1000);
+        // 锁必须在获取它的线程上释放，等待者在同一个任务中获取并释放
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> provider.acquire(1L, 2000).close());
+        Thread.sleep(50);
+        assertThat(waiter).isNotDone();
+
+        held.close();
+        waiter.get(1, TimeUnit.SECONDS);
+        assertThat(queues()).isEmpty();
+    }
+}
@@ -0,0 +1,57 @@
+package com.roomx.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class DeadlineQueueTest {
+
+    @Test
+    void pollDueReturnsKeysInDeadlineOrder() {
+        DeadlineQueue<Long> queue = new DeadlineQueue<>();
+        queue.schedule(3L, 300);
+        queue.schedule(1L, 100);
+        queue.schedule(2L, 200);
+
+        assertThat(queue.nextDeadline()).isEqualTo(100);
+        assertThat(queue.pollDue(99)).isEmpty();
+        assertThat(queue.pollDue(200)).containsExactly(1L, 2L);
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.contains(2L)).isFalse();
+    }
+
+    @Test
+    void rescheduleReplacesPreviousDeadline() {
+        DeadlineQueue<Long> queue = new DeadlineQueue<>();
+        queue.schedule(1L, 100);
+        queue.schedule(1L, 500);
+
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.pollDue(400)).isEmpty();
+        assertThat(queue.pollDue(500)).containsExactly(1L);
+    }
+
+    @Test
+    void sameDeadlineKeepsAllKeys() {
+        DeadlineQueue<Long> queue = new DeadlineQueue<>();
+        queue.schedule(2L, 100);
+        queue.schedule(1L, 100);
+
+        assertThat(queue.pollDue(100)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void cancelAndClear() {
+        DeadlineQueue<Long> queue = new DeadlineQueue<>();
+        queue.schedule(1L, 100);
+        queue.schedule(2L, 200);
+
+        assertThat(queue.cancel(1L)).isTrue();
+        assertThat(queue.cancel(1L)).isFalse();
+        assertThat(queue.nextDeadline()).isEqualTo(200);
+
+        queue.clear();
+        assertThat(queue.size()).isZero();
+        assertThat(queue.nextDeadline()).isEqualTo(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,59 @@
+package com.roomx.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.roomx.constant.enums.UserRole;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 过滤器路径上重复验证同一 token 的开销：每次验证签名与命中已验证缓存对比
+ * 只记录耗时，不以耗时作为断言条件
+ */
+@Slf4j
+class EnhancedJwtUtilBenchmarkTest {
+
+    private static final int WARMUP = 5_000;
+    private static final int ITERATIONS = 50_000;
+
+    // 保存每次调用的结果，避免被当作无用代码消除
+    private static volatile Object sink;
+
+    @BeforeAll
+    static void disableTokenLogFile() {
+        // 未经 Spring 配置时审计日志默认写入工作目录，测试中关闭
+        TokenValidationLogger.shutdown();
+    }
+
+    @Test
+    void cachedVerificationSkipsSignatureCheck() {
+        String token = EnhancedJwtUtil.generateToken("exusiai", 7L, UserRole.APPLIER, "session-1");
+
+        TokenClaims first = EnhancedJwtUtil.parseAndVerify(token);
+        assertThat(first.username()).isEqualTo("exusiai");
+        assertThat(first.userId()).isEqualTo(7L);
+        assertThat(first.sessionId()).isEqualTo("session-1");
+
+        long uncachedNanos = measure(() -> sink = EnhancedJwtUtil.parseToken(token));
+        long cachedNanos = measure(() -> sink = EnhancedJwtUtil.parseAndVerify(token));
+        assertThat(sink).isSameAs(first);
+
+        log.info("重复验证同一 token {} 次：每次验签 {} ns/次，命中缓存 {} ns/次，约 {} 倍",
+            ITERATIONS, uncachedNanos / ITERATIONS, cachedNanos / ITERATIONS,
+            Math.round((double) uncachedNanos / Math.max(1, cachedNanos)));
+    }
+
+    private static long measure(Runnable call) {
+        for (int i = 0; i < WARMUP; i++) {
+            call.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        return System.nanoTime() - start;
+    }
+}
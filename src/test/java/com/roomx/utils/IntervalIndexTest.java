@@ -0,0 +1,89 @@
+package com.roomx.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IntervalIndexTest {
+
+    @Test
+    void overlappingUsesHalfOpenIntervals() {
+        IntervalIndex<Long> index = new IntervalIndex<>();
+        index.put(1L, 100, 200);
+        index.put(2L, 200, 300);
+        index.put(3L, 150, 250);
+
+        assertThat(index.overlapping(200, 201)).containsExactly(3L, 2L);
+        assertThat(index.overlapping(0, 100)).isEmpty();
+        assertThat(index.overlapping(300, 400)).isEmpty();
+        assertThat(index.overlapping(199, 199)).isEmpty();
+    }
+
+    @Test
+    void putReplacesPreviousInterval() {
+        IntervalIndex<Long> index = new IntervalIndex<>();
+        index.put(1L, 100, 200);
+        index.put(1L, 500, 600);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.overlapping(100, 200)).isEmpty();
+        assertThat(index.overlapping(550, 560)).containsExactly(1L);
+    }
+
+    @Test
+    void longIntervalStillFoundAfterShorterOnesRemoved() {
+        IntervalIndex<Long> index = new IntervalIndex<>();
+        index.put(1L, 0, 10_000);
+        index.put(2L, 9_000, 9_010);
+        index.remove(2L);
+
+        assertThat(index.overlapping(9_500, 9_600)).containsExactly(1L);
+    }
+
+    @Test
+    void removingLongestIntervalShrinksScan() {
+        IntervalIndex<Long> index = new IntervalIndex<>();
+        index.put(1L, 0, 1_000_000);
+        index.put(2L, 500, 510);
+        index.put(3L, 600, 610);
+        assertThat(index.overlapping(605, 606)).containsExactly(1L, 3L);
+
+        assertThat(index.remove(1L)).isTrue();
+        assertThat(index.remove(1L)).isFalse();
+        assertThat(index.overlapping(605, 606)).containsExactly(3L);
+        assertThat(index.overlapping(505, 506)).containsExactly(2L);
+    }
+
+    @Test
+    void matchesBruteForce() {
+        Random random = new Random(42);
+        IntervalIndex<Long> index = new IntervalIndex<>();
+        long[][] intervals = new long[200][];
+        for (int round = 0; round < 5_000; round++) {
+            int key = random.nextInt(intervals.length);
+            if (random.nextInt(4) == 0) {
+                index.remove((long) key);
+                intervals[key] = null;
+            } else {
+                long start = random.nextInt(10_000);
+                long end = start + 1 + random.nextInt(random.nextInt(10) == 0 ? 5_000 : 100);
+                index.put((long) key, start, end);
+                intervals[key] = new long[] {start, end};
+            }
+
+            long queryStart = random.nextInt(10_000);
+            long queryEnd = queryStart + 1 + random.nextInt(300);
+            List<Long> expected = new ArrayList<>();
+            for (int k = 0; k < intervals.length; k++) {
+                if (intervals[k] != null && intervals[k][0] < queryEnd && intervals[k][1] > queryStart) {
+                    expected.add((long) k);
+                }
+            }
+            assertThat(index.overlapping(queryStart, queryEnd)).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+}
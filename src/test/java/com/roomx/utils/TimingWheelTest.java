@@ -0,0 +1,91 @@
+package com.roomx.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+
+    @Test
+    void keyExpiresAtDeadlineRoundedUpToTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 3, 1000);
+        wheel.schedule("a", 1015);
+
+        assertThat(wheel.advance(1015)).isEmpty();
+        assertThat(wheel.advance(1019)).isEmpty();
+        assertThat(wheel.advance(1020)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlineIsReturnedOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 3, 1000);
+        wheel.schedule("late", 500);
+        wheel.schedule("now", 1000);
+
+        assertThat(wheel.advance(1000)).containsExactlyInAnyOrder("late", "now");
+    }
+
+    @Test
+    void rescheduleAndCancelReplacePreviousDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 3, 1000);
+        wheel.schedule("a", 1050);
+        wheel.schedule("a", 3000);
+        wheel.schedule("b", 1050);
+
+        assertThat(wheel.cancel("b")).isTrue();
+        assertThat(wheel.cancel("b")).isFalse();
+        assertThat(wheel.advance(2000)).isEmpty();
+        assertThat(wheel.advance(3000)).containsExactly("a");
+    }
+
+    @Test
+    void deadlineBeyondTopLevelIsCascadedDown() {
+        // 覆盖范围 10 * 8^3 = 5120ms
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 3, 0);
+        wheel.schedule("far", 20_000);
+
+        assertThat(wheel.advance(19_990)).isEmpty();
+        assertThat(wheel.advance(20_000)).containsExactly("far");
+    }
+
+    @Test
+    void matchesBruteForceUnderRandomOperations() {
+        Random random = new Random(42);
+        long now = 1_000;
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, 8, 3, now);
+        Map<Integer, Long> expected = new HashMap<>();
+
+        for (int round = 0; round < 2_000; round++) {
+            int key = random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                assertThat(wheel.cancel(key)).isEqualTo(expected.remove(key) != null);
+            } else {
+                long deadline = now - 50 + random.nextInt(12_000);
+                wheel.schedule(key, deadline);
+                expected.put(key, deadline);
+            }
+
+            now += random.nextInt(40);
+            long currentTick = now / TICK;
+            List<Integer> due = new ArrayList<>();
+            expected.forEach((k, deadline) -> {
+                if (Math.floorDiv(deadline + TICK - 1, TICK) <= currentTick) {
+                    due.add(k);
+                }
+            });
+            due.forEach(expected::remove);
+
+            assertThat(wheel.advance(now)).containsExactlyInAnyOrderElementsOf(due);
+            assertThat(wheel.size()).isEqualTo(expected.size());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.roomx.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import com.roomx.constant.enums.UserRole;
+
+class VerifiedTokenCacheTest {
+
+    private static TokenClaims claims(String username, long expiresInMillis) {
+        Instant now = Instant.now();
+        return new TokenClaims(username, 1L, UserRole.APPLIER, "session", now, now.plusMillis(expiresInMillis));
+    }
+
+    @Test
+    void returnsCachedClaimsForSameToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        TokenClaims claims = claims("alice", 60_000);
+        cache.put("token-a", claims);
+
+        assertThat(cache.get("token-a")).isSameAs(claims);
+        assertThat(cache.get("token-b")).isNull();
+    }
+
+    @Test
+    void expiredClaimsAreNotCachedAndAreDroppedOnRead() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("expired", claims("alice", -1));
+        assertThat(cache.size()).isZero();
+
+        cache.put("short", claims("bob", 20));
+        Thread.sleep(40);
+        assertThat(cache.get("short")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void sizeStaysWithinLimit() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("token-" + i, claims("user" + i, 60_000));
+            assertThat(cache.size()).isLessThanOrEqualTo(100);
+        }
+        // 最近写入的 token 一定仍在缓存中
+        assertThat(cache.get("token-999")).isNotNull();
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("token-a", claims("alice", 60_000));
+        cache.clear();
+
+        assertThat(cache.get("token-a")).isNull();
+    }
+}
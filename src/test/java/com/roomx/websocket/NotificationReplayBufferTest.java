@@ -0,0 +1,144 @@
+package com.roomx.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.roomx.model.dto.NotificationDTO;
+import com.roomx.model.entity.Notification;
+import com.roomx.repository.NotificationRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+class NotificationReplayBufferTest {
+
+    private static final Long USER_ID = 7L;
+
+    private NotificationRepository notificationRepository;
+    private WebSocketSessionRegistry sessionRegistry;
+    private NotificationReplayBuffer replayBuffer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        sessionRegistry = mock(WebSocketSessionRegistry.class);
+        replayBuffer = new NotificationReplayBuffer(notificationRepository, sessionRegistry, mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(replayBuffer, "bufferSize", 4);
+        ReflectionTestUtils.setField(replayBuffer, "retentionMillis", 300_000L);
+        ReflectionTestUtils.setField(replayBuffer, "dbLimit", 3);
+        when(notificationRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(any(), anyLong(), any(Pageable.class)))
+            .thenReturn(List.of());
+    }
+
+    private static NotificationDTO dto(long id) {
+        NotificationDTO notification = new NotificationDTO();
+        notification.setId(id);
+        notification.setUserId(USER_ID);
+        return notification;
+    }
+
+    private static Notification row(long id) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setUserId(USER_ID);
+        return notification;
+    }
+
+    private static List<Long> ids(NotificationReplayBuffer.Replay replay) {
+        return replay.notifications().stream().map(NotificationDTO::getId).toList();
+    }
+
+    @Test
+    void replaysFromBufferWhenLastIdIsStillBuffered() {
+        replayBuffer.track(USER_ID);
+        LongStream.rangeClosed(10, 13).forEach(id -> replayBuffer.record(USER_ID, dto(id)));
+
+        NotificationReplayBuffer.Replay replay = replayBuffer.replay(USER_ID, 11);
+
+        assertThat(replay.complete()).isTrue();
+        assertThat(ids(replay)).containsExactly(12L, 13L);
+        verify(notificationRepository, never()).findByUserIdAndIdGreaterThanOrderByIdAsc(any(), anyLong(), any());
+    }
+
+    @Test
+    void unknownLastIdFallsBackToDatabaseThenBufferCoversLaterReplays() {
+        replayBuffer.track(USER_ID);
+        when(notificationRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(eq(USER_ID), eq(5L), any(Pageable.class)))
+            .thenReturn(List.of(row(6), row(8)));
+
+        NotificationReplayBuffer.Replay fromDatabase = replayBuffer.replay(USER_ID, 5);
+        assertThat(fromDatabase.complete()).isTrue();
+        assertThat(ids(fromDatabase)).containsExactly(6L, 8L);
+
+        // 查询结果之后推送的通知都在缓冲中，下一次重连不再查询数据库
+        replayBuffer.record(USER_ID, dto(9));
+        NotificationReplayBuffer.Replay fromBuffer = replayBuffer.replay(USER_ID, 8);
+        assertThat(ids(fromBuffer)).containsExactly(9L);
+        verify(notificationRepository).findByUserIdAndIdGreaterThanOrderByIdAsc(any(), anyLong(), any());
+    }
+
+    @Test
+    void overwrittenNotificationsForceDatabaseReplay() {
+        replayBuffer.track(USER_ID);
+        replayBuffer.replay(USER_ID, 0);
+        LongStream.rangeClosed(1, 6).forEach(id -> replayBuffer.record(USER_ID, dto(id)));
+        when(notificationRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(eq(USER_ID), eq(1L), any(Pageable.class)))
+            .thenReturn(List.of(row(2), row(3), row(4), row(5), row(6)));
+
+        // 2 已被覆盖，缓冲无法证明 1 之后的通知齐全；数据库结果超过上限时要求重新加载
+        NotificationReplayBuffer.Replay replay = replayBuffer.replay(USER_ID, 1);
+
+        assertThat(replay.complete()).isFalse();
+        assertThat(replay.notifications()).isEmpty();
+    }
+
+    @Test
+    void untrackedUserIsServedFromDatabaseAndNotRecorded() {
+        replayBuffer.record(USER_ID, dto(1));
+        assertThat(replayBuffer.isTracked(USER_ID)).isFalse();
+
+        when(notificationRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(eq(USER_ID), eq(0L), any(Pageable.class)))
+            .thenReturn(List.of(row(1)));
+        assertThat(ids(replayBuffer.replay(USER_ID, 0))).containsExactly(1L);
+    }
+
+    @Test
+    void evictsOnlyOfflineUsersPastRetention() {
+        ReflectionTestUtils.setField(replayBuffer, "retentionMillis", -1L);
+        replayBuffer.track(1L);
+        replayBuffer.track(2L);
+        when(sessionRegistry.isOnline(1L)).thenReturn(true);
+        when(sessionRegistry.isOnline(2L)).thenReturn(false);
+
+        replayBuffer.evictIdle();
+
+        assertThat(replayBuffer.isTracked(1L)).isTrue();
+        assertThat(replayBuffer.isTracked(2L)).isFalse();
+    }
+
+    @Test
+    void metricsAreOptional() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> noRegistry = mock(ObjectProvider.class);
+        NotificationReplayBuffer buffer = new NotificationReplayBuffer(notificationRepository, sessionRegistry, noRegistry);
+        buffer.init();
+        ReflectionTestUtils.setField(buffer, "dbLimit", 3);
+
+        assertThat(buffer.replay(USER_ID, 0).complete()).isTrue();
+    }
+}
@@ -0,0 +1,200 @@
+package com.roomx.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 向 10k 个连接广播：断言每一帧都送达，并记录吞吐量和业务线程分配量
+ * 连接为只计数的桩，测量的是注册表自身的入队、调度和写出开销
+ */
+@Slf4j
+class WebSocketSessionRegistryBroadcastTest {
+
+    private static final int SESSIONS = 10_000;
+    private static final int ROUNDS = 20;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private WebSocketSessionRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = new WebSocketSessionRegistry(mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(registry, "sendTimeLimitMillis", 5000);
+        ReflectionTestUtils.setField(registry, "bufferSizeLimit", 524288);
+        ReflectionTestUtils.setField(registry, "senderThreads", 2);
+        registry.init();
+        for (int i = 0; i < SESSIONS; i++) {
+            registry.register((long) i, new CountingSession("s" + i, delivered));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.destroy();
+    }
+
+    @Test
+    void broadcastsToTenThousandSessions() throws InterruptedException {
+        // 与 NotificationWebSocketHandler 一样由已编码的字节构造，计算长度时不再重新编码
+        TextMessage message = new TextMessage("{\"type\":\"BROADCAST\",\"data\":{\"title\":\"系统维护通知\",\"content\":\"今晚 22:00 至 23:00 暂停预约服务\"}}"
+            .getBytes(StandardCharsets.UTF_8));
+
+        // 预热
+        broadcastRounds(message, 2);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long enqueueNanos = broadcastRounds(message, ROUNDS);
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        long frames = (long) SESSIONS * ROUNDS;
+        double framesPerSecond = frames / (elapsedNanos / 1e9);
+        double enqueuePerSecond = frames / (enqueueNanos / 1e9);
+        double bytesPerFrame = (double) allocated / frames;
+        // 吞吐量和分配量只记录不断言，受运行机器负载影响；正确性由 broadcastRounds 断言全部帧都已写出
+        log.info("广播 {} 个连接 x {} 轮: 写出 {} 帧/秒，入队 {} 帧/秒，业务线程每帧分配 {} 字节",
+            SESSIONS, ROUNDS, Math.round(framesPerSecond), Math.round(enqueuePerSecond), Math.round(bytesPerFrame));
+    }
+
+    /**
+     * 广播若干轮并等待全部写出
+     * @return 业务线程入队耗费的时间（纳秒）
+     */
+    private long broadcastRounds(TextMessage message, int rounds) throws InterruptedException {
+        long target = delivered.get() + (long) SESSIONS * rounds;
+        long enqueueNanos = 0;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            assertThat(registry.broadcast(message)).isEqualTo(SESSIONS);
+            enqueueNanos += System.nanoTime() - start;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (delivered.get() < target && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(delivered.get()).isEqualTo(target);
+        return enqueueNanos;
+    }
+
+    /**
+     * 只统计写出帧数的连接
+     */
+    private static final class CountingSession implements WebSocketSession {
+        private final String id;
+        private final AtomicLong delivered;
+
+        CountingSession(String id, AtomicLong delivered) {
+            this.id = id;
+            this.delivered = delivered;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return HttpHeaders.EMPTY;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return Map.of();
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            delivered.incrementAndGet();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+        }
+    }
+}